@@ -0,0 +1,147 @@
+package de.westemeyer.plugins.maven.versions;
+
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Model;
+import org.apache.maven.monitor.logging.DefaultLog;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares the per-module cost of the generate-service goal in source mode (generate sources, then compile them like
+ * the maven-compiler-plugin would, using an in-process java compiler) and in bytecode mode (write class files
+ * directly). Every invocation starts with an empty module, so no generated file is up to date.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BuildModeBenchmark {
+    /**
+     * Generate sources and compile them, or write bytecode directly.
+     */
+    @Param({"SOURCE", "BYTECODE"})
+    public String mode;
+
+    /**
+     * Whether the module has a parent (parent artifacts are part of the generated class).
+     */
+    @Param({"false", "true"})
+    public boolean withParent;
+
+    private Path moduleDirectory;
+
+    private MavenProject project;
+
+    private JavaCompiler compiler;
+
+    private String classPath;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws IOException, URISyntaxException {
+        moduleDirectory = Files.createTempDirectory("build-mode-benchmark");
+        compiler = ToolProvider.getSystemJavaCompiler();
+        classPath = new File(de.westemeyer.version.core.api.ArtifactVersionService.class.getProtectionDomain()
+                .getCodeSource().getLocation().toURI()).getPath();
+
+        Model model = new Model();
+        model.setGroupId("de.westemeyer.benchmark");
+        model.setArtifactId("benchmark-module");
+        model.setVersion("1.0.0");
+        model.setName("Benchmark module");
+        model.setDescription("Module without any sources of its own.");
+        model.setPackaging("jar");
+        Build build = new Build();
+        build.setOutputDirectory(moduleDirectory.resolve("classes").toString());
+        model.setBuild(build);
+        project = new MavenProject(model);
+        if (withParent) {
+            Model parentModel = new Model();
+            parentModel.setGroupId("de.westemeyer.benchmark");
+            parentModel.setArtifactId("benchmark-parent");
+            parentModel.setVersion("1.0.0");
+            project.setParent(new MavenProject(parentModel));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void cleanModule() throws IOException {
+        deleteDirectory(moduleDirectory.resolve("classes"));
+        deleteDirectory(moduleDirectory.resolve("generated-sources"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws IOException {
+        deleteDirectory(moduleDirectory);
+    }
+
+    @Benchmark
+    public int buildModule() throws MojoFailureException, IOException {
+        GenerateServiceMojo mojo = new GenerateServiceMojo();
+        mojo.setLog(new DefaultLog(new ConsoleLogger(Logger.LEVEL_WARN, "benchmark")));
+        mojo.project = project;
+        mojo.targetFolder = moduleDirectory.resolve("generated-sources").toFile();
+        mojo.serviceType = ServiceType.NATIVE;
+        mojo.generateBytecode = "BYTECODE".equals(mode);
+        mojo.generateFiles();
+
+        if (!mojo.generateBytecode) {
+            // compile the generated sources like the maven-compiler-plugin would
+            List<String> arguments = new ArrayList<>();
+            arguments.add("-nowarn");
+            arguments.add("-classpath");
+            arguments.add(classPath);
+            arguments.add("-d");
+            arguments.add(project.getBuild().getOutputDirectory());
+            try (Stream<Path> files = Files.walk(mojo.targetFolder.toPath())) {
+                files.filter(file -> file.toString().endsWith(".java")).forEach(file -> arguments.add(file.toString()));
+            }
+            int result = compiler.run(null, OutputStream.nullOutputStream(), OutputStream.nullOutputStream(),
+                    arguments.toArray(new String[0]));
+            if (result != 0) {
+                throw new IllegalStateException("Compilation failed");
+            }
+        }
+        return mojo.filesWritten;
+    }
+
+    static void deleteDirectory(Path directory) throws IOException {
+        if (Files.exists(directory)) {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package de.westemeyer.plugins.maven.versions;
+
+import de.westemeyer.version.core.api.ArtifactVersionService;
+import de.westemeyer.version.core.model.Artifact;
+import de.westemeyer.version.core.model.BasicArtifact;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Model;
+import org.apache.maven.monitor.logging.DefaultLog;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures calls of {@code getArtifact()} on generated service classes (with a parent chain of three levels). The
+ * generated classes create their artifact only once, so they should not allocate anything per call; run with
+ * {@code -prof gc} and compare {@code gc.alloc.rate.norm} to the baseline, which creates a new artifact on every call
+ * (like generated classes did before).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneratedServiceBenchmark {
+    /**
+     * Compile the generated service source file, or use generated bytecode.
+     */
+    @Param({"SOURCE", "BYTECODE"})
+    public String mode;
+
+    private Path moduleDirectory;
+
+    private URLClassLoader classLoader;
+
+    private ArtifactVersionService generatedService;
+
+    private ArtifactVersionService baselineService;
+
+    @Setup
+    public void setUp() throws IOException, MojoFailureException, ReflectiveOperationException, URISyntaxException {
+        moduleDirectory = Files.createTempDirectory("generated-service-benchmark");
+        Path classes = moduleDirectory.resolve("classes");
+
+        Model model = createModel("benchmark-module");
+        model.setName("Benchmark module");
+        model.setDescription("Module generating an artifact version service.");
+        model.setUrl("https://www.westemeyer.de");
+        Build build = new Build();
+        build.setOutputDirectory(classes.toString());
+        model.setBuild(build);
+        MavenProject project = new MavenProject(model);
+        MavenProject parent = new MavenProject(createModel("benchmark-parent"));
+        MavenProject grandParent = new MavenProject(createModel("benchmark-grand-parent"));
+        parent.setParent(grandParent);
+        project.setParent(parent);
+
+        GenerateServiceMojo mojo = new GenerateServiceMojo();
+        mojo.setLog(new DefaultLog(new ConsoleLogger(Logger.LEVEL_WARN, "benchmark")));
+        mojo.project = project;
+        mojo.targetFolder = moduleDirectory.resolve("generated-sources").toFile();
+        mojo.serviceType = ServiceType.NATIVE;
+        mojo.generateBytecode = "BYTECODE".equals(mode);
+        mojo.generateFiles();
+
+        if (!mojo.generateBytecode) {
+            String classPath = new File(ArtifactVersionService.class.getProtectionDomain().getCodeSource()
+                    .getLocation().toURI()).getPath();
+            try (Stream<Path> files = Files.walk(mojo.targetFolder.toPath())) {
+                Path source = files.filter(file -> file.toString().endsWith(".java")).findFirst().orElseThrow();
+                int result = ToolProvider.getSystemJavaCompiler().run(null, OutputStream.nullOutputStream(),
+                        OutputStream.nullOutputStream(), "-classpath", classPath, "-d", classes.toString(),
+                        source.toString());
+                if (result != 0) {
+                    throw new IllegalStateException("Compilation failed");
+                }
+            }
+        }
+
+        classLoader = new URLClassLoader(new URL[]{classes.toUri().toURL()},
+                getClass().getClassLoader());
+        generatedService = (ArtifactVersionService) classLoader.loadClass(
+                mojo.packageName + "." + mojo.serviceClass).getConstructor().newInstance();
+        baselineService = new BaselineVersionService();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        classLoader.close();
+        BuildModeBenchmark.deleteDirectory(moduleDirectory);
+    }
+
+    @Benchmark
+    public Artifact generated() {
+        return generatedService.getArtifact();
+    }
+
+    @Benchmark
+    public Artifact baseline() {
+        return baselineService.getArtifact();
+    }
+
+    private static Model createModel(String artifactId) {
+        Model model = new Model();
+        model.setGroupId("de.westemeyer.benchmark");
+        model.setArtifactId(artifactId);
+        model.setVersion("1.0.0");
+        return model;
+    }
+
+    /**
+     * Service class like the ones generated before artifacts were cached in a static constant.
+     */
+    static class BaselineVersionService implements ArtifactVersionService {
+        @Override
+        public Artifact getArtifact() {
+            BasicArtifact parentArtifact1 = new BasicArtifact("de.westemeyer.benchmark", "benchmark-grand-parent",
+                    "1.0.0", null);
+            BasicArtifact parentArtifact = new BasicArtifact("de.westemeyer.benchmark", "benchmark-parent", "1.0.0",
+                    parentArtifact1);
+            return new Artifact("de.westemeyer.benchmark", "benchmark-module", "1.0.0", 1672531200000L,
+                    "Benchmark module", "Module generating an artifact version service.", "https://www.westemeyer.de",
+                    parentArtifact);
+        }
+    }
+}
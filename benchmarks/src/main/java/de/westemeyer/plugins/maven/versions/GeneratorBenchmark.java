@@ -0,0 +1,198 @@
+package de.westemeyer.plugins.maven.versions;
+
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Model;
+import org.apache.maven.monitor.logging.DefaultLog;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the generator hot paths. Run with {@code -prof gc} to get allocation rates as well, and with
+ * {@code -rf json -rff <file>} to keep the results as a baseline for later optimizations.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneratorBenchmark {
+
+    /**
+     * A configured mojo for a module with a parent.
+     */
+    @State(Scope.Benchmark)
+    public static class ModuleState {
+        GenerateServiceMojo mojo;
+
+        String template;
+
+        @Setup
+        public void setUp() throws IOException {
+            MavenProject project = createProject("benchmark-module", createProject("benchmark-parent", null));
+            project.getModel().setName("Benchmark module");
+            project.getModel().setDescription("Module used to benchmark\nthe generator.");
+            project.getModel().setUrl("https://www.westemeyer.de");
+            mojo = createMojo(project);
+            mojo.packageName = "de.westemeyer.benchmark.versions";
+            mojo.serviceClass = "BenchmarkModuleVersionService";
+            mojo.buildTimestamp = 1672531200000L;
+            try (InputStream stream = GenerateServiceMojo.class.getResourceAsStream(
+                    "service-template-with-parent.txt");
+                 Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+                template = mojo.readTemplateFile(reader);
+            }
+        }
+    }
+
+    /**
+     * A parent chain of configurable depth.
+     */
+    @State(Scope.Benchmark)
+    public static class ParentChainState {
+        @Param({"1", "5", "25"})
+        public int depth;
+
+        MavenProject parent;
+
+        ParentChainCache cache;
+
+        @Setup
+        public void setUp() {
+            for (int i = depth; i > 0; i--) {
+                parent = createProject("benchmark-parent-" + i, parent);
+            }
+            cache = new ParentChainCache();
+        }
+    }
+
+    /**
+     * A multi-line description of configurable size.
+     */
+    @State(Scope.Benchmark)
+    public static class DescriptionState {
+        @Param({"10", "1000"})
+        public int lines;
+
+        String description;
+
+        @Setup
+        public void setUp() {
+            StringBuilder buffer = new StringBuilder();
+            for (int i = 0; i < lines; i++) {
+                buffer.append("Line ").append(i).append(" of the project description,\twith a tab.\r\n");
+            }
+            description = buffer.toString();
+        }
+    }
+
+    /**
+     * A module generating files into a temporary directory. With the current time as timestamp, the service class
+     * has to be rewritten (almost) every time, with a fixed timestamp all files are up to date after the first run.
+     */
+    @State(Scope.Benchmark)
+    public static class OutputState {
+        @Param({"NOW", "FIXED"})
+        public TimestampSource timestampSource;
+
+        Path directory;
+
+        MavenProject project;
+
+        @Setup
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("generator-benchmark");
+            project = createProject("benchmark-module", createProject("benchmark-parent", null));
+            Build build = new Build();
+            build.setOutputDirectory(directory.resolve("classes").toString());
+            project.getModel().setBuild(build);
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            BuildModeBenchmark.deleteDirectory(directory);
+        }
+    }
+
+    @Benchmark
+    public String determineServiceClassName(ModuleState state) {
+        return state.mojo.determineServiceClassName();
+    }
+
+    @Benchmark
+    public Map<String, String> getTemplateValues(ModuleState state) {
+        return state.mojo.getTemplateValues("BenchmarkModuleAutoConfiguration");
+    }
+
+    @Benchmark
+    public String readTemplateFile(ModuleState state) throws IOException {
+        return state.mojo.readTemplateFile(new StringReader(state.template));
+    }
+
+    @Benchmark
+    public String renderParentArtifactDefinition(ParentChainState state) {
+        return ParentChainCache.renderDefinition(state.parent);
+    }
+
+    @Benchmark
+    public String getCachedParentArtifactDefinition(ParentChainState state) {
+        return state.cache.getDefinition(state.parent);
+    }
+
+    @Benchmark
+    public String replaceLineFeeds(DescriptionState state) {
+        return GenerateServiceMojo.replaceLineFeeds(state.description);
+    }
+
+    @Benchmark
+    public int generateFiles(OutputState state) throws MojoFailureException {
+        GenerateServiceMojo mojo = createMojo(state.project);
+        mojo.targetFolder = state.directory.resolve("generated-sources").toFile();
+        mojo.serviceType = ServiceType.NATIVE;
+        mojo.timestampSource = state.timestampSource;
+        mojo.fixedTimestamp = "1672531200";
+        mojo.generateFiles();
+        return mojo.filesWritten;
+    }
+
+    static MavenProject createProject(String artifactId, MavenProject parent) {
+        Model model = new Model();
+        model.setGroupId("de.westemeyer.benchmark");
+        model.setArtifactId(artifactId);
+        model.setVersion("1.0.0");
+        MavenProject project = new MavenProject(model);
+        project.setParent(parent);
+        return project;
+    }
+
+    static GenerateServiceMojo createMojo(MavenProject project) {
+        GenerateServiceMojo mojo = new GenerateServiceMojo();
+        mojo.setLog(new DefaultLog(new ConsoleLogger(Logger.LEVEL_WARN, "benchmark")));
+        mojo.project = project;
+        return mojo;
+    }
+}
@@ -0,0 +1,15 @@
+File buildLog = new File(basedir, 'build.log')
+assert buildLog.isFile()
+String log = buildLog.text
+
+// the second build must not run the generator again, but restore its output from the cache
+assert log.contains('Found cached build, restoring')
+assert log.contains('Skipping plugin execution (cached): artifact-version:generate-service')
+assert !log.contains('Plugin parameter mismatch found')
+assert !log.contains('The Maven build cache is enabled, but generated classes contain the current time')
+
+File service = new File(basedir, 'target/generated-sources/artifact-versions/de/westemeyer/it/versions/BuildCacheVersionService.java')
+assert service.isFile()
+assert service.text.contains('1672531200000L')
+assert new File(basedir, 'target/classes/META-INF/services/de.westemeyer.version.core.api.ArtifactVersionService').isFile()
+assert new File(basedir, 'target/classes/de/westemeyer/it/versions/BuildCacheVersionService.class').isFile()
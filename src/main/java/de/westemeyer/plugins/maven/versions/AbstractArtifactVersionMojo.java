@@ -0,0 +1,783 @@
+package de.westemeyer.plugins.maven.versions;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+import org.sonatype.plexus.build.incremental.BuildContext;
+import org.sonatype.plexus.build.incremental.DefaultBuildContext;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Common base class of all goals generating source files and service loader definitions from templates.
+ */
+@SuppressWarnings("checkstyle:VisibilityModifier")
+public abstract class AbstractArtifactVersionMojo extends AbstractMojo {
+    /**
+     * Fully qualified name of the artifact version service interface.
+     */
+    static final String ARTIFACT_VERSION_SERVICE = "de.westemeyer.version.core.api.ArtifactVersionService";
+
+    /**
+     * Name of the state file listing the files generated by an execution (relative to the build directory).
+     */
+    static final String STATE_FILE_NAME = "createdFiles.lst";
+
+    /**
+     * Name of the report file of an execution (next to the state file).
+     */
+    static final String REPORT_FILE_NAME = "report.json";
+
+    /**
+     * The project object is injected with information from a project's pom.xml.
+     */
+    @Parameter(defaultValue = "${project}", required = true, readonly = true)
+    MavenProject project;
+
+    /**
+     * The current build session, parent chains and the reactor report are kept per session.
+     */
+    @Parameter(defaultValue = "${session}", readonly = true)
+    MavenSession session;
+
+    /**
+     * The target source folder for generated classes. Should in most cases be left alone, just make sure to
+     * point your IDE to its location (which it should probably do automatically).
+     */
+    @Parameter(defaultValue = "${project.build.directory}/generated-sources/artifact-versions", required = true)
+    File targetFolder;
+
+    /**
+     * The package name to use for generated classes. Default is group ID plus ".versions" postfix.
+     */
+    @Parameter
+    String packageName;
+
+    /**
+     * The current mojo execution, used to keep the state of different executions apart.
+     */
+    @Parameter(defaultValue = "${mojoExecution}", readonly = true)
+    MojoExecution mojoExecution;
+
+    /**
+     * Write a JSON report with timings and I/O statistics of every execution, and an aggregated report of all
+     * executions to the build directory of the top-level project.
+     */
+    @Parameter(property = "artifactVersion.report", defaultValue = "false")
+    boolean report;
+
+    /**
+     * Build context of incremental IDE builds (e.g. m2e), files written or deleted are refreshed in the workspace.
+     * Command line builds use a non-incremental context.
+     */
+    @Component
+    BuildContext buildContext = new DefaultBuildContext();
+
+    /**
+     * Files generated (written or left unchanged) during this execution.
+     */
+    final Set<Path> generatedFiles = new LinkedHashSet<>();
+
+    /**
+     * Names of the files in directories checked for case-sensitive file names, each directory is listed only once.
+     */
+    final Map<File, Set<String>> directoryListings = new HashMap<>();
+
+    /**
+     * Timings and I/O statistics of this execution.
+     */
+    final GenerationMetrics metrics = new GenerationMetrics();
+
+    /**
+     * Number of generated files that have been (re-)written during this execution.
+     */
+    int filesWritten;
+
+    /**
+     * Number of generated files that have been left untouched, because their content did not change.
+     */
+    int filesSkipped;
+
+    /**
+     * Log the number of files that actually had to be written.
+     */
+    void logFileStatistics() {
+        getLog().info("Generated files: " + filesWritten + " written, " + filesSkipped + " unchanged");
+    }
+
+    /**
+     * Convert a dash or dot separated artifact ID to camel case (starting with a capital letter).
+     *
+     * @param artifactId the artifact ID
+     * @return camel case representation of the artifact ID
+     */
+    static String toCamelCase(String artifactId) {
+        // output buffer for generated class name
+        StringBuilder output = new StringBuilder();
+
+        // start off with a capital letter
+        boolean capitalizeNext = true;
+
+        // iterate all characters in artifact ID
+        for (int i = 0; i < artifactId.length(); i++) {
+            // get character at current index position
+            char thisChar = artifactId.charAt(i);
+
+            // skip dashes and dots...
+            if (thisChar == '-' || thisChar == '.') {
+                // ... but remember to capitalize next character
+                capitalizeNext = true;
+            } else if (capitalizeNext) {
+                // otherwise append uppercase value of character...
+                output.append(String.valueOf(thisChar).toUpperCase());
+                capitalizeNext = false;
+            } else {
+                // or leave character "as it is"
+                output.append(thisChar);
+            }
+        }
+
+        return output.toString();
+    }
+
+    /**
+     * Determine parameter value for an optional parameter.
+     *
+     * @param description   description of the parameter content (for logging)
+     * @param currentValue  initial value (is preserved when set)
+     * @param valueSupplier method or lambda to determine a default value
+     * @return the final parameter value
+     */
+    String setUpParameterValue(String description, String currentValue, Supplier<String> valueSupplier) {
+        // optional parameter may be empty
+        if (currentValue == null || currentValue.isEmpty()) {
+            // use value supplier to compute new value
+            String suppliedValue = valueSupplier.get();
+
+            // inform user about the choice of package name
+            getLog().info(description + " is not defined, using: " + suppliedValue);
+
+            // return computed value
+            return suppliedValue;
+        }
+
+        return currentValue;
+    }
+
+    /**
+     * Write the service manifest that binds the generated source file to the ArtifactVersionService.
+     *
+     * @param subDirectory subdirectory from META-INF
+     * @param fileName     the service file name
+     * @param fileContent  content for the service file
+     * @throws MojoFailureException in case the output file can not be written to META-INF directory
+     */
+    void writeServiceManifest(String subDirectory, String fileName, String fileContent) throws MojoFailureException {
+        // compile META-INF directory name
+        File directory = new File(project.getBuild().getOutputDirectory(), "META-INF");
+
+        // append "services" directory
+        directory = new File(directory, subDirectory);
+
+        // create target directory (if it does not exist)
+        makeDirectories(directory, "META-INF/" + subDirectory);
+
+        // file name is always the same
+        long start = System.nanoTime();
+        FlightRecorderEvents.Event event = FlightRecorderEvents.begin(FlightRecorderEvents.FILE_WRITE);
+        File serviceFile = new File(directory, fileName);
+        recordGeneratedFile(serviceFile);
+
+        // simply print the generated class name into the generated file (the service loader expects UTF-8), always
+        // with a line feed, so that the file does not depend on the operating system of the build
+        byte[] content = encode(fileContent + '\n');
+
+        // leave existing file (and its modification time) alone, if its content would not change
+        if (isFileUpToDate(serviceFile, content)) {
+            filesSkipped++;
+            recordFile(GenerationMetrics.MANIFESTS, serviceFile, content.length, false, start, event);
+            return;
+        }
+
+        // create output file
+        try (OutputStream outputStream = createServiceFileOutputStream(serviceFile)) {
+            outputStream.write(content);
+        } catch (IllegalArgumentException | UnsupportedOperationException | SecurityException | IOException e) {
+            throw new MojoFailureException("Unable to create new service loader definition file: " + serviceFile);
+        }
+        filesWritten++;
+        refreshFile(serviceFile);
+        recordFile(GenerationMetrics.MANIFESTS, serviceFile, content.length, true, start, event);
+    }
+
+    /**
+     * Get an object shared by all executions of a build session (e.g. a cache), creating it on first access. The
+     * object is stored in the repository session data under the name of its type, so it is shared by all modules of a
+     * reactor (also in parallel builds), but never outlives a build, not even in long-living build daemons.
+     *
+     * @param session the maven session (may be null, e.g. in tests)
+     * @param type    type of the object
+     * @param factory creates a new object
+     * @param <T>     type of the object
+     * @return the session's object or a new object, if there is no session
+     */
+    static <T> T getSessionObject(MavenSession session, Class<T> type, Supplier<T> factory) {
+        RepositorySystemSession repositorySession = session == null ? null : session.getRepositorySession();
+        if (repositorySession == null) {
+            return factory.get();
+        }
+        SessionData data = repositorySession.getData();
+        String key = type.getName();
+        Object object = data.get(key);
+        if (object == null) {
+            // only the first of several concurrent modules succeeds in setting the value
+            data.set(key, null, factory.get());
+            object = data.get(key);
+        }
+        return type.cast(object);
+    }
+
+    /**
+     * Encode the content of a generated text file. Generated files are always encoded in UTF-8, independent of the
+     * platform default encoding.
+     *
+     * @param content the text content
+     * @return the encoded content
+     */
+    static byte[] encode(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write the service java class file.
+     *
+     * @param templateResourceFileName name of the template file
+     * @param templateValues           values to fill into template
+     * @param className                the class name to use
+     * @throws MojoFailureException in case an IOException occurred
+     */
+    void writeClassFile(String templateResourceFileName, Map<String, String> templateValues,
+                        String className) throws MojoFailureException {
+        // need to create path from package components, therefore we have to split the package string...
+        String[] packageComponents = packageName.split("\\.");
+
+        // ... starting with the target folder
+        File packageDir = targetFolder;
+
+        // ... iterate and append path components
+        for (String component : packageComponents) {
+            packageDir = new File(packageDir, component);
+        }
+
+        // and finally try to create resulting directory path
+        makeDirectories(packageDir, "service class package");
+
+        // concatenate class file name
+        writeSourceFile(packageDir, className + ".java", templateResourceFileName, templateValues);
+    }
+
+    /**
+     * Write a java source file rendered from a template, unless it already exists with the same content.
+     *
+     * @param packageDir               directory of the source file (has to exist)
+     * @param fileName                 name of the source file
+     * @param templateResourceFileName name of the template file
+     * @param templateValues           values to fill into template
+     * @throws MojoFailureException in case an IOException occurred
+     */
+    void writeSourceFile(File packageDir, String fileName, String templateResourceFileName,
+                         Map<String, String> templateValues) throws MojoFailureException {
+        // render the class file content to memory first, using the precompiled template
+        File file = new File(packageDir, fileName);
+        long start = System.nanoTime();
+        FlightRecorderEvents.Event event = FlightRecorderEvents.begin(FlightRecorderEvents.TEMPLATE_LOADING);
+        ServiceTemplate template = getServiceTemplate(templateResourceFileName);
+        event.commit(project, templateResourceFileName, 0);
+        recordStage(GenerationMetrics.TEMPLATES, start);
+        start = System.nanoTime();
+        event = FlightRecorderEvents.begin(FlightRecorderEvents.RENDERING);
+        byte[] content = encode(template.render(templateValues));
+        event.commit(project, file, content.length);
+        recordStage(GenerationMetrics.RENDERING, start);
+
+        // leave existing file (and its modification time) alone, if its content would not change
+        start = System.nanoTime();
+        event = FlightRecorderEvents.begin(FlightRecorderEvents.FILE_WRITE);
+        recordGeneratedFile(file);
+        if (isFileUpToDate(file, content) && checkFileExistsCaseSensitive(file, fileName)) {
+            filesSkipped++;
+            recordFile(GenerationMetrics.FILES, file, content.length, false, start, event);
+            return;
+        }
+
+        // open java source file output stream for generated service file
+        try (OutputStream outputStream = createClassFileOutputStream(packageDir, fileName)) {
+            // write resulting java source code to output file
+            outputStream.write(content);
+        } catch (IOException e) {
+            throw new MojoFailureException("Unable to write generated class file: " + file, e);
+        }
+        filesWritten++;
+        refreshFile(file);
+        recordFile(GenerationMetrics.FILES, file, content.length, true, start, event);
+    }
+
+    /**
+     * Get the precompiled template for a template resource. Templates are parsed only once and shared by all
+     * executions using the same plugin class loader.
+     *
+     * @param templateResourceFileName name of the template file
+     * @return the precompiled template
+     * @throws MojoFailureException in case the template resource can not be read
+     */
+    ServiceTemplate getServiceTemplate(String templateResourceFileName) throws MojoFailureException {
+        ServiceTemplate template = ServiceTemplate.getCached(templateResourceFileName);
+        if (template == null) {
+            template = ServiceTemplate.cache(templateResourceFileName,
+                    ServiceTemplate.parse(loadServiceTemplate(templateResourceFileName)));
+        }
+        return template;
+    }
+
+    /**
+     * Load the text of a template resource.
+     *
+     * @param templateResourceFileName name of the template file
+     * @return the template text
+     * @throws MojoFailureException in case the template resource can not be read
+     */
+    String loadServiceTemplate(String templateResourceFileName) throws MojoFailureException {
+        // open template file input stream
+        try (InputStream inStream = createServiceTemplateResourceStream(templateResourceFileName)) {
+            // input stream should always be available from resource file
+            if (inStream == null) {
+                throw new MojoFailureException("Failed to read service template from plugin resources");
+            }
+
+            // create reader object for template file and read its content
+            try (Reader reader = new InputStreamReader(inStream, StandardCharsets.UTF_8)) {
+                return readTemplateFile(reader);
+            }
+        } catch (IOException e) {
+            throw new MojoFailureException("Unable to read template file from plugin resources", e);
+        }
+    }
+
+    /**
+     * Read service java class template file from resources.
+     *
+     * @param reader the file reader instance
+     * @return a string with the template file content
+     * @throws IOException in case reading the file failed
+     */
+    String readTemplateFile(Reader reader) throws IOException {
+        // the buffer size to use
+        int bufferSize = 1024;
+
+        // create an empty buffer
+        char[] buffer = new char[bufferSize];
+
+        // create new string builder instance
+        StringBuilder out = new StringBuilder();
+
+        // read file content in buffer sized chunks
+        for (int numRead; (numRead = reader.read(buffer, 0, buffer.length)) > 0; ) {
+            // and append the buffer content to string builder
+            out.append(buffer, 0, numRead);
+        }
+
+        // return the template file content
+        return out.toString();
+    }
+
+    /**
+     * Check whether a file already exists with exactly the content that would otherwise be written to it. Used to
+     * avoid touching unchanged generated files, which would trigger recompilation of the whole module.
+     *
+     * @param file     the file to check
+     * @param expected the content that would be written
+     * @return whether the file exists and its content is identical
+     */
+    boolean isFileUpToDate(File file, byte[] expected) {
+        try {
+            // compare length first to avoid reading files that obviously differ
+            return file.isFile() && file.length() == expected.length && Arrays.equals(
+                    Files.readAllBytes(file.toPath()), expected);
+        } catch (InvalidPathException | IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Write a binary resource file to the output directory, unless it already exists with the same content.
+     *
+     * @param resourceName resource path relative to output directory
+     * @param content      binary file content
+     * @throws MojoFailureException in case the file can not be written
+     */
+    void writeResourceFile(String resourceName, byte[] content) throws MojoFailureException {
+        File file = new File(project.getBuild().getOutputDirectory(), resourceName);
+
+        recordGeneratedFile(file);
+
+        // create target directory (if it does not exist)
+        makeDirectories(file.getParentFile(), "resource");
+
+        // leave existing file (and its modification time) alone, if its content would not change
+        long start = System.nanoTime();
+        FlightRecorderEvents.Event event = FlightRecorderEvents.begin(FlightRecorderEvents.FILE_WRITE);
+        if (isFileUpToDate(file, content)) {
+            filesSkipped++;
+            recordFile(GenerationMetrics.FILES, file, content.length, false, start, event);
+            return;
+        }
+
+        try (OutputStream outputStream = createServiceFileOutputStream(file)) {
+            outputStream.write(content);
+        } catch (IOException e) {
+            throw new MojoFailureException("Unable to write resource file: " + file, e);
+        }
+        filesWritten++;
+        refreshFile(file);
+        recordFile(GenerationMetrics.FILES, file, content.length, true, start, event);
+    }
+
+    /**
+     * Check whether directory already exists, otherwise try to create it.
+     *
+     * @param directory   directory to be created
+     * @param description description of directory purpose
+     */
+    void makeDirectories(File directory, String description) throws MojoFailureException {
+        long start = System.nanoTime();
+        // mkdirs() also fails if a concurrent execution has just created the directory
+        if (!(directory.isDirectory() || directory.mkdirs() || directory.isDirectory())) {
+            throw new MojoFailureException("Unable to create " + description + " directory: " + directory.getPath());
+        }
+        recordStage(GenerationMetrics.DIRECTORIES, start);
+    }
+
+    /**
+     * Create output stream object from service file name. Extracted to achieve code coverage for catch block in
+     * {@link #writeServiceManifest(String, String, String)} method. The file is replaced atomically when the stream is
+     * closed.
+     *
+     * @param serviceFile the service file name
+     * @return new output stream object
+     * @throws FileNotFoundException in case the file can not be created
+     */
+    protected OutputStream createServiceFileOutputStream(File serviceFile) throws IOException {
+        try {
+            return AtomicFileOutputStream.open(serviceFile.toPath());
+        } catch (InvalidPathException exc) {
+            throw new IOException("Invalid path: " + serviceFile, exc);
+        }
+    }
+
+    /**
+     * Create service class output stream. The file is replaced atomically when the stream is closed.
+     *
+     * @param packageDir the package directory
+     * @param fileName   file name to use
+     * @return a new output stream object
+     * @throws FileNotFoundException in case the file can not be created
+     */
+    protected OutputStream createClassFileOutputStream(File packageDir, String fileName) throws IOException {
+        // create file object
+        File file = new File(packageDir, fileName);
+
+        // check, whether file exists under a name that is similar, but not equal to file name (case-insensitive)
+        cleanupExistingFile(file, fileName);
+
+        return AtomicFileOutputStream.open(file.toPath());
+    }
+
+    /**
+     * Delete file that exists under a name that is similar, but not equal to file name (case-insensitive).
+     *
+     * @param file     file including path
+     * @param fileName file name to check
+     */
+    protected void cleanupExistingFile(File file, String fileName) {
+        if (file.exists() && !checkFileExistsCaseSensitive(file, fileName)) {
+            try {
+                Files.delete(file.toPath());
+            } catch (InvalidPathException | IOException e) {
+                getLog().warn(
+                        "Unable to remove file with different name before generating new artifact version service file. Try cleaning project first.");
+            }
+        }
+    }
+
+    /**
+     * Check if a file exists with another combination of uppercase and lowercase characters. May be important when
+     * generating a new service class on a Windows or macOS system. The directory of the file is listed only once per
+     * execution (before any file is written to it), instead of canonicalizing every single file.
+     *
+     * @param file     the file to check
+     * @param fileName the expected file name to compare to
+     * @return whether a file with different spelling exists
+     */
+    protected boolean checkFileExistsCaseSensitive(File file, String fileName) {
+        return directoryListings.computeIfAbsent(file.getAbsoluteFile().getParentFile(), this::listDirectory)
+                .contains(fileName);
+    }
+
+    /**
+     * Get the names of all files in a directory.
+     *
+     * @param directory the directory
+     * @return the file names, empty if the directory can not be listed
+     */
+    Set<String> listDirectory(File directory) {
+        String[] names = directory.list();
+        return names == null ? Collections.emptySet() : new HashSet<>(Arrays.asList(names));
+    }
+
+    /**
+     * Remember a file generated by this execution, so it is not considered stale by the next one.
+     *
+     * @param file the generated file
+     */
+    void recordGeneratedFile(File file) {
+        generatedFiles.add(file.getAbsoluteFile().toPath().normalize());
+    }
+
+    /**
+     * Get the state file listing the files generated by this execution. Every goal and execution has a state file of
+     * its own (in the build directory, like the state of the maven-compiler-plugin).
+     *
+     * @param buildDirectory the build directory
+     * @return the state file
+     */
+    File getStateFile(File buildDirectory) {
+        return new File(buildDirectory, "maven-status/artifact-version-maven-plugin/" + getExecutionKey() + "/"
+                + STATE_FILE_NAME);
+    }
+
+    /**
+     * Get a key identifying goal and execution.
+     *
+     * @return goal and execution ID, separated by a slash
+     */
+    String getExecutionKey() {
+        String goal = mojoExecution == null ? getClass().getSimpleName() : mojoExecution.getGoal();
+        String executionId = mojoExecution == null ? "default" : mojoExecution.getExecutionId();
+        return goal + "/" + executionId;
+    }
+
+    /**
+     * Get the absolute build directory of the project.
+     *
+     * @return the build directory or null, if the project does not have one
+     */
+    Path getBuildDirectory() {
+        String directory = project.getBuild().getDirectory();
+        return directory == null ? null : new File(directory).getAbsoluteFile().toPath().normalize();
+    }
+
+    /**
+     * Let the build context know that a file has been written or deleted (so the IDE can refresh it).
+     *
+     * @param file the changed file
+     */
+    void refreshFile(File file) {
+        buildContext.refresh(file);
+    }
+
+    /**
+     * Add the duration of a stage to the metrics of this execution.
+     *
+     * @param stage the stage
+     * @param start start time of the stage ({@link System#nanoTime()})
+     */
+    void recordStage(String stage, long start) {
+        metrics.addStage(stage, System.nanoTime() - start);
+    }
+
+    /**
+     * Add a generated file to the metrics of this execution and commit its flight recorder event.
+     *
+     * @param stage   the stage
+     * @param file    the generated file
+     * @param bytes   size of the file content
+     * @param written whether the file has been written (or left unchanged)
+     * @param start   start time of comparing and writing the file ({@link System#nanoTime()})
+     * @param event   the file write event
+     */
+    void recordFile(String stage, File file, int bytes, boolean written, long start,
+                    FlightRecorderEvents.Event event) {
+        metrics.addFile(stage, file.getAbsoluteFile().toPath().normalize(), bytes, written, System.nanoTime() - start);
+        event.commit(project, file, bytes, written);
+    }
+
+    /**
+     * Complete the metrics of this execution and write its report (if enabled). The report is also added to the
+     * reactor report, which is written as soon as all executions of the build are complete.
+     *
+     * @param start start time of the execution ({@link System#nanoTime()})
+     * @throws MojoFailureException in case a report can not be written
+     */
+    void writeReport(long start) throws MojoFailureException {
+        if (writeExecutionReport(start)) {
+            try {
+                Path reportFile = ReactorReport.forSession(session).add(metrics, project);
+                if (reportFile != null) {
+                    getLog().info("Reactor report written: " + reportFile);
+                }
+            } catch (IOException e) {
+                throw new MojoFailureException("Unable to write reactor report", e);
+            }
+        }
+    }
+
+    /**
+     * Complete the metrics of this execution and write its report next to the state file, if enabled.
+     *
+     * @param start start time of the execution ({@link System#nanoTime()})
+     * @return whether reports are enabled
+     * @throws MojoFailureException in case the report can not be written
+     */
+    boolean writeExecutionReport(long start) throws MojoFailureException {
+        metrics.finish(ParentChainCache.getCoordinates(project), getExecutionKey(), System.nanoTime() - start);
+        if (!report) {
+            return false;
+        }
+        Path buildDirectory = getBuildDirectory();
+        if (buildDirectory == null) {
+            return true;
+        }
+
+        File reportFile = new File(getStateFile(buildDirectory.toFile()).getParentFile(), REPORT_FILE_NAME);
+        makeDirectories(reportFile.getParentFile(), "report");
+        try (OutputStream outputStream = createServiceFileOutputStream(reportFile)) {
+            outputStream.write(encode(metrics.toJson(buildDirectory) + "\n"));
+        } catch (IOException e) {
+            throw new MojoFailureException("Unable to write report file: " + reportFile, e);
+        }
+        return true;
+    }
+
+    /**
+     * Delete files that have been generated by the previous execution, but not by this one (e.g. after the package
+     * or service class name changed), and record the files of this execution in the state file. Saves a full
+     * {@code mvn clean} to get rid of stale generated classes.
+     *
+     * @throws MojoFailureException in case the state file can not be written
+     */
+    void removeStaleFiles() throws MojoFailureException {
+        // nothing to keep track of without a build directory
+        Path buildDirectory = getBuildDirectory();
+        if (buildDirectory == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        File stateFile = getStateFile(buildDirectory.toFile());
+
+        // directories may have changed since they were listed
+        directoryListings.clear();
+        for (Path stale : readStateFile(stateFile, buildDirectory)) {
+            // on case-insensitive file systems, a stale file may be the same as a generated one
+            if (!generatedFiles.contains(stale)
+                    && checkFileExistsCaseSensitive(stale.toFile(), stale.getFileName().toString())) {
+                try {
+                    Files.delete(stale);
+                    getLog().info("Removed stale generated file: " + stale);
+                    refreshFile(stale.toFile());
+                } catch (IOException e) {
+                    getLog().warn("Unable to remove stale generated file: " + stale);
+                }
+            }
+        }
+
+        // paths are stored relative to the build directory, so moving the project does not affect other copies
+        StringBuilder content = new StringBuilder();
+        for (Path file : generatedFiles) {
+            content.append(relativize(buildDirectory, file)).append('\n');
+        }
+        byte[] bytes = encode(content.toString());
+        if (!isFileUpToDate(stateFile, bytes)) {
+            makeDirectories(stateFile.getParentFile(), "state");
+            try (OutputStream outputStream = createServiceFileOutputStream(stateFile)) {
+                outputStream.write(bytes);
+            } catch (IOException e) {
+                throw new MojoFailureException("Unable to write state file: " + stateFile, e);
+            }
+        }
+        recordStage(GenerationMetrics.STALE_FILES, start);
+    }
+
+    /**
+     * Read the files generated by the previous execution from its state file.
+     *
+     * @param stateFile      the state file
+     * @param buildDirectory the build directory the paths are relative to
+     * @return the generated files, empty if there is no (readable) state file
+     */
+    List<Path> readStateFile(File stateFile, Path buildDirectory) {
+        List<Path> files = new ArrayList<>();
+        if (stateFile.isFile()) {
+            try {
+                for (String line : Files.readAllLines(stateFile.toPath(), StandardCharsets.UTF_8)) {
+                    if (!line.isEmpty()) {
+                        files.add(buildDirectory.resolve(line).normalize());
+                    }
+                }
+            } catch (InvalidPathException | IOException e) {
+                getLog().warn("Unable to read state file, stale generated files are not removed: " + stateFile);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Get the path of a generated file relative to the build directory, if possible.
+     *
+     * @param buildDirectory the build directory
+     * @param file           the generated file
+     * @return relative path, or absolute path if the file is on a different root
+     */
+    static String relativize(Path buildDirectory, Path file) {
+        try {
+            return buildDirectory.relativize(file).toString();
+        } catch (IllegalArgumentException e) {
+            return file.toString();
+        }
+    }
+
+    /**
+     * Get service class template resource as input stream.
+     *
+     * @param templateResourceFileName name of the template file
+     * @return the input stream
+     */
+    protected InputStream createServiceTemplateResourceStream(String templateResourceFileName) {
+        return getClass().getResourceAsStream(templateResourceFileName);
+    }
+}
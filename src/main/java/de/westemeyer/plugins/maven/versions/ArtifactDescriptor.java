@@ -0,0 +1,120 @@
+package de.westemeyer.plugins.maven.versions;
+
+import java.util.Objects;
+
+/**
+ * Build time representation of an artifact's version information, as written to generated index resources. Parent
+ * artifacts only carry coordinates (group ID, artifact ID and version).
+ */
+@SuppressWarnings("checkstyle:VisibilityModifier")
+final class ArtifactDescriptor {
+    /**
+     * The group ID.
+     */
+    final String groupId;
+
+    /**
+     * The artifact ID.
+     */
+    final String artifactId;
+
+    /**
+     * The version.
+     */
+    final String version;
+
+    /**
+     * Build timestamp in milliseconds since epoch.
+     */
+    final long timestamp;
+
+    /**
+     * Artifact name (may be null).
+     */
+    final String name;
+
+    /**
+     * Artifact description (may be null).
+     */
+    final String description;
+
+    /**
+     * Artifact URL (may be null).
+     */
+    final String url;
+
+    /**
+     * Parent artifact (may be null).
+     */
+    final ArtifactDescriptor parent;
+
+    /**
+     * Create a new artifact descriptor.
+     *
+     * @param groupId     the group ID
+     * @param artifactId  the artifact ID
+     * @param version     the version
+     * @param timestamp   build timestamp in milliseconds since epoch
+     * @param name        artifact name
+     * @param description artifact description
+     * @param url         artifact URL
+     * @param parent      parent artifact
+     */
+    ArtifactDescriptor(String groupId, String artifactId, String version, long timestamp, String name,
+                       String description, String url, ArtifactDescriptor parent) {
+        this.groupId = groupId;
+        this.artifactId = artifactId;
+        this.version = version;
+        this.timestamp = timestamp;
+        this.name = name;
+        this.description = description;
+        this.url = url;
+        this.parent = parent;
+    }
+
+    /**
+     * Create a new parent artifact descriptor (coordinates only).
+     *
+     * @param groupId    the group ID
+     * @param artifactId the artifact ID
+     * @param version    the version
+     * @param parent     parent artifact
+     */
+    ArtifactDescriptor(String groupId, String artifactId, String version, ArtifactDescriptor parent) {
+        this(groupId, artifactId, version, 0L, null, null, null, parent);
+    }
+
+    /**
+     * Get the artifact's coordinates as string.
+     *
+     * @return group ID, artifact ID and version separated by colons
+     */
+    String getCoordinates() {
+        return groupId + ":" + artifactId + ":" + version;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || getClass() != other.getClass()) {
+            return false;
+        }
+        ArtifactDescriptor that = (ArtifactDescriptor) other;
+        return timestamp == that.timestamp && Objects.equals(groupId, that.groupId) && Objects.equals(artifactId,
+                that.artifactId) && Objects.equals(version, that.version) && Objects.equals(name, that.name)
+                && Objects.equals(description, that.description) && Objects.equals(url, that.url) && Objects.equals(
+                parent, that.parent);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(groupId, artifactId, version, timestamp, name, description, url, parent);
+    }
+
+    @Override
+    public String toString() {
+        return getCoordinates();
+    }
+}
@@ -0,0 +1,327 @@
+package de.westemeyer.plugins.maven.versions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary index of artifact version information, written to {@value #RESOURCE_NAME} instead of a generated
+ * service class. The index can be read with a single resource stream (or memory mapped), no class loading involved.
+ * <p>
+ * All numbers are big endian. The layout is:
+ * <pre>
+ * header       int magic ("AVIX"), short format version, short reserved,
+ *              int string count, int artifact count, int parent count
+ * string table int[string count + 1] offsets into string data (fixed width), followed by UTF-8 string data
+ * artifacts    per artifact: int group ID, int artifact ID, int version, long timestamp, int name,
+ *              int description, int url, int parent (36 bytes, fixed width)
+ * parents      per parent: int group ID, int artifact ID, int version, int parent (16 bytes, fixed width)
+ * </pre>
+ * Strings are referenced by their index in the string table, parents by their index in the parent table. A value of
+ * -1 stands for null. Strings and parents are deduplicated, so siblings share their parent chain.
+ */
+final class ArtifactIndex {
+    /**
+     * Resource name of the index file.
+     */
+    static final String RESOURCE_NAME = "META-INF/artifact-versions.idx";
+
+    /**
+     * Magic number at the start of the file ("AVIX").
+     */
+    static final int MAGIC = 0x41564958;
+
+    /**
+     * Version of the file format.
+     */
+    static final short FORMAT_VERSION = 1;
+
+    /**
+     * Size of the header in bytes.
+     */
+    static final int HEADER_SIZE = 20;
+
+    /**
+     * Size of an artifact record in bytes.
+     */
+    static final int ARTIFACT_RECORD_SIZE = 36;
+
+    /**
+     * Size of a parent record in bytes.
+     */
+    static final int PARENT_RECORD_SIZE = 16;
+
+    /**
+     * Reference value representing null.
+     */
+    private static final int NONE = -1;
+
+    /**
+     * Utility class constructor.
+     */
+    private ArtifactIndex() {
+    }
+
+    /**
+     * Write artifacts to a new binary index.
+     *
+     * @param artifacts the artifacts to write (in this order)
+     * @return binary index content
+     */
+    static byte[] write(List<ArtifactDescriptor> artifacts) {
+        StringTable strings = new StringTable();
+        Map<ArtifactDescriptor, Integer> parentIndices = new HashMap<>();
+        List<int[]> parents = new ArrayList<>();
+        List<int[]> records = new ArrayList<>();
+
+        for (ArtifactDescriptor artifact : artifacts) {
+            records.add(new int[]{strings.add(artifact.groupId), strings.add(artifact.artifactId),
+                    strings.add(artifact.version), strings.add(artifact.name), strings.add(artifact.description),
+                    strings.add(artifact.url), addParent(artifact.parent, strings, parentIndices, parents)});
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+                HEADER_SIZE + strings.size() * 32 + records.size() * ARTIFACT_RECORD_SIZE
+                        + parents.size() * PARENT_RECORD_SIZE);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeShort(FORMAT_VERSION);
+            out.writeShort(0);
+            out.writeInt(strings.size());
+            out.writeInt(records.size());
+            out.writeInt(parents.size());
+
+            // string table: fixed width offsets followed by string data
+            List<byte[]> encoded = strings.encode();
+            int offset = 0;
+            out.writeInt(offset);
+            for (byte[] string : encoded) {
+                offset += string.length;
+                out.writeInt(offset);
+            }
+            for (byte[] string : encoded) {
+                out.write(string);
+            }
+
+            // artifact records
+            for (int i = 0; i < records.size(); i++) {
+                int[] record = records.get(i);
+                out.writeInt(record[0]);
+                out.writeInt(record[1]);
+                out.writeInt(record[2]);
+                out.writeLong(artifacts.get(i).timestamp);
+                out.writeInt(record[3]);
+                out.writeInt(record[4]);
+                out.writeInt(record[5]);
+                out.writeInt(record[6]);
+            }
+
+            // parent records
+            for (int[] parent : parents) {
+                for (int value : parent) {
+                    out.writeInt(value);
+                }
+            }
+        } catch (IOException e) {
+            // can not happen when writing to memory
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Add a parent chain to the parent table (parents first, so references always point to lower indices).
+     *
+     * @param parent        the parent to add
+     * @param strings       string table
+     * @param parentIndices indices of parents already added
+     * @param parents       parent table
+     * @return index of the parent in the parent table
+     */
+    private static int addParent(ArtifactDescriptor parent, StringTable strings,
+                                 Map<ArtifactDescriptor, Integer> parentIndices, List<int[]> parents) {
+        if (parent == null) {
+            return NONE;
+        }
+        Integer index = parentIndices.get(parent);
+        if (index == null) {
+            int grandParent = addParent(parent.parent, strings, parentIndices, parents);
+            parents.add(new int[]{strings.add(parent.groupId), strings.add(parent.artifactId),
+                    strings.add(parent.version), grandParent});
+            index = parents.size() - 1;
+            parentIndices.put(parent, index);
+        }
+        return index;
+    }
+
+    /**
+     * Read all artifacts from a binary index stream.
+     *
+     * @param inputStream index input stream (is not closed)
+     * @return list of artifacts
+     * @throws IOException in case the stream can not be read or is not a valid index
+     */
+    static List<ArtifactDescriptor> read(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int numRead; (numRead = inputStream.read(buffer)) > 0; ) {
+            bytes.write(buffer, 0, numRead);
+        }
+        return read(ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    /**
+     * Read all artifacts from a binary index buffer (e.g. a memory mapped file).
+     *
+     * @param buffer index buffer
+     * @return list of artifacts
+     * @throws IOException in case the buffer does not contain a valid index
+     */
+    static List<ArtifactDescriptor> read(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.getInt(0) != MAGIC || buffer.getShort(4) != FORMAT_VERSION) {
+                throw new IOException("Not an artifact version index (format version " + FORMAT_VERSION + ")");
+            }
+            int stringCount = buffer.getInt(8);
+            int artifactCount = buffer.getInt(12);
+            int parentCount = buffer.getInt(16);
+
+            // string table
+            checkTable(buffer, "string", stringCount, HEADER_SIZE + (stringCount + 1L) * 4);
+            int stringData = HEADER_SIZE + (stringCount + 1) * 4;
+            String[] strings = new String[stringCount];
+            for (int i = 0; i < stringCount; i++) {
+                int start = buffer.getInt(HEADER_SIZE + i * 4);
+                int end = buffer.getInt(HEADER_SIZE + (i + 1) * 4);
+                // cast to buffer for binary compatibility with Java 8 runtimes
+                Buffer string = buffer.duplicate();
+                string.limit(stringData + end);
+                string.position(stringData + start);
+                strings[i] = StandardCharsets.UTF_8.decode((ByteBuffer) string).toString();
+            }
+            long artifactTable = stringData + (long) buffer.getInt(HEADER_SIZE + stringCount * 4);
+            long parentTable = artifactTable + (long) artifactCount * ARTIFACT_RECORD_SIZE;
+            checkTable(buffer, "artifact", artifactCount, parentTable);
+            checkTable(buffer, "parent", parentCount, parentTable + (long) parentCount * PARENT_RECORD_SIZE);
+
+            // parents reference lower indices only
+            ArtifactDescriptor[] parents = new ArtifactDescriptor[parentCount];
+            for (int i = 0; i < parentCount; i++) {
+                int position = (int) parentTable + i * PARENT_RECORD_SIZE;
+                int parent = buffer.getInt(position + 12);
+                if (parent >= i) {
+                    throw new IOException("Corrupt artifact version index: parent " + i + " references parent "
+                            + parent);
+                }
+                parents[i] = new ArtifactDescriptor(string(strings, buffer.getInt(position)),
+                        string(strings, buffer.getInt(position + 4)), string(strings, buffer.getInt(position + 8)),
+                        parent == NONE ? null : parents[parent]);
+            }
+
+            List<ArtifactDescriptor> artifacts = new ArrayList<>(artifactCount);
+            for (int i = 0; i < artifactCount; i++) {
+                int position = (int) artifactTable + i * ARTIFACT_RECORD_SIZE;
+                int parent = buffer.getInt(position + 32);
+                artifacts.add(new ArtifactDescriptor(string(strings, buffer.getInt(position)),
+                        string(strings, buffer.getInt(position + 4)), string(strings, buffer.getInt(position + 8)),
+                        buffer.getLong(position + 12), string(strings, buffer.getInt(position + 20)),
+                        string(strings, buffer.getInt(position + 24)), string(strings, buffer.getInt(position + 28)),
+                        parent == NONE ? null : parents[parent]));
+            }
+            return artifacts;
+        } catch (IndexOutOfBoundsException | BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Corrupt artifact version index", e);
+        }
+    }
+
+    /**
+     * Check that the entry count of a table is not negative and that the table fits into the buffer.
+     *
+     * @param buffer index buffer
+     * @param table  name of the table
+     * @param count  number of entries
+     * @param end    end position of the table
+     * @throws IOException in case the count is invalid
+     */
+    private static void checkTable(ByteBuffer buffer, String table, int count, long end) throws IOException {
+        if (count < 0 || end > buffer.limit()) {
+            throw new IOException("Corrupt artifact version index: invalid " + table + " count " + count);
+        }
+    }
+
+    /**
+     * Resolve a string reference.
+     *
+     * @param strings string table
+     * @param index   string index or -1
+     * @return the string or null
+     */
+    private static String string(String[] strings, int index) {
+        return index == NONE ? null : strings[index];
+    }
+
+    /**
+     * Deduplicating string table.
+     */
+    private static final class StringTable {
+        /**
+         * Indices of strings in insertion order.
+         */
+        private final Map<String, Integer> indices = new HashMap<>();
+
+        /**
+         * Strings in insertion order.
+         */
+        private final List<String> strings = new ArrayList<>();
+
+        /**
+         * Add a string to the table, unless it already exists.
+         *
+         * @param string the string (may be null)
+         * @return index of the string or -1 for null
+         */
+        int add(String string) {
+            if (string == null) {
+                return NONE;
+            }
+            Integer index = indices.get(string);
+            if (index == null) {
+                index = strings.size();
+                strings.add(string);
+                indices.put(string, index);
+            }
+            return index;
+        }
+
+        /**
+         * Get number of strings in table.
+         *
+         * @return number of strings
+         */
+        int size() {
+            return strings.size();
+        }
+
+        /**
+         * Encode all strings using UTF-8.
+         *
+         * @return list of encoded strings
+         */
+        List<byte[]> encode() {
+            List<byte[]> encoded = new ArrayList<>(strings.size());
+            for (String string : strings) {
+                encoded.add(string.getBytes(StandardCharsets.UTF_8));
+            }
+            return encoded;
+        }
+    }
+}
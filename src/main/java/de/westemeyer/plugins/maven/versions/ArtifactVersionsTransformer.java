@@ -0,0 +1,169 @@
+package de.westemeyer.plugins.maven.versions;
+
+import org.apache.maven.plugins.shade.relocation.Relocator;
+import org.apache.maven.plugins.shade.resource.ReproducibleResourceTransformer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Resource transformer for the maven-shade-plugin, merging the artifact version resources of all modules packaged into
+ * an uber jar. Service loader definitions of version services and collectors as well as Spring Boot autoconfiguration
+ * manifests are merged into single, sorted files without duplicates (and relocated along with the classes), binary
+ * artifact indexes are merged into one index. Optionally, a collector class providing all version services is
+ * generated, so runtime collection does not need a service loader lookup per module.
+ */
+public class ArtifactVersionsTransformer implements ReproducibleResourceTransformer {
+    /**
+     * Spring Boot autoconfiguration manifest.
+     */
+    static final String AUTO_CONFIGURATION_IMPORTS =
+            "META-INF/spring/org.springframework.boot.autoconfigure.AutoConfiguration.imports";
+
+    /**
+     * Service loader definition file of artifact version collectors.
+     */
+    static final String COLLECTOR_DEFINITION = "META-INF/services/" + GenerateRegistryMojo.ARTIFACT_VERSION_COLLECTOR;
+
+    /**
+     * Text resources merged line by line.
+     */
+    private static final List<String> DEFINITIONS = Arrays.asList(GenerateRegistryMojo.SERVICE_DEFINITION,
+            COLLECTOR_DEFINITION, AUTO_CONFIGURATION_IMPORTS);
+
+    /**
+     * Fully qualified name of the collector class to generate (optional), configured in the shade plugin
+     * configuration.
+     */
+    private String aggregateClass;
+
+    /**
+     * Sorted class names of all merged text resources, by resource name.
+     */
+    private final Map<String, Set<String>> definitions = new TreeMap<>();
+
+    /**
+     * Artifacts of all merged indexes, by coordinates.
+     */
+    private final Map<String, ArtifactDescriptor> artifacts = new TreeMap<>();
+
+    /**
+     * Latest modification time of all merged resources.
+     */
+    private long time;
+
+    /**
+     * Set the fully qualified name of the collector class to generate.
+     *
+     * @param aggregateClass fully qualified class name (null to not generate a collector class)
+     */
+    public void setAggregateClass(String aggregateClass) {
+        this.aggregateClass = aggregateClass;
+    }
+
+    @Override
+    public boolean canTransformResource(String resource) {
+        return DEFINITIONS.contains(resource) || ArtifactIndex.RESOURCE_NAME.equals(resource);
+    }
+
+    @Override
+    public void processResource(String resource, InputStream is, List<Relocator> relocators) throws IOException {
+        processResource(resource, is, relocators, 0L);
+    }
+
+    @Override
+    public void processResource(String resource, InputStream is, List<Relocator> relocators, long resourceTime)
+            throws IOException {
+        time = Math.max(time, resourceTime);
+
+        // read the resource completely, parsing closes the stream it reads from
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int numRead; (numRead = is.read(buffer)) > 0; ) {
+            content.write(buffer, 0, numRead);
+        }
+
+        if (ArtifactIndex.RESOURCE_NAME.equals(resource)) {
+            // the first module packaged wins, like for class files
+            for (ArtifactDescriptor artifact : ArtifactIndex.read(new ByteArrayInputStream(content.toByteArray()))) {
+                artifacts.putIfAbsent(artifact.getCoordinates(), artifact);
+            }
+            return;
+        }
+        Set<String> classNames = definitions.computeIfAbsent(resource, key -> new TreeSet<>());
+        for (String className : GenerateRegistryMojo.parseServiceDefinition(
+                new ByteArrayInputStream(content.toByteArray()))) {
+            classNames.add(relocate(className, relocators));
+        }
+    }
+
+    /**
+     * Relocate a class name with the first relocator that applies.
+     *
+     * @param className  fully qualified class name
+     * @param relocators relocators of the shade plugin (may be null)
+     * @return the relocated class name
+     */
+    static String relocate(String className, List<Relocator> relocators) {
+        if (relocators != null) {
+            for (Relocator relocator : relocators) {
+                if (relocator.canRelocateClass(className)) {
+                    return relocator.relocateClass(className);
+                }
+            }
+        }
+        return className;
+    }
+
+    @Override
+    public boolean hasTransformedResource() {
+        return !definitions.isEmpty() || !artifacts.isEmpty();
+    }
+
+    @Override
+    public void modifyOutputStream(JarOutputStream os) throws IOException {
+        if (aggregateClass != null) {
+            Set<String> services = definitions.get(GenerateRegistryMojo.SERVICE_DEFINITION);
+            writeEntry(os, aggregateClass.replace('.', '/') + ".class", ServiceClassWriter.writeAggregateClass(
+                    aggregateClass, services == null ? new ArrayList<>() : new ArrayList<>(services)));
+            definitions.computeIfAbsent(COLLECTOR_DEFINITION, key -> new TreeSet<>()).add(aggregateClass);
+        }
+        for (Map.Entry<String, Set<String>> definition : definitions.entrySet()) {
+            StringBuilder content = new StringBuilder();
+            for (String className : definition.getValue()) {
+                content.append(className).append('\n');
+            }
+            writeEntry(os, definition.getKey(), AbstractArtifactVersionMojo.encode(content.toString()));
+        }
+        if (!artifacts.isEmpty()) {
+            writeEntry(os, ArtifactIndex.RESOURCE_NAME, ArtifactIndex.write(new ArrayList<>(artifacts.values())));
+        }
+    }
+
+    /**
+     * Add an entry to the uber jar.
+     *
+     * @param os      jar output stream
+     * @param name    entry name
+     * @param content entry content
+     * @throws IOException in case the entry can not be written
+     */
+    private void writeEntry(JarOutputStream os, String name, byte[] content) throws IOException {
+        JarEntry entry = new JarEntry(name);
+        entry.setTime(time);
+        os.putNextEntry(entry);
+        os.write(content);
+        os.closeEntry();
+    }
+}
@@ -0,0 +1,196 @@
+package de.westemeyer.plugins.maven.versions;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Output stream writing to a temporary file in the directory of the target file, which replaces the target file with
+ * an atomic move when the stream is closed. Other readers (e.g. parallel module builds) therefore either see the
+ * previous content of the target file or the complete new content, never a partially written file. If writing fails,
+ * the temporary file is deleted and the target file is left untouched. Temporary files left behind by a build that was
+ * killed while writing are deleted before the target file is written again, so they do not end up in packaged jar
+ * files.
+ */
+final class AtomicFileOutputStream extends FilterOutputStream {
+    /**
+     * File name extension of temporary files (not picked up by the java compiler or the service loader).
+     */
+    static final String TEMPORARY_FILE_EXTENSION = ".tmp";
+
+    /**
+     * Owner of the temporary files created by this instance of the plugin. Temporary files of other owners are
+     * leftovers of killed builds, temporary files of this owner may belong to concurrent writers of the same file.
+     */
+    static final String OWNER = Long.toHexString(ThreadLocalRandom.current().nextLong());
+
+    /**
+     * The file to be replaced.
+     */
+    private final Path target;
+
+    /**
+     * The temporary file written to.
+     */
+    private final Path temporary;
+
+    /**
+     * Whether writing to the temporary file failed.
+     */
+    private boolean failed;
+
+    /**
+     * Whether the stream has been closed.
+     */
+    private boolean closed;
+
+    /**
+     * Create a new stream.
+     *
+     * @param target    the file to be replaced
+     * @param temporary the temporary file written to
+     * @param out       output stream of the temporary file
+     */
+    private AtomicFileOutputStream(Path target, Path temporary, OutputStream out) {
+        super(out);
+        this.target = target;
+        this.temporary = temporary;
+    }
+
+    /**
+     * Open a stream replacing the given file when closed.
+     *
+     * @param target the file to be replaced
+     * @return new output stream
+     * @throws IOException in case the temporary file can not be created
+     */
+    static AtomicFileOutputStream open(Path target) throws IOException {
+        String prefix = "." + target.getFileName() + ".";
+        deleteLeftovers(target.toAbsolutePath().getParent(), prefix);
+
+        // the temporary file has to be on the same file system, the name must not clash with concurrent writers
+        Path temporary = target.resolveSibling(prefix + OWNER + "."
+                + Long.toHexString(ThreadLocalRandom.current().nextLong()) + TEMPORARY_FILE_EXTENSION);
+        return new AtomicFileOutputStream(target, temporary,
+                Files.newOutputStream(temporary, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE));
+    }
+
+    /**
+     * Delete temporary files of a target file that have been left behind by other owners.
+     *
+     * @param directory directory of the target file
+     * @param prefix    file name prefix of temporary files of the target file
+     * @throws IOException in case the directory can not be listed or a file can not be deleted
+     */
+    static void deleteLeftovers(Path directory, String prefix) throws IOException {
+        DirectoryStream.Filter<Path> filter = file -> isLeftover(file.getFileName().toString(), prefix);
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(directory, filter)) {
+            for (Path leftover : leftovers) {
+                Files.deleteIfExists(leftover);
+            }
+        }
+    }
+
+    /**
+     * Check whether a file name is the name of a temporary file of another owner, i.e. has the form
+     * {@code <prefix><owner>.<random>.tmp}.
+     *
+     * @param name   the file name
+     * @param prefix file name prefix of temporary files of the target file
+     * @return whether the file is a leftover of another owner
+     */
+    static boolean isLeftover(String name, String prefix) {
+        if (!name.startsWith(prefix) || !name.endsWith(TEMPORARY_FILE_EXTENSION)) {
+            return false;
+        }
+        String[] parts = name.substring(prefix.length(), name.length() - TEMPORARY_FILE_EXTENSION.length())
+                .split("\\.", -1);
+        return parts.length == 2 && isHex(parts[0]) && isHex(parts[1]) && !parts[0].equals(OWNER);
+    }
+
+    /**
+     * Check whether a string is a non-empty hexadecimal number.
+     *
+     * @param value the string
+     * @return whether the string is a hexadecimal number
+     */
+    private static boolean isHex(String value) {
+        for (char character : value.toCharArray()) {
+            if (Character.digit(character, 16) < 0) {
+                return false;
+            }
+        }
+        return !value.isEmpty();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        try {
+            out.write(b);
+        } catch (IOException e) {
+            failed = true;
+            throw e;
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        try {
+            out.write(b, off, len);
+        } catch (IOException e) {
+            failed = true;
+            throw e;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            failed = true;
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        boolean published = false;
+        try {
+            out.close();
+            if (!failed) {
+                publish();
+                published = true;
+            }
+        } finally {
+            if (!published) {
+                Files.deleteIfExists(temporary);
+            }
+        }
+    }
+
+    /**
+     * Replace the target file with the temporary file.
+     *
+     * @throws IOException in case the file can not be moved
+     */
+    private void publish() throws IOException {
+        try {
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
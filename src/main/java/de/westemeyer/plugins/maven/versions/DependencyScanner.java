@@ -0,0 +1,501 @@
+package de.westemeyer.plugins.maven.versions;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+/**
+ * Scanner for the metadata of dependency jar files: the classes listed in the artifact version service loader
+ * definition, generated Spring Boot version services, the presence of an artifact version index and the coordinates
+ * from all {@code META-INF/maven/<groupId>/<artifactId>/pom.properties} entries. Only the zip central directory and
+ * the matching entries are read, jars are scanned in parallel. Results are cached in a file keyed by path, size and
+ * modification time of every jar, so repeated builds do not open unchanged jars at all.
+ */
+final class DependencyScanner {
+    /**
+     * Name of the cache file (next to the state file of an execution).
+     */
+    static final String CACHE_FILE_NAME = "dependencies.cache";
+
+    /**
+     * First line of the cache file, identifying its format.
+     */
+    static final String CACHE_HEADER = "# artifact-version-maven-plugin dependency cache 3";
+
+    /**
+     * Prefix of pom.properties entries.
+     */
+    static final String POM_PROPERTIES_PREFIX = "META-INF/maven/";
+
+    /**
+     * Suffix of pom.properties entries.
+     */
+    static final String POM_PROPERTIES_SUFFIX = "/pom.properties";
+
+    /**
+     * Spring Boot autoconfiguration manifest, listing the generated autoconfiguration classes of Spring Boot services.
+     */
+    static final String AUTO_CONFIGURATION_IMPORTS =
+            "META-INF/spring/org.springframework.boot.autoconfigure.AutoConfiguration.imports";
+
+    /**
+     * Postfix of generated autoconfiguration class names.
+     */
+    private static final String AUTO_CONFIGURATION_POSTFIX = "AutoConfiguration";
+
+    /**
+     * Postfix of generated version service class names.
+     */
+    private static final String VERSION_SERVICE_POSTFIX = "VersionService";
+
+    /**
+     * Separator of the columns of a cache line.
+     */
+    private static final char COLUMN_SEPARATOR = '\t';
+
+    /**
+     * Separator of list elements within a column.
+     */
+    private static final char LIST_SEPARATOR = ',';
+
+    /**
+     * Number of columns of a cache line: path, size, modification time, services, artifacts, Spring services and
+     * index flag.
+     */
+    private static final int COLUMN_COUNT = 7;
+
+    /**
+     * Metadata of scanned jars, keyed by absolute path.
+     */
+    private final ConcurrentMap<String, JarMetadata> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Number of jars actually opened by this scanner.
+     */
+    private int scanned;
+
+    /**
+     * Load a scanner from its cache file. Missing or unreadable cache files result in an empty cache.
+     *
+     * @param cacheFile the cache file (may be null)
+     * @return the scanner
+     */
+    static DependencyScanner load(Path cacheFile) {
+        DependencyScanner scanner = new DependencyScanner();
+        if (cacheFile == null || !Files.isRegularFile(cacheFile)) {
+            return scanner;
+        }
+        try {
+            List<String> lines = Files.readAllLines(cacheFile, StandardCharsets.UTF_8);
+            if (lines.isEmpty() || !CACHE_HEADER.equals(lines.get(0))) {
+                return scanner;
+            }
+            for (String line : lines.subList(1, lines.size())) {
+                String[] columns = line.split(String.valueOf(COLUMN_SEPARATOR), -1);
+                if (columns.length == COLUMN_COUNT) {
+                    scanner.entries.put(columns[0], new JarMetadata(Long.parseLong(columns[1]),
+                            Long.parseLong(columns[2]), splitList(columns[3]), parseArtifacts(columns[4]),
+                            splitList(columns[5]), Boolean.parseBoolean(columns[6])));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // rescanning all jars is always safe
+            scanner.entries.clear();
+        }
+        return scanner;
+    }
+
+    /**
+     * Get the metadata of jar files, scanning all jars that are not cached or have changed in parallel.
+     *
+     * @param jars        the jar files
+     * @param threadCount maximum number of jars scanned in parallel
+     * @return metadata of every jar (in order of jars)
+     * @throws IOException in case a jar can not be read
+     */
+    Map<File, JarMetadata> scan(List<File> jars, int threadCount) throws IOException {
+        Map<File, JarMetadata> result = new LinkedHashMap<>();
+        List<File> missing = new ArrayList<>();
+        for (File jar : jars) {
+            JarMetadata metadata = getCached(jar);
+            result.put(jar, metadata);
+            if (metadata == null) {
+                missing.add(jar);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        List<Callable<JarMetadata>> tasks = new ArrayList<>(missing.size());
+        for (File jar : missing) {
+            tasks.add(() -> scanJar(jar));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threadCount, missing.size())));
+        try {
+            List<Future<JarMetadata>> futures = executor.invokeAll(tasks);
+            for (int i = 0; i < missing.size(); i++) {
+                File jar = missing.get(i);
+                JarMetadata metadata = futures.get(i).get();
+                entries.put(getKey(jar), metadata);
+                result.put(jar, metadata);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while scanning dependencies", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Unable to scan dependencies", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        scanned += missing.size();
+        return result;
+    }
+
+    /**
+     * Get the cached metadata of a jar file, if size and modification time did not change since it was scanned.
+     *
+     * @param jar the jar file
+     * @return cached metadata or null
+     */
+    JarMetadata getCached(File jar) {
+        JarMetadata metadata = entries.get(getKey(jar));
+        return metadata != null && metadata.size == jar.length() && metadata.lastModified == jar.lastModified()
+                ? metadata : null;
+    }
+
+    /**
+     * Get the number of jars actually opened by this scanner.
+     *
+     * @return number of scanned jars
+     */
+    int getScanned() {
+        return scanned;
+    }
+
+    /**
+     * Write the cache file, containing the metadata of the given jars only (so it does not grow with every
+     * dependency update). Lines are sorted by path, the file is only rewritten if its content changes.
+     *
+     * @param cacheFile the cache file
+     * @param jars      the jars to keep in the cache
+     * @throws IOException in case the cache file can not be written
+     */
+    void save(Path cacheFile, List<File> jars) throws IOException {
+        Map<String, JarMetadata> sorted = new TreeMap<>();
+        for (File jar : jars) {
+            String key = getKey(jar);
+            JarMetadata metadata = entries.get(key);
+            if (metadata != null) {
+                sorted.put(key, metadata);
+            }
+        }
+
+        StringBuilder content = new StringBuilder(CACHE_HEADER).append('\n');
+        for (Map.Entry<String, JarMetadata> entry : sorted.entrySet()) {
+            JarMetadata metadata = entry.getValue();
+            content.append(entry.getKey()).append(COLUMN_SEPARATOR).append(metadata.size).append(COLUMN_SEPARATOR)
+                    .append(metadata.lastModified).append(COLUMN_SEPARATOR)
+                    .append(String.join(String.valueOf(LIST_SEPARATOR), metadata.services))
+                    .append(COLUMN_SEPARATOR);
+            for (int i = 0; i < metadata.artifacts.size(); i++) {
+                content.append(i == 0 ? "" : String.valueOf(LIST_SEPARATOR))
+                        .append(metadata.artifacts.get(i).getCoordinates());
+            }
+            content.append(COLUMN_SEPARATOR).append(String.join(String.valueOf(LIST_SEPARATOR),
+                    metadata.springServices)).append(COLUMN_SEPARATOR).append(metadata.index).append('\n');
+        }
+
+        byte[] bytes = content.toString().getBytes(StandardCharsets.UTF_8);
+        if (Files.isRegularFile(cacheFile) && Arrays.equals(Files.readAllBytes(cacheFile), bytes)) {
+            return;
+        }
+        Files.createDirectories(cacheFile.getParent());
+        try (OutputStream outputStream = AtomicFileOutputStream.open(cacheFile)) {
+            outputStream.write(bytes);
+        }
+    }
+
+    /**
+     * Scan a single jar file. Files that are not zip files (e.g. pom dependencies) have no metadata.
+     *
+     * @param jar the jar file
+     * @return the metadata of the jar
+     * @throws IOException in case the jar can not be read
+     */
+    static JarMetadata scanJar(File jar) throws IOException {
+        // size and time are taken before reading, a jar changing during the scan is scanned again next time
+        long size = jar.length();
+        long lastModified = jar.lastModified();
+        List<String> services = new ArrayList<>();
+        List<ArtifactDescriptor> artifacts = new ArrayList<>();
+        List<String> autoConfigurations = new ArrayList<>();
+        boolean index = false;
+        try (ZipFile zipFile = new ZipFile(jar)) {
+            // opening the zip file reads nothing but the central directory
+            for (Enumeration<? extends ZipEntry> zipEntries = zipFile.entries(); zipEntries.hasMoreElements(); ) {
+                ZipEntry entry = zipEntries.nextElement();
+                String name = entry.getName();
+                if (name.equals(GenerateRegistryMojo.SERVICE_DEFINITION)) {
+                    services.addAll(GenerateRegistryMojo.parseServiceDefinition(zipFile.getInputStream(entry)));
+                } else if (name.equals(AUTO_CONFIGURATION_IMPORTS)) {
+                    autoConfigurations.addAll(GenerateRegistryMojo.parseServiceDefinition(
+                            zipFile.getInputStream(entry)));
+                } else if (name.equals(ArtifactIndex.RESOURCE_NAME)) {
+                    index = true;
+                } else if (isPomProperties(name)) {
+                    ArtifactDescriptor artifact = readPomProperties(zipFile.getInputStream(entry));
+                    if (artifact != null) {
+                        artifacts.add(artifact);
+                    }
+                }
+            }
+            Predicate<String> classExists = className -> zipFile.getEntry(toClassFileName(className)) != null;
+            return new JarMetadata(size, lastModified, services, artifacts,
+                    findSpringServices(autoConfigurations, classExists), index);
+        } catch (ZipException e) {
+            return new JarMetadata(size, lastModified, Collections.emptyList(), Collections.emptyList(),
+                    Collections.emptyList(), false);
+        }
+    }
+
+    /**
+     * Find generated Spring Boot version services in an output directory.
+     *
+     * @param directory   the output directory
+     * @param classExists checks whether a class exists (its class file may not have been compiled yet)
+     * @return version service class names
+     * @throws IOException in case the autoconfiguration manifest can not be read
+     */
+    static List<String> findSpringServices(File directory, Predicate<String> classExists) throws IOException {
+        File imports = new File(directory, AUTO_CONFIGURATION_IMPORTS);
+        if (!imports.isFile()) {
+            return Collections.emptyList();
+        }
+        Predicate<String> classFileExists = className -> new File(directory, toClassFileName(className)).isFile();
+        return findSpringServices(GenerateRegistryMojo.parseServiceDefinition(Files.newInputStream(imports.toPath())),
+                classFileExists.or(classExists));
+    }
+
+    /**
+     * Find generated Spring Boot version services. They are not listed anywhere, but their autoconfiguration classes
+     * are: a version service {@code <name>VersionService} has the autoconfiguration class
+     * {@code <name>AutoConfiguration} by default.
+     *
+     * @param autoConfigurations autoconfiguration class names
+     * @param classExists        checks whether a class exists
+     * @return version service class names
+     */
+    static List<String> findSpringServices(List<String> autoConfigurations, Predicate<String> classExists) {
+        List<String> springServices = new ArrayList<>();
+        for (String autoConfiguration : autoConfigurations) {
+            if (autoConfiguration.endsWith(AUTO_CONFIGURATION_POSTFIX)) {
+                String serviceClass = autoConfiguration.substring(0,
+                        autoConfiguration.length() - AUTO_CONFIGURATION_POSTFIX.length()) + VERSION_SERVICE_POSTFIX;
+                if (classExists.test(serviceClass)) {
+                    springServices.add(serviceClass);
+                }
+            }
+        }
+        return springServices;
+    }
+
+    /**
+     * Get the class file name of a class.
+     *
+     * @param className fully qualified class name
+     * @return class file name relative to the class path root
+     */
+    private static String toClassFileName(String className) {
+        return className.replace('.', '/') + ".class";
+    }
+
+    /**
+     * Check whether a zip entry name is a pom.properties file written by the maven-archiver, i.e. matches
+     * {@code META-INF/maven/<groupId>/<artifactId>/pom.properties}.
+     *
+     * @param name the zip entry name
+     * @return whether the entry is a pom.properties file
+     */
+    static boolean isPomProperties(String name) {
+        if (!name.startsWith(POM_PROPERTIES_PREFIX) || !name.endsWith(POM_PROPERTIES_SUFFIX)) {
+            return false;
+        }
+        String path = name.substring(POM_PROPERTIES_PREFIX.length(), name.length() - POM_PROPERTIES_SUFFIX.length());
+        int separator = path.indexOf('/');
+        return separator > 0 && separator < path.length() - 1 && path.indexOf('/', separator + 1) < 0;
+    }
+
+    /**
+     * Read the coordinates from a pom.properties file.
+     *
+     * @param inputStream pom.properties input stream (is closed after reading)
+     * @return the artifact coordinates or null, if they are incomplete or can not be stored in the cache
+     * @throws IOException in case reading fails
+     */
+    static ArtifactDescriptor readPomProperties(InputStream inputStream) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream stream = inputStream) {
+            properties.load(stream);
+        }
+        String groupId = properties.getProperty("groupId");
+        String artifactId = properties.getProperty("artifactId");
+        String version = properties.getProperty("version");
+        if (!isValidCoordinate(groupId) || !isValidCoordinate(artifactId) || !isValidCoordinate(version)) {
+            return null;
+        }
+        return new ArtifactDescriptor(groupId.trim(), artifactId.trim(), version.trim(), null);
+    }
+
+    /**
+     * Check whether a coordinate value is usable: neither empty, nor containing separators, quotes or backslashes.
+     *
+     * @param value the coordinate value
+     * @return whether the value is valid
+     */
+    static boolean isValidCoordinate(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return false;
+        }
+        for (char character : value.trim().toCharArray()) {
+            if (Character.isWhitespace(character) || character == ':' || character == LIST_SEPARATOR
+                    || character == '"' || character == '\\') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the cache key of a jar file.
+     *
+     * @param jar the jar file
+     * @return absolute path of the jar
+     */
+    private static String getKey(File jar) {
+        try {
+            return jar.getAbsoluteFile().toPath().normalize().toString();
+        } catch (InvalidPathException e) {
+            return jar.getAbsolutePath();
+        }
+    }
+
+    /**
+     * Split a list column of the cache file.
+     *
+     * @param column the column
+     * @return list elements
+     */
+    private static List<String> splitList(String column) {
+        List<String> elements = new ArrayList<>();
+        for (String element : column.split(String.valueOf(LIST_SEPARATOR))) {
+            if (!element.isEmpty()) {
+                elements.add(element);
+            }
+        }
+        return elements;
+    }
+
+    /**
+     * Parse the artifacts column of the cache file.
+     *
+     * @param column the column (coordinates separated by commas)
+     * @return the artifacts
+     * @throws IOException in case the column is not valid
+     */
+    private static List<ArtifactDescriptor> parseArtifacts(String column) throws IOException {
+        List<ArtifactDescriptor> artifacts = new ArrayList<>();
+        for (String coordinates : splitList(column)) {
+            String[] parts = coordinates.split(":", -1);
+            if (parts.length != 3) {
+                throw new IOException("Invalid coordinates in dependency cache: " + coordinates);
+            }
+            artifacts.add(new ArtifactDescriptor(parts[0], parts[1], parts[2], null));
+        }
+        return artifacts;
+    }
+
+    /**
+     * Metadata of a single jar file.
+     */
+    @SuppressWarnings("checkstyle:VisibilityModifier")
+    static final class JarMetadata {
+        /**
+         * Size of the jar when it was scanned.
+         */
+        final long size;
+
+        /**
+         * Modification time of the jar when it was scanned.
+         */
+        final long lastModified;
+
+        /**
+         * Class names listed in the artifact version service loader definition.
+         */
+        final List<String> services;
+
+        /**
+         * Artifacts from all pom.properties entries (coordinates only).
+         */
+        final List<ArtifactDescriptor> artifacts;
+
+        /**
+         * Generated Spring Boot version service class names.
+         */
+        final List<String> springServices;
+
+        /**
+         * Whether the jar contains an artifact version index (it is read only when needed).
+         */
+        final boolean index;
+
+        /**
+         * Create new jar metadata.
+         *
+         * @param size           size of the jar
+         * @param lastModified   modification time of the jar
+         * @param services       version service class names
+         * @param artifacts      artifacts from pom.properties entries
+         * @param springServices Spring Boot version service class names
+         * @param index          whether the jar contains an artifact version index
+         */
+        JarMetadata(long size, long lastModified, List<String> services, List<ArtifactDescriptor> artifacts,
+                    List<String> springServices, boolean index) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.services = Collections.unmodifiableList(services);
+            this.artifacts = Collections.unmodifiableList(artifacts);
+            this.springServices = Collections.unmodifiableList(springServices);
+            this.index = index;
+        }
+    }
+}
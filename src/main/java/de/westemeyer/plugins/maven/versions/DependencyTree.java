@@ -0,0 +1,187 @@
+package de.westemeyer.plugins.maven.versions;
+
+import org.apache.maven.artifact.Artifact;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolved dependency tree of a project, encoded for generated service classes. Group IDs, artifact IDs, versions
+ * and scopes repeat heavily in large trees, so every string is stored only once in a string table. Dependencies are
+ * stored in depth-first order as fixed width records of characters referencing their parent and the string table.
+ * Both are written as a few long string constants instead of one constant per dependency, so the generated class
+ * stays far from the constant pool and method size limits, and decoding the tree is a single pass over the records.
+ */
+final class DependencyTree {
+    /**
+     * Name of the template resource rendering the dependency tree into generated service classes.
+     */
+    static final String TEMPLATE = "dependency-tree-template.txt";
+
+    /**
+     * Number of characters per dependency: parent index plus one, group ID, artifact ID, version and scope.
+     */
+    static final int NODE_SIZE = 5;
+
+    /**
+     * Maximum number of characters per string constant. Every character takes at most three bytes in the class file,
+     * string constants are limited to 65535 bytes.
+     */
+    static final int CHUNK_SIZE = 16384;
+
+    /**
+     * Separator of strings in the string table.
+     */
+    static final char STRING_SEPARATOR = '\n';
+
+    /**
+     * Strings in order of their first occurrence, mapped to their index.
+     */
+    private final Map<String, Integer> strings = new LinkedHashMap<>();
+
+    /**
+     * Encoded dependency records.
+     */
+    private final StringBuilder nodes = new StringBuilder();
+
+    /**
+     * Number of dependencies in the tree.
+     */
+    private int size;
+
+    /**
+     * Build the dependency tree from the resolved artifacts of a project. The tree structure is taken from the
+     * dependency trails of the artifacts, siblings are sorted by their coordinates.
+     *
+     * @param artifacts the resolved artifacts of the project
+     * @return the encoded dependency tree
+     * @throws IllegalArgumentException in case the tree is too large to be encoded
+     */
+    static DependencyTree of(Collection<Artifact> artifacts) {
+        Map<String, Artifact> byId = new HashMap<>();
+        for (Artifact artifact : artifacts) {
+            byId.put(artifact.getId(), artifact);
+        }
+
+        // the dependency trail starts with the project itself and ends with the artifact
+        Map<String, List<Artifact>> children = new HashMap<>();
+        for (Artifact artifact : artifacts) {
+            List<String> trail = artifact.getDependencyTrail();
+            String parent = trail == null || trail.size() < 3 ? null : trail.get(trail.size() - 2);
+            children.computeIfAbsent(byId.containsKey(parent) ? parent : null, key -> new ArrayList<>()).add(artifact);
+        }
+
+        DependencyTree tree = new DependencyTree();
+        tree.addChildren(children, null, 0);
+        return tree;
+    }
+
+    /**
+     * Add the children of a dependency (and their children) in depth-first order.
+     *
+     * @param children children of all dependencies, by ID (null for direct dependencies)
+     * @param parentId ID of the parent dependency
+     * @param parent   index of the parent dependency plus one (zero for direct dependencies)
+     */
+    private void addChildren(Map<String, List<Artifact>> children, String parentId, int parent) {
+        List<Artifact> artifacts = children.remove(parentId);
+        if (artifacts == null) {
+            return;
+        }
+        artifacts.sort(Comparator.comparing(Artifact::getId));
+        for (Artifact artifact : artifacts) {
+            if (size + 1 > Character.MAX_VALUE) {
+                throw new IllegalArgumentException("Too many dependencies: " + size);
+            }
+            nodes.append((char) parent).append(add(artifact.getGroupId())).append(add(artifact.getArtifactId()))
+                    .append(add(artifact.getVersion())).append(add(artifact.getScope()));
+            size++;
+            addChildren(children, artifact.getId(), size);
+        }
+    }
+
+    /**
+     * Add a string to the string table, unless it already exists.
+     *
+     * @param string the string (null is stored as empty string)
+     * @return index of the string as character
+     */
+    private char add(String string) {
+        String value = string == null ? "" : string;
+        if (value.indexOf(STRING_SEPARATOR) >= 0) {
+            throw new IllegalArgumentException("Invalid coordinate: " + value);
+        }
+        Integer index = strings.get(value);
+        if (index == null) {
+            index = strings.size();
+            if (index >= Character.MAX_VALUE) {
+                throw new IllegalArgumentException("Too many different coordinates: " + index);
+            }
+            strings.put(value, index);
+        }
+        return (char) index.intValue();
+    }
+
+    /**
+     * Get the number of dependencies in the tree.
+     *
+     * @return number of dependencies
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Get the number of strings in the string table.
+     *
+     * @return number of strings
+     */
+    int getStringCount() {
+        return strings.size();
+    }
+
+    /**
+     * Get the string table as elements of a java array initializer.
+     *
+     * @return comma separated string literals
+     */
+    String getStringConstants() {
+        return toStringConstants(String.join(String.valueOf(STRING_SEPARATOR), strings.keySet()));
+    }
+
+    /**
+     * Get the dependency records as elements of a java array initializer.
+     *
+     * @return comma separated string literals
+     */
+    String getNodeConstants() {
+        return toStringConstants(nodes.toString());
+    }
+
+    /**
+     * Split a string into string literals small enough for the class file format.
+     *
+     * @param value the string
+     * @return comma separated string literals
+     */
+    static String toStringConstants(String value) {
+        StringBuilder buffer = new StringBuilder(value.length() * 2 + 2);
+        int start = 0;
+        do {
+            int end = Math.min(start + CHUNK_SIZE, value.length());
+            if (start > 0) {
+                buffer.append(", ");
+            }
+            buffer.append('"');
+            ServiceTemplate.appendEscaped(buffer, value, start, end);
+            buffer.append('"');
+            start = end;
+        } while (start < value.length());
+        return buffer.toString();
+    }
+}
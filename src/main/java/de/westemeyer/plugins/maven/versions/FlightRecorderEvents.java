@@ -0,0 +1,300 @@
+package de.westemeyer.plugins.maven.versions;
+
+import org.apache.maven.project.MavenProject;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Custom Java Flight Recorder events for the generator stages, so the plugin can be profiled together with the rest of
+ * the build (e.g. {@code MAVEN_OPTS=-XX:StartFlightRecording}). The plugin is compiled for Java 8, so the event types
+ * are created at runtime with {@code jdk.jfr.EventFactory} via reflection. On runtimes without JFR, or if recording is
+ * not enabled for an event type, events are no-ops that do not even compute their field values.
+ */
+final class FlightRecorderEvents {
+    /**
+     * Event type: load and parse a template.
+     */
+    static final String TEMPLATE_LOADING = "TemplateLoading";
+
+    /**
+     * Event type: render a template, bytecode or a binary index.
+     */
+    static final String RENDERING = "Rendering";
+
+    /**
+     * Event type: construct (or look up) the parent chain of a project.
+     */
+    static final String PARENT_CHAIN = "ParentChain";
+
+    /**
+     * Event type: write (or skip) a generated file.
+     */
+    static final String FILE_WRITE = "FileWrite";
+
+    /**
+     * Prefix of the event type names.
+     */
+    private static final String NAME_PREFIX = "de.westemeyer.artifactversion.";
+
+    /**
+     * Package of the JFR API.
+     */
+    private static final String JFR_PACKAGE = "jdk.jfr.";
+
+    /**
+     * Event that is not recorded.
+     */
+    private static final Event DISABLED = new Event(null, null);
+
+    /**
+     * Event types by name, empty without JFR.
+     */
+    private static final Map<String, EventType> EVENT_TYPES = createEventTypes();
+
+    /**
+     * Utility class.
+     */
+    private FlightRecorderEvents() {
+    }
+
+    /**
+     * Begin an event. The event is disabled, if JFR is not available or the event type is not enabled.
+     *
+     * @param type the event type
+     * @return the event, to be committed at the end of the stage
+     */
+    static Event begin(String type) {
+        EventType eventType = EVENT_TYPES.get(type);
+        return eventType == null ? DISABLED : eventType.begin();
+    }
+
+    /**
+     * Check whether JFR events are available on this runtime.
+     *
+     * @return whether event types have been registered
+     */
+    static boolean isAvailable() {
+        return !EVENT_TYPES.isEmpty();
+    }
+
+    /**
+     * Create the event types, if JFR is available.
+     *
+     * @return event types by name
+     */
+    private static Map<String, EventType> createEventTypes() {
+        try {
+            Map<String, EventType> types = new HashMap<>();
+            types.put(TEMPLATE_LOADING, new EventType(TEMPLATE_LOADING, "Template Loading",
+                    "Load and parse a template of the artifact version plugin", false));
+            types.put(RENDERING, new EventType(RENDERING, RENDERING,
+                    "Render a generated source file, class file or index of the artifact version plugin", false));
+            types.put(PARENT_CHAIN, new EventType(PARENT_CHAIN, "Parent Chain",
+                    "Construct the parent chain of a project in the artifact version plugin", false));
+            types.put(FILE_WRITE, new EventType(FILE_WRITE, "File Write",
+                    "Write (or skip) a file generated by the artifact version plugin", true));
+            return types;
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            // Java 8 runtime without JFR (or a restricted runtime)
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Event type created with the JFR event factory.
+     */
+    private static final class EventType {
+        /**
+         * The {@code jdk.jfr.EventFactory} of the event type.
+         */
+        private final Object factory;
+
+        /**
+         * Method {@code EventFactory.newEvent()}.
+         */
+        private final Method newEvent;
+
+        /**
+         * Method {@code EventType.isEnabled()} bound to the event type.
+         */
+        private final Method isEnabled;
+
+        /**
+         * The {@code jdk.jfr.EventType} of the factory.
+         */
+        private final Object eventType;
+
+        /**
+         * Method {@code Event.begin()}.
+         */
+        private final Method beginEvent;
+
+        /**
+         * Method {@code Event.set(int, Object)}.
+         */
+        private final Method setField;
+
+        /**
+         * Method {@code Event.commit()}.
+         */
+        private final Method commit;
+
+        /**
+         * Create and register an event type.
+         *
+         * @param name        event name (without prefix)
+         * @param label       event label
+         * @param description event description
+         * @param written     whether the event has a field telling whether a file has been written
+         * @throws ReflectiveOperationException in case JFR is not available
+         */
+        private EventType(String name, String label, String description, boolean written)
+                throws ReflectiveOperationException {
+            Class<?> annotationElement = Class.forName(JFR_PACKAGE + "AnnotationElement");
+            Constructor<?> annotation = annotationElement.getConstructor(Class.class, Object.class);
+            Class<? extends Annotation> labelAnnotation = jfrAnnotation("Label");
+            List<Object> annotations = Arrays.asList(
+                    annotation.newInstance(jfrAnnotation("Name"), NAME_PREFIX + name),
+                    annotation.newInstance(labelAnnotation, label),
+                    annotation.newInstance(jfrAnnotation("Description"), description),
+                    annotation.newInstance(jfrAnnotation("Category"), new String[]{"Maven", "Artifact Version"}),
+                    annotation.newInstance(jfrAnnotation("StackTrace"), false));
+
+            // the fields of all events, in order of the indices used by Event.commit
+            Class<?> valueDescriptor = Class.forName(JFR_PACKAGE + "ValueDescriptor");
+            Constructor<?> field = valueDescriptor.getConstructor(Class.class, String.class, List.class);
+            List<Object> fields = new ArrayList<>();
+            fields.add(field.newInstance(String.class, "module",
+                    Collections.singletonList(annotation.newInstance(labelAnnotation, "Module"))));
+            fields.add(field.newInstance(String.class, "path",
+                    Collections.singletonList(annotation.newInstance(labelAnnotation, "Path"))));
+            fields.add(field.newInstance(long.class, "bytes", Arrays.asList(
+                    annotation.newInstance(labelAnnotation, "Bytes"),
+                    annotation.newInstance(jfrAnnotation("DataAmount"), "BYTES"))));
+            if (written) {
+                fields.add(field.newInstance(boolean.class, "written",
+                        Collections.singletonList(annotation.newInstance(labelAnnotation, "Written"))));
+            }
+
+            Class<?> eventFactory = Class.forName(JFR_PACKAGE + "EventFactory");
+            factory = eventFactory.getMethod("create", List.class, List.class).invoke(null, annotations, fields);
+            newEvent = eventFactory.getMethod("newEvent");
+            eventType = eventFactory.getMethod("getEventType").invoke(factory);
+            isEnabled = eventType.getClass().getMethod("isEnabled");
+            Class<?> event = Class.forName(JFR_PACKAGE + "Event");
+            beginEvent = event.getMethod("begin");
+            setField = event.getMethod("set", int.class, Object.class);
+            commit = event.getMethod("commit");
+        }
+
+        /**
+         * Load a JFR annotation class.
+         *
+         * @param name simple name of the annotation
+         * @return annotation class
+         * @throws ClassNotFoundException in case JFR is not available
+         */
+        private static Class<? extends Annotation> jfrAnnotation(String name) throws ClassNotFoundException {
+            return Class.forName(JFR_PACKAGE + name).asSubclass(Annotation.class);
+        }
+
+        /**
+         * Begin a new event of this type, if the type is enabled.
+         *
+         * @return the event
+         */
+        private Event begin() {
+            try {
+                if (!(Boolean) isEnabled.invoke(eventType)) {
+                    return DISABLED;
+                }
+                Object event = newEvent.invoke(factory);
+                beginEvent.invoke(event);
+                return new Event(this, event);
+            } catch (ReflectiveOperationException e) {
+                return DISABLED;
+            }
+        }
+    }
+
+    /**
+     * A generator event, committed at the end of a stage.
+     */
+    static final class Event {
+        /**
+         * The event type (null, if disabled).
+         */
+        private final EventType type;
+
+        /**
+         * The {@code jdk.jfr.Event} instance (null, if disabled).
+         */
+        private final Object event;
+
+        /**
+         * Create an event.
+         *
+         * @param type  the event type
+         * @param event the JFR event
+         */
+        private Event(EventType type, Object event) {
+            this.type = type;
+            this.event = event;
+        }
+
+        /**
+         * Check whether the event is recorded.
+         *
+         * @return whether the event is enabled
+         */
+        boolean isEnabled() {
+            return event != null;
+        }
+
+        /**
+         * End and commit the event.
+         *
+         * @param project the project (module) the event belongs to
+         * @param path    the template, file or parent path (may be null)
+         * @param bytes   number of bytes (rendered, written or compared)
+         */
+        void commit(MavenProject project, Object path, long bytes) {
+            if (isEnabled()) {
+                commit(project, path, bytes, null);
+            }
+        }
+
+        /**
+         * End and commit a file write event.
+         *
+         * @param project the project (module) the event belongs to
+         * @param path    the generated file
+         * @param bytes   size of the file content
+         * @param written whether the file has been written (or left unchanged)
+         */
+        void commit(MavenProject project, Object path, long bytes, Boolean written) {
+            if (!isEnabled()) {
+                return;
+            }
+            try {
+                type.setField.invoke(event, 0, project == null ? null : ParentChainCache.getCoordinates(project));
+                type.setField.invoke(event, 1, path == null ? null : path.toString());
+                type.setField.invoke(event, 2, bytes);
+                if (written != null) {
+                    type.setField.invoke(event, 3, written);
+                }
+                type.commit.invoke(event);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // profiling must never break the build
+            }
+        }
+    }
+}
@@ -0,0 +1,588 @@
+package de.westemeyer.plugins.maven.versions;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+/**
+ * The generate-registry goal is meant for application modules. It walks the resolved dependencies, finds all
+ * dependencies (and the module itself) carrying generated artifact version services and generates a single registry
+ * class holding all their artifacts as static constants. The registry is an ArtifactVersionCollector that is
+ * instantiated directly (or its static getArtifacts() method is used), so runtime collection needs no service loader
+ * lookups at all. It is not registered with the service loader, an ArtifactVersionCollector only loads
+ * ArtifactVersionService providers. Modules with a binary artifact index (service type INDEX) are included with all
+ * artifact information from their index. Optionally, dependencies without version services are included with the
+ * coordinates from their pom.properties.
+ */
+@Mojo(name = "generate-registry", defaultPhase = LifecyclePhase.GENERATE_SOURCES, threadSafe = true,
+        requiresDependencyResolution = ResolutionScope.RUNTIME)
+@SuppressWarnings("checkstyle:VisibilityModifier")
+public class GenerateRegistryMojo extends AbstractArtifactVersionMojo {
+    /**
+     * Service loader definition file of artifact version services.
+     */
+    static final String SERVICE_DEFINITION = "META-INF/services/" + ARTIFACT_VERSION_SERVICE;
+
+    /**
+     * Fully qualified name of the artifact version collector base class, the generated registry extends it.
+     */
+    static final String ARTIFACT_VERSION_COLLECTOR = "de.westemeyer.version.core.collector.AbstractArtifactVersionCollector";
+
+    /**
+     * Constant string for registry class postfix.
+     */
+    private static final String REGISTRY_STRING = "ArtifactRegistry";
+
+    /**
+     * Separator of list elements in generated code.
+     */
+    private static final String LIST_SEPARATOR = ", ";
+
+    /**
+     * The registry class name to use for generated class (without package). Default is camel case artifact ID plus "ArtifactRegistry" postfix.
+     */
+    @Parameter
+    String registryClass;
+
+    /**
+     * Also include dependencies without generated version services in the registry, using the coordinates from the
+     * {@code META-INF/maven/<groupId>/<artifactId>/pom.properties} files in their jar files.
+     */
+    @Parameter(property = "artifactVersion.harvestDependencies", defaultValue = "false")
+    boolean harvestDependencies;
+
+    /**
+     * Maximum number of dependency jar files scanned in parallel. Default (0) is the number of available processors.
+     */
+    @Parameter(defaultValue = "0")
+    int threads;
+
+    /**
+     * Artifacts read from binary artifact indexes of the project and its dependencies, keyed by constant name.
+     */
+    final Map<String, ArtifactDescriptor> indexedArtifacts = new LinkedHashMap<>();
+
+    /**
+     * Artifacts harvested from pom.properties files of dependencies without version services, keyed by constant name.
+     */
+    final Map<String, ArtifactDescriptor> harvestedArtifacts = new LinkedHashMap<>();
+
+    @Override
+    public void execute() throws MojoFailureException {
+        long start = System.nanoTime();
+        String packaging = project.getPackaging();
+        // parent poms in multi-module projects do not need a registry
+        if (packaging == null || !packaging.equalsIgnoreCase("pom")) {
+            // the build cache compares parameter values after execution with the configuration of the next build
+            String configuredPackageName = packageName;
+            String configuredRegistryClass = registryClass;
+            try {
+                generateRegistry();
+            } finally {
+                packageName = configuredPackageName;
+                registryClass = configuredRegistryClass;
+            }
+        }
+
+        // pom projects report as well, the reactor report is complete once all executions have reported
+        writeReport(start);
+    }
+
+    void generateRegistry() throws MojoFailureException {
+        long start = System.nanoTime();
+
+        // optional package name parameter can be "guessed" from group ID
+        packageName = setUpParameterValue("Package name", packageName, () -> project.getGroupId() + ".versions");
+
+        // optional registry class name parameter can be "guessed" from artifact ID
+        registryClass = setUpParameterValue("Registry class", registryClass, this::determineRegistryClassName);
+
+        recordStage(GenerationMetrics.PARAMETERS, start);
+
+        // find version services of project and its dependencies
+        start = System.nanoTime();
+        Map<String, String> services = findVersionServices();
+        getLog().info("Artifact registry contains " + services.size() + " version services, "
+                + indexedArtifacts.size() + " indexed artifacts and " + harvestedArtifacts.size()
+                + " harvested artifacts.");
+
+        Map<String, String> templateValues = getTemplateValues(services);
+        recordStage(GenerationMetrics.DEPENDENCIES, start);
+
+        // write the registry class
+        writeClassFile("registry-template.txt", templateValues, registryClass);
+
+        // add source root for generated source file
+        project.addCompileSourceRoot(targetFolder.getPath());
+
+        // delete files that only the previous execution generated
+        removeStaleFiles();
+
+        // report the number of files that actually had to be written
+        logFileStatistics();
+    }
+
+    /**
+     * Create a camel case registry class name from the artifact ID. Only necessary if registry class name is not
+     * configured in plugin execution.
+     *
+     * @return registry class name
+     */
+    String determineRegistryClassName() {
+        return toCamelCase(project.getArtifactId()) + REGISTRY_STRING;
+    }
+
+    /**
+     * Find all version services in the project output directory and in the resolved dependencies. Artifacts from
+     * binary artifact indexes are read as well. Artifacts of dependencies without version services are harvested from
+     * their pom.properties files, if enabled.
+     *
+     * @return map of constant names and version service class names (ordered)
+     * @throws MojoFailureException in case a service loader definition or an artifact index can not be read
+     */
+    Map<String, String> findVersionServices() throws MojoFailureException {
+        Map<String, String> services = new LinkedHashMap<>();
+        indexedArtifacts.clear();
+        harvestedArtifacts.clear();
+
+        // the project's own version service comes first, its generated sources have not been compiled yet
+        File outputDirectory = new File(project.getBuild().getOutputDirectory());
+        addVersionServices(services, project.getArtifactId(), outputDirectory);
+        List<ArtifactDescriptor> indexed = new ArrayList<>(readIndex(outputDirectory));
+        warnSpringServices(outputDirectory, className -> new File(targetFolder,
+                className.replace('.', '/') + ".java").isFile());
+
+        // dependencies sorted by coordinates, so the generated registry does not depend on resolution order
+        List<Artifact> artifacts = new ArrayList<>(project.getArtifacts());
+        artifacts.sort(Comparator.comparing(Artifact::getGroupId).thenComparing(Artifact::getArtifactId));
+
+        // jar files are scanned in parallel (or taken from the cache), directories of reactor modules are read directly
+        List<File> jars = new ArrayList<>();
+        for (Artifact artifact : artifacts) {
+            if (artifact.getFile() != null && artifact.getFile().isFile()) {
+                jars.add(artifact.getFile());
+            }
+        }
+        Map<File, DependencyScanner.JarMetadata> metadata = scanDependencies(jars);
+
+        for (Artifact artifact : artifacts) {
+            File file = artifact.getFile();
+            if (file != null) {
+                DependencyScanner.JarMetadata jar = metadata.get(file);
+                if (jar == null) {
+                    addVersionServices(services, artifact.getArtifactId(), file);
+                    warnSpringServices(file, className -> false);
+                    indexed.addAll(readIndex(file));
+                } else {
+                    addVersionServices(services, artifact.getArtifactId(), jar.services);
+                    warnSpringServices(file, jar.springServices);
+                    if (jar.index) {
+                        indexed.addAll(readIndex(file));
+                    }
+                }
+            }
+        }
+        addIndexedArtifacts(services, indexed);
+
+        // artifacts with version services provide more information than their pom.properties
+        if (harvestDependencies) {
+            harvestArtifacts(services, jars, metadata);
+        }
+        return services;
+    }
+
+    /**
+     * Warn about generated Spring Boot version services in an output directory.
+     *
+     * @param directory   the output directory (nothing happens for other files)
+     * @param classExists checks whether a class exists besides the class files in the directory
+     * @throws MojoFailureException in case the Spring Boot autoconfiguration manifest can not be read
+     */
+    void warnSpringServices(File directory, Predicate<String> classExists) throws MojoFailureException {
+        if (directory.isDirectory()) {
+            try {
+                warnSpringServices(directory, DependencyScanner.findSpringServices(directory, classExists));
+            } catch (IOException e) {
+                throw new MojoFailureException("Unable to read Spring Boot autoconfiguration manifest from "
+                        + directory, e);
+            }
+        }
+    }
+
+    /**
+     * Warn about generated Spring Boot version services. Only version services registered with the service loader
+     * are included in the registry, Spring Boot services are registered as autoconfiguration classes.
+     *
+     * @param location       output directory or jar file
+     * @param springServices Spring Boot version service class names
+     */
+    void warnSpringServices(File location, List<String> springServices) {
+        for (String serviceClass : springServices) {
+            getLog().warn("Skipping Spring Boot version service " + serviceClass + " in " + location
+                    + ", the registry only contains version services generated with serviceType NATIVE.");
+        }
+    }
+
+    /**
+     * Scan dependency jar files for version services and pom.properties files. The results are cached next to the
+     * state file, so unchanged jar files are not opened again in later builds.
+     *
+     * @param jars the dependency jar files
+     * @return metadata of all jar files
+     * @throws MojoFailureException in case a jar file or the cache can not be read or written
+     */
+    Map<File, DependencyScanner.JarMetadata> scanDependencies(List<File> jars) throws MojoFailureException {
+        Path buildDirectory = getBuildDirectory();
+        try {
+            Path cacheFile = buildDirectory == null ? null : getStateFile(buildDirectory.toFile()).toPath()
+                    .resolveSibling(DependencyScanner.CACHE_FILE_NAME);
+            DependencyScanner scanner = DependencyScanner.load(cacheFile);
+            Map<File, DependencyScanner.JarMetadata> metadata = scanner.scan(jars,
+                    threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+            if (cacheFile != null) {
+                scanner.save(cacheFile, jars);
+            }
+            getLog().info("Scanned " + scanner.getScanned() + " of " + jars.size() + " dependency jar files.");
+            return metadata;
+        } catch (InvalidPathException | IOException e) {
+            throw new MojoFailureException("Unable to scan dependency jar files", e);
+        }
+    }
+
+    /**
+     * Add artifacts read from binary artifact indexes. Artifacts are included only once.
+     *
+     * @param services map of constant names and version service class names
+     * @param indexed  artifacts read from binary artifact indexes
+     */
+    void addIndexedArtifacts(Map<String, String> services, List<ArtifactDescriptor> indexed) {
+        Set<String> coordinates = new HashSet<>();
+        Set<String> constantNames = new HashSet<>(services.keySet());
+        for (ArtifactDescriptor artifact : indexed) {
+            if (coordinates.add(artifact.groupId + ":" + artifact.artifactId)) {
+                String constantName = getUniqueConstantName(constantNames, artifact.artifactId);
+                constantNames.add(constantName);
+                indexedArtifacts.put(constantName, artifact);
+            }
+        }
+    }
+
+    /**
+     * Read the artifacts from the binary artifact index of a directory or jar file.
+     *
+     * @param location output directory or jar file
+     * @return list of artifacts (empty if there is no index)
+     * @throws MojoFailureException in case the index can not be read
+     */
+    List<ArtifactDescriptor> readIndex(File location) throws MojoFailureException {
+        try {
+            if (location.isDirectory()) {
+                File file = new File(location, ArtifactIndex.RESOURCE_NAME);
+                if (file.isFile()) {
+                    try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+                        return ArtifactIndex.read(inputStream);
+                    }
+                }
+            } else if (location.isFile()) {
+                try (ZipFile zipFile = new ZipFile(location)) {
+                    ZipEntry entry = zipFile.getEntry(ArtifactIndex.RESOURCE_NAME);
+                    if (entry != null) {
+                        try (InputStream inputStream = zipFile.getInputStream(entry)) {
+                            return ArtifactIndex.read(inputStream);
+                        }
+                    }
+                }
+            }
+        } catch (ZipException e) {
+            // not a jar file (e.g. pom dependency), there is no index in here
+            logNoJarFile(location, e);
+        } catch (IOException e) {
+            throw new MojoFailureException("Unable to read artifact version index from " + location, e);
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Harvest the artifacts from pom.properties files of all jar files without version services or artifact index.
+     * Artifacts are included only once, the project itself and indexed artifacts are never included.
+     *
+     * @param services map of constant names and version service class names
+     * @param jars     the dependency jar files
+     * @param metadata metadata of all jar files
+     */
+    void harvestArtifacts(Map<String, String> services, List<File> jars,
+                          Map<File, DependencyScanner.JarMetadata> metadata) {
+        Set<String> coordinates = new HashSet<>();
+        coordinates.add(project.getGroupId() + ":" + project.getArtifactId());
+        for (ArtifactDescriptor artifact : indexedArtifacts.values()) {
+            coordinates.add(artifact.groupId + ":" + artifact.artifactId);
+        }
+        Set<String> constantNames = new HashSet<>(services.keySet());
+        constantNames.addAll(indexedArtifacts.keySet());
+        for (File file : jars) {
+            DependencyScanner.JarMetadata jar = metadata.get(file);
+            if (jar.services.isEmpty() && !jar.index) {
+                for (ArtifactDescriptor artifact : jar.artifacts) {
+                    if (coordinates.add(artifact.groupId + ":" + artifact.artifactId)) {
+                        String constantName = getUniqueConstantName(constantNames, artifact.artifactId);
+                        constantNames.add(constantName);
+                        harvestedArtifacts.put(constantName, artifact);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Add version services from a directory or jar file.
+     *
+     * @param services   map of constant names and version service class names
+     * @param artifactId the artifact ID used to derive constant names
+     * @param location   output directory or jar file
+     * @throws MojoFailureException in case the service loader definition can not be read
+     */
+    void addVersionServices(Map<String, String> services, String artifactId,
+                            File location) throws MojoFailureException {
+        addVersionServices(services, artifactId, readServiceDefinition(location));
+    }
+
+    /**
+     * Add version services, unless they have already been added.
+     *
+     * @param services       map of constant names and version service class names
+     * @param artifactId     the artifact ID used to derive constant names
+     * @param serviceClasses version service class names
+     */
+    static void addVersionServices(Map<String, String> services, String artifactId, List<String> serviceClasses) {
+        for (String serviceClass : serviceClasses) {
+            if (!services.containsValue(serviceClass)) {
+                services.put(getUniqueConstantName(services, artifactId), serviceClass);
+            }
+        }
+    }
+
+    /**
+     * Read the class names listed in the artifact version service loader definition of a directory or jar file.
+     *
+     * @param location output directory or jar file
+     * @return list of service class names (empty if there is no service definition)
+     * @throws MojoFailureException in case the service loader definition can not be read
+     */
+    List<String> readServiceDefinition(File location) throws MojoFailureException {
+        try {
+            if (location.isDirectory()) {
+                File file = new File(location, SERVICE_DEFINITION);
+                if (file.isFile()) {
+                    return parseServiceDefinition(Files.newInputStream(file.toPath()));
+                }
+            } else if (location.isFile()) {
+                // only the zip central directory and the service definition entry need to be read
+                try (ZipFile zipFile = new ZipFile(location)) {
+                    ZipEntry entry = zipFile.getEntry(SERVICE_DEFINITION);
+                    if (entry != null) {
+                        return parseServiceDefinition(zipFile.getInputStream(entry));
+                    }
+                }
+            }
+        } catch (ZipException e) {
+            // not a jar file (e.g. pom dependency), there are no services in here
+            logNoJarFile(location, e);
+        } catch (IOException e) {
+            throw new MojoFailureException("Unable to read service loader definition from " + location, e);
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Log a dependency file that is not a jar file.
+     *
+     * @param location the dependency file
+     * @param e        exception thrown when opening the file as zip file
+     */
+    private void logNoJarFile(File location, ZipException e) {
+        getLog().debug("Skipping " + location + ": " + e.getMessage());
+    }
+
+    /**
+     * Parse a service loader definition (one class name per line, comments start with a hash character).
+     *
+     * @param inputStream service definition input stream (is closed after reading)
+     * @return list of service class names
+     * @throws IOException in case reading fails
+     */
+    static List<String> parseServiceDefinition(InputStream inputStream) throws IOException {
+        List<String> classNames = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                int comment = line.indexOf('#');
+                String className = (comment < 0 ? line : line.substring(0, comment)).trim();
+                if (!className.isEmpty()) {
+                    classNames.add(className);
+                }
+            }
+        }
+        return classNames;
+    }
+
+    /**
+     * Derive a constant name from an artifact ID that is not yet used in the map of services.
+     *
+     * @param services   map of constant names and version service class names
+     * @param artifactId the artifact ID
+     * @return unique constant name
+     */
+    static String getUniqueConstantName(Map<String, String> services, String artifactId) {
+        return getUniqueConstantName(services.keySet(), artifactId);
+    }
+
+    /**
+     * Derive a constant name from an artifact ID that is not yet used.
+     *
+     * @param constantNames constant names already used
+     * @param artifactId    the artifact ID
+     * @return unique constant name
+     */
+    static String getUniqueConstantName(Set<String> constantNames, String artifactId) {
+        StringBuilder buffer = new StringBuilder();
+        for (char character : artifactId.toUpperCase().toCharArray()) {
+            buffer.append(Character.isLetterOrDigit(character) ? character : '_');
+        }
+        if (buffer.length() == 0 || Character.isDigit(buffer.charAt(0))) {
+            buffer.insert(0, '_');
+        }
+        String constantName = buffer.toString();
+        String uniqueName = constantName;
+        for (int i = 2; constantNames.contains(uniqueName); i++) {
+            uniqueName = constantName + "_" + i;
+        }
+        return uniqueName;
+    }
+
+    /**
+     * Set up a map of template variable replacement values.
+     *
+     * @param services map of constant names and version service class names
+     * @return map of template variable replacement values
+     */
+    Map<String, String> getTemplateValues(Map<String, String> services) {
+        // documentation and initializer of all constants, version services first
+        Map<String, String[]> definitions = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : services.entrySet()) {
+            String initializer = "new " + entry.getValue() + "().getArtifact()";
+            definitions.put(entry.getKey(), new String[]{"provided by {@link " + entry.getValue() + "}", initializer});
+        }
+        for (Map.Entry<String, ArtifactDescriptor> entry : indexedArtifacts.entrySet()) {
+            definitions.put(entry.getKey(), new String[]{"read from the artifact version index of "
+                    + toCommentText(entry.getValue().getCoordinates()), toArtifactInitializer(entry.getValue())});
+        }
+        for (Map.Entry<String, ArtifactDescriptor> entry : harvestedArtifacts.entrySet()) {
+            definitions.put(entry.getKey(), new String[]{"harvested from pom.properties of "
+                    + toCommentText(entry.getValue().getCoordinates()), toArtifactInitializer(entry.getValue())});
+        }
+
+        StringBuilder constants = new StringBuilder();
+        StringBuilder artifactList = new StringBuilder();
+        StringBuilder serviceList = new StringBuilder();
+        for (Map.Entry<String, String[]> entry : definitions.entrySet()) {
+            if (constants.length() > 0) {
+                constants.append('\n');
+                artifactList.append(LIST_SEPARATOR);
+                serviceList.append(LIST_SEPARATOR);
+            }
+            constants.append("    /**\n     * Artifact ").append(entry.getValue()[0]).append(".\n     */\n");
+            constants.append("    public static final Artifact ").append(entry.getKey()).append(" = ")
+                    .append(entry.getValue()[1]).append(";\n");
+            artifactList.append(entry.getKey());
+            serviceList.append("() -> ").append(entry.getKey());
+        }
+
+        Map<String, String> valueMap = new HashMap<>();
+        valueMap.put("package", packageName);
+        valueMap.put("registryClass", registryClass);
+        valueMap.put("groupId", project.getGroupId());
+        valueMap.put("artifactId", project.getArtifactId());
+        valueMap.put("artifactConstants", constants.toString());
+        valueMap.put("artifactList", artifactList.toString());
+        valueMap.put("serviceList", serviceList.toString());
+        return valueMap;
+    }
+
+    /**
+     * Create the initializer of an artifact constant, including its parent chain.
+     *
+     * @param artifact the artifact
+     * @return java expression creating the artifact
+     */
+    static String toArtifactInitializer(ArtifactDescriptor artifact) {
+        return "new Artifact(" + toCoordinateArguments(artifact) + LIST_SEPARATOR + artifact.timestamp + "L"
+                + LIST_SEPARATOR + ServiceTemplate.toJavaLiteral(artifact.name) + LIST_SEPARATOR
+                + ServiceTemplate.toJavaLiteral(artifact.description) + LIST_SEPARATOR
+                + ServiceTemplate.toJavaLiteral(artifact.url) + LIST_SEPARATOR + toParentInitializer(artifact.parent)
+                + ")";
+    }
+
+    /**
+     * Create the initializer of a parent artifact, including its own parent chain.
+     *
+     * @param parent the parent artifact (may be null)
+     * @return java expression creating the parent artifact
+     */
+    private static String toParentInitializer(ArtifactDescriptor parent) {
+        if (parent == null) {
+            return "null";
+        }
+        return "new BasicArtifact(" + toCoordinateArguments(parent) + LIST_SEPARATOR
+                + toParentInitializer(parent.parent) + ")";
+    }
+
+    /**
+     * Create the coordinate arguments of an artifact constructor.
+     *
+     * @param artifact the artifact
+     * @return group ID, artifact ID and version literals
+     */
+    private static String toCoordinateArguments(ArtifactDescriptor artifact) {
+        return ServiceTemplate.toJavaLiteral(artifact.groupId) + LIST_SEPARATOR
+                + ServiceTemplate.toJavaLiteral(artifact.artifactId) + LIST_SEPARATOR
+                + ServiceTemplate.toJavaLiteral(artifact.version);
+    }
+
+    /**
+     * Escape a string read from a dependency for a comment in generated code. Line breaks, backslashes (unicode
+     * escapes are processed in comments as well) and the end of comment sequence must not make it into the comment.
+     *
+     * @param value the string
+     * @return escaped string
+     */
+    static String toCommentText(String value) {
+        StringBuilder buffer = new StringBuilder(value.length());
+        ServiceTemplate.appendEscaped(buffer, value, 0, value.length());
+        return buffer.toString().replace("*/", "*&#47;");
+    }
+}
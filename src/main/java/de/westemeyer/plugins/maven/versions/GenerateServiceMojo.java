@@ -1,74 +1,115 @@
 package de.westemeyer.plugins.maven.versions;
 
-import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.model.Developer;
+import org.apache.maven.model.License;
+import org.apache.maven.model.Organization;
+import org.apache.maven.model.Scm;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
 import org.apache.maven.project.MavenProject;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.io.PrintWriter;
-import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.function.Supplier;
 
 /**
  * The generate-service goal has exactly two responsibilities. First: generate a simple service class implementing
  * the ArtifactVersionService interface to provide artifact coordinates and version for ArtifactVersionCollector.
  * Second: generate a new service loader definition file so the service loader can pick up the information.
  */
-@Mojo(name = "generate-service", defaultPhase = LifecyclePhase.GENERATE_SOURCES, threadSafe = true)
+@Mojo(name = "generate-service", defaultPhase = LifecyclePhase.GENERATE_SOURCES, threadSafe = true,
+        requiresDependencyCollection = ResolutionScope.COMPILE_PLUS_RUNTIME)
 @SuppressWarnings("checkstyle:VisibilityModifier")
-public class GenerateServiceMojo extends AbstractMojo {
+public class GenerateServiceMojo extends AbstractArtifactVersionMojo {
     /**
-     * Name (or prefix) of the generated parent artifact variable.
+     * Constant string for service class postfix.
      */
-    private static final String PARENT_VARIABLE_NAME = "parentArtifact";
+    private static final String VERSION_SERVICE_STRING = "VersionService";
 
     /**
-     * Constant string for use in generated class.
+     * Constant string for autoconfiguration class postfix.
      */
-    private static final String NULL_STRING = "null";
+    private static final String AUTO_CONFIGURATION_STRING = "AutoConfiguration";
 
     /**
-     * Constant string for service class postfix.
+     * Name of the Spring Boot autoconfiguration manifest (in META-INF/spring).
      */
-    private static final String VERSION_SERVICE_STRING = "VersionService";
+    private static final String AUTO_CONFIGURATION_IMPORTS = "org.springframework.boot.autoconfigure.AutoConfiguration.imports";
 
     /**
-     * Constant string for autoconfiguration class postfix.
+     * Name of the Spring candidate component index (in META-INF).
      */
-    private static final String AUTO_CONFIGURATION_STRING = "AutoConfiguration";
+    private static final String COMPONENT_INDEX = "spring.components";
 
     /**
-     * The project object is injected with information from a project's pom.xml.
+     * File name extension of class files.
      */
-    @Parameter(defaultValue = "${project}", required = true, readonly = true)
-    MavenProject project;
+    private static final String CLASS_FILE_EXTENSION = ".class";
 
     /**
-     * The target source folder for a generated service class. Should in most cases be left alone, just make sure to
-     * point your IDE to its location (which it should probably do automatically).
+     * Property to disable the Maven build cache extension.
      */
-    @Parameter(defaultValue = "${project.build.directory}/generated-sources/artifact-versions", required = true)
-    File targetFolder;
+    private static final String BUILD_CACHE_ENABLED_PROPERTY = "maven.build.cache.enabled";
 
     /**
-     * The package name to use for generated service class. Default is group ID plus ".versions" postfix.
+     * Template value key of the embedded dependency tree.
      */
-    @Parameter
-    String packageName;
+    private static final String DEPENDENCY_TREE = "dependencyTree";
+
+    /**
+     * Template value key of the extended metadata.
+     */
+    private static final String EXTENDED_METADATA = "extendedMetadata";
+
+    /**
+     * Template value key of the git metadata.
+     */
+    private static final String GIT_METADATA = "gitMetadata";
+
+    /**
+     * Template value key of the git commit ID.
+     */
+    private static final String GIT_COMMIT_VALUE = "gitCommit";
+
+    /**
+     * Template value key of the git branch.
+     */
+    private static final String GIT_BRANCH_VALUE = "gitBranch";
+
+    /**
+     * Template value key of the git commit time.
+     */
+    private static final String GIT_COMMIT_TIME_VALUE = "gitCommitTime";
+
+    /**
+     * Name of the template resource rendering the extended metadata into generated service classes.
+     */
+    private static final String EXTENDED_METADATA_TEMPLATE = "extended-metadata-template.txt";
+
+    /**
+     * Line break of generated files and normalized strings.
+     */
+    private static final String LINE_FEED = "\n";
+
+    /**
+     * Separator of list elements in generated code.
+     */
+    private static final String LIST_SEPARATOR = ", ";
 
     /**
      * The service class name to use for generated class (without package). Default is camel case artifact ID plus "VersionService" postfix.
@@ -95,16 +136,194 @@ public class GenerateServiceMojo extends AbstractMojo {
     @Parameter
     boolean skipSpringBootAutoConfiguration = false;
 
+    /**
+     * How the autoconfiguration class registers the service with Spring. Default is scanning the package of the
+     * generated classes, BEAN_METHOD registers the service with a bean method instead, which avoids scanning the
+     * classpath and proxying the configuration class at application startup.
+     */
+    @Parameter
+    SpringRegistration springRegistration = SpringRegistration.COMPONENT_SCAN;
+
+    /**
+     * Add the generated Spring service to the candidate component index (META-INF/spring.components), so Spring finds
+     * it without scanning the classpath. Only useful if all other jars scanned by the application provide an index as
+     * well, Spring uses the index instead of scanning as soon as one is present.
+     */
+    @Parameter
+    boolean generateComponentIndex = false;
+
+    /**
+     * Write GraalVM native image configuration (reflection and resource configuration) for the generated classes and
+     * resources to META-INF/native-image/groupId/artifactId, so native images keep them without manual configuration.
+     */
+    @Parameter
+    boolean generateNativeImageMetadata = false;
+
+    /**
+     * How to declare native services in the module descriptor. VERIFY fails the build if the project's module-info.java
+     * lacks the provides clause of the generated service, GENERATE additionally generates a module descriptor for
+     * projects without one.
+     */
+    @Parameter
+    ModuleInfoMode moduleInfo = ModuleInfoMode.NONE;
+
+    /**
+     * Name of the generated module. Default is derived from group ID and artifact ID.
+     */
+    @Parameter
+    String moduleName;
+
+    /**
+     * Name of the module containing the artifact version service interface, required by generated module descriptors.
+     */
+    @Parameter
+    String coreModuleName = "artifact.version.core";
+
+    /**
+     * Write generated classes as bytecode directly to the output directory instead of generating source files, so
+     * modules without any other sources do not need to run the java compiler. Source files are still generated, if
+     * bytecode can not be generated (e.g. for invalid class names).
+     */
+    @Parameter
+    boolean generateBytecode = false;
+
+    /**
+     * Embed the resolved dependency tree (coordinates and scope of all compile, runtime, provided and system
+     * dependencies) into the generated service class, available from its static getDependencies() method. Requires
+     * source generation.
+     */
+    @Parameter
+    boolean embedDependencyTree = false;
+
+    /**
+     * Embed extended metadata (licenses, SCM, developers and organization) into the generated service class, available
+     * from its static getMetadata() method. The metadata lives in a holder class that is only loaded on first access,
+     * the artifact itself keeps carrying coordinates, version, name, description and URL. Requires source generation.
+     */
+    @Parameter
+    boolean embedExtendedMetadata = false;
+
+    /**
+     * Embed git metadata (commit ID, branch and commit time of HEAD) into the generated service class, available from
+     * its static getGitCommit(), getGitBranch() and getGitCommitTime() methods. The metadata is read from the git
+     * directory directly, once per repository and build, without starting a git process. Requires source generation.
+     */
+    @Parameter
+    boolean embedGitMetadata = false;
+
+    /**
+     * Where to take the build timestamp of the generated service class from. Default is the current time, which makes
+     * generated classes differ with every build. Use one of the other values for reproducible builds.
+     */
+    @Parameter
+    TimestampSource timestampSource = TimestampSource.NOW;
+
+    /**
+     * Reproducible build timestamp, either in ISO-8601 format or as seconds since epoch. Used with timestamp source
+     * OUTPUT_TIMESTAMP.
+     */
+    @Parameter(defaultValue = "${project.build.outputTimestamp}")
+    String outputTimestamp;
+
+    /**
+     * Fixed build timestamp, either in ISO-8601 format or as seconds since epoch. Used with timestamp source FIXED.
+     */
+    @Parameter
+    String fixedTimestamp;
+
+    /**
+     * The build timestamp (milliseconds since epoch) written to generated service classes.
+     */
+    long buildTimestamp;
+
     @Override
     public void execute() throws MojoFailureException {
+        long start = System.nanoTime();
         String packaging = project.getPackaging();
         // parent poms in multi-module projects do not need a service class
         if (packaging == null || !packaging.equalsIgnoreCase("pom")) {
-            generateFiles();
+            // in incremental IDE builds, generated files only change with the pom or the configuration
+            String configuration = describeConfiguration();
+            if (isIncrementalBuildUpToDate(configuration)) {
+                getLog().info("Generated files are up to date.");
+                if (targetFolder.isDirectory()) {
+                    project.addCompileSourceRoot(targetFolder.getPath());
+                }
+                writeReport(start);
+                return;
+            }
+
+            // the build cache compares parameter values after execution with the configuration of the next build
+            String configuredPackageName = packageName;
+            String configuredServiceClass = serviceClass;
+            String configuredAutoConfigurationClass = autoConfigurationClass;
+            try {
+                generateFiles();
+            } finally {
+                packageName = configuredPackageName;
+                serviceClass = configuredServiceClass;
+                autoConfigurationClass = configuredAutoConfigurationClass;
+            }
+            buildContext.setValue(getExecutionKey(), configuration);
         }
+
+        // pom projects report as well, the reactor report is complete once all executions have reported
+        writeReport(start);
+    }
+
+    /**
+     * Describe the configuration of this execution.
+     *
+     * @return string representation of all parameters affecting the generated files
+     */
+    String describeConfiguration() {
+        return Arrays.asList(packageName, targetFolder, serviceClass, autoConfigurationClass, serviceType,
+                skipSpringBootAutoConfiguration, springRegistration, generateComponentIndex,
+                generateNativeImageMetadata, moduleInfo, moduleName, coreModuleName, generateBytecode,
+                embedDependencyTree, embedExtendedMetadata, embedGitMetadata, timestampSource, outputTimestamp,
+                fixedTimestamp).toString();
+    }
+
+    /**
+     * Check whether generated files are up to date in an incremental build: neither the pom nor the configuration
+     * have changed since the last execution, and all files generated by it still exist. Regenerating files in every
+     * incremental build would trigger endless rebuilds in the IDE (the timestamp changes with every build by default).
+     *
+     * @param configuration description of the current configuration
+     * @return whether generation can be skipped
+     */
+    boolean isIncrementalBuildUpToDate(String configuration) {
+        File pom = project.getFile();
+        if (!buildContext.isIncremental() || pom == null || buildContext.hasDelta(pom)
+                || !configuration.equals(buildContext.getValue(getExecutionKey()))) {
+            return false;
+        }
+
+        // files deleted in the meantime have to be generated again
+        Path buildDirectory = getBuildDirectory();
+        if (buildDirectory == null) {
+            return false;
+        }
+        File stateFile = getStateFile(buildDirectory.toFile());
+        if (!stateFile.isFile()) {
+            return false;
+        }
+        for (Path file : readStateFile(stateFile, buildDirectory)) {
+            if (!Files.isRegularFile(file)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     void generateFiles() throws MojoFailureException {
+        // the binary index does not need any classes
+        if (serviceType.equals(ServiceType.INDEX)) {
+            generateIndex();
+            return;
+        }
+        long start = System.nanoTime();
+
         // optional package name parameter can be "guessed" from group ID
         packageName = setUpParameterValue("Package name", packageName, () -> project.getGroupId() + ".versions");
 
@@ -121,90 +340,242 @@ public class GenerateServiceMojo extends AbstractMojo {
             getLog().info("Service class name and auto configuration class name can not be the same.");
         }
 
+        // determine build timestamp once for all generated files
+        buildTimestamp = determineTimestamp();
+
         // template values to be replaced in template resource files to create meaningful classes
         Map<String, String> templateValues = getTemplateValues(autoConfigurationClass);
+        recordStage(GenerationMetrics.PARAMETERS, start);
+        if (embedDependencyTree) {
+            templateValues.put(DEPENDENCY_TREE, renderDependencyTree(templateValues));
+        }
+        if (embedExtendedMetadata) {
+            templateValues.put(EXTENDED_METADATA, renderExtendedMetadata(templateValues));
+        }
+        if (embedGitMetadata) {
+            templateValues.put(GIT_METADATA, renderGitMetadata(templateValues));
+        }
+
+        // Spring autoconfiguration class is optional
+        boolean autoConfiguration = serviceType.equals(ServiceType.SPRING_BOOT) && !skipSpringBootAutoConfiguration;
+
+        // write class files directly, if configured, otherwise (or if that is not possible) generate source files
+        boolean sourcesRequired = embedDependencyTree || embedExtendedMetadata || embedGitMetadata;
+        if (generateBytecode && sourcesRequired) {
+            getLog().warn("Dependency tree, extended metadata and git metadata can only be embedded into source files, "
+                    + "generating source files.");
+        }
+        boolean bytecode = generateBytecode && !sourcesRequired && writeBytecodeFiles(autoConfiguration);
+        if (!bytecode) {
+            // write the service class
+            writeClassFile(getTemplateResourceFileName(), templateValues, serviceClass);
+
+            if (autoConfiguration) {
+                // write autoconfiguration class
+                writeClassFile(isBeanMethodRegistration() ? "service-template-spring-boot-bean-configuration.txt"
+                        : "service-template-spring-boot-configuration.txt", templateValues, autoConfigurationClass);
+            }
+
+            // add source root for generated source file
+            project.addCompileSourceRoot(targetFolder.getPath());
+        }
+
+        // the service loader ignores META-INF/services on the module path
+        writeModuleDescriptor(bytecode, templateValues);
 
-        // write the service class
-        writeClassFile(getTemplateResourceFileName(), templateValues, serviceClass);
+        // classes and resources a native image has to keep
+        List<String> classNames = new ArrayList<>();
+        List<String> resourceNames = new ArrayList<>();
+        classNames.add(packageName + "." + serviceClass);
 
         // no need for a Spring service manifest
         if (serviceType.equals(ServiceType.NATIVE)) {
             // write the service manifest
-            writeServiceManifest("services", "de.westemeyer.version.core.api.ArtifactVersionService",
+            writeServiceManifest("services", ARTIFACT_VERSION_SERVICE,
                     packageName + "." + serviceClass);
-        } else {
-            if (!skipSpringBootAutoConfiguration) {
-                // write autoconfiguration class
-                writeClassFile("service-template-spring-boot-configuration.txt", templateValues,
-                        autoConfigurationClass);
+            resourceNames.add("META-INF/services/" + ARTIFACT_VERSION_SERVICE);
+        } else if (autoConfiguration) {
+            // write the autoconfiguration manifest
+            writeServiceManifest("spring", AUTO_CONFIGURATION_IMPORTS, packageName + "." + autoConfigurationClass);
+            classNames.add(packageName + "." + autoConfigurationClass);
+            resourceNames.add("META-INF/spring/" + AUTO_CONFIGURATION_IMPORTS);
+        }
 
-                // write the autoconfiguration manifest
-                writeServiceManifest("spring", "org.springframework.boot.autoconfigure.AutoConfiguration.imports",
-                        packageName + "." + autoConfigurationClass);
-            }
+        // only services annotated for component scanning are candidate components
+        if (generateComponentIndex && serviceType.equals(ServiceType.SPRING_BOOT) && !isBeanMethodRegistration()) {
+            writeServiceManifest("", COMPONENT_INDEX,
+                    packageName + "." + serviceClass + "=org.springframework.stereotype.Component");
+            resourceNames.add("META-INF/" + COMPONENT_INDEX);
         }
 
-        // add source root for generated source file
-        project.addCompileSourceRoot(targetFolder.getPath());
+        if (generateNativeImageMetadata) {
+            writeNativeImageMetadata(classNames, resourceNames);
+        }
+
+        // delete files that only the previous execution generated
+        removeStaleFiles();
+
+        // report the number of files that actually had to be written
+        logFileStatistics();
     }
 
     /**
-     * Determine parameter value for an optional parameter.
+     * Write the service class (and autoconfiguration class) as bytecode to the output directory.
      *
-     * @param description   description of the parameter content (for logging)
-     * @param currentValue  initial value (is preserved when set)
-     * @param valueSupplier method or lambda to determine a default value
-     * @return the final parameter value
+     * @param autoConfiguration whether to write the autoconfiguration class
+     * @return whether class files have been written, false if source files need to be generated instead
+     * @throws MojoFailureException in case a class file can not be written
      */
-    String setUpParameterValue(String description, String currentValue, Supplier<String> valueSupplier) {
-        // optional parameter may be empty
-        if (currentValue == null || currentValue.isEmpty()) {
-            // use value supplier to compute new value
-            String suppliedValue = valueSupplier.get();
-
-            // inform user about the choice of package name
-            getLog().info(description + " is not defined, using: " + suppliedValue);
-
-            // return computed value
-            return suppliedValue;
+    boolean writeBytecodeFiles(boolean autoConfiguration) throws MojoFailureException {
+        String serviceClassName = packageName + "." + serviceClass;
+        String autoConfigurationClassName = packageName + "." + autoConfigurationClass;
+
+        // let the java compiler report invalid class names
+        if (!ServiceClassWriter.isValidClassName(serviceClassName) || autoConfiguration
+                && !ServiceClassWriter.isValidClassName(autoConfigurationClassName)) {
+            getLog().warn("Invalid class name, generating source files instead of bytecode.");
+            return false;
         }
 
-        return currentValue;
+        long start = System.nanoTime();
+        FlightRecorderEvents.Event event = FlightRecorderEvents.begin(FlightRecorderEvents.RENDERING);
+        byte[] serviceClassContent;
+        byte[] autoConfigurationClassContent = null;
+        try {
+            serviceClassContent = ServiceClassWriter.writeServiceClass(serviceClassName, createArtifactDescriptor(),
+                    serviceType.equals(ServiceType.SPRING_BOOT) && !isBeanMethodRegistration());
+            if (autoConfiguration && isBeanMethodRegistration()) {
+                autoConfigurationClassContent = ServiceClassWriter.writeBeanConfigurationClass(
+                        autoConfigurationClassName, serviceClassName, getBeanName(serviceClass));
+            } else if (autoConfiguration) {
+                autoConfigurationClassContent = ServiceClassWriter.writeConfigurationClass(autoConfigurationClassName);
+            }
+        } catch (RuntimeException e) {
+            // e.g. string constants exceeding the class file limits
+            getLog().warn("Unable to generate bytecode, generating source files instead: " + e.getMessage());
+            return false;
+        }
+        event.commit(project, serviceClassName, serviceClassContent.length
+                + (autoConfigurationClassContent == null ? 0 : autoConfigurationClassContent.length));
+        recordStage(GenerationMetrics.RENDERING, start);
+
+        writeResourceFile(serviceClassName.replace('.', '/') + CLASS_FILE_EXTENSION, serviceClassContent);
+        if (autoConfigurationClassContent != null) {
+            writeResourceFile(autoConfigurationClassName.replace('.', '/') + CLASS_FILE_EXTENSION,
+                    autoConfigurationClassContent);
+        }
+        return true;
     }
 
     /**
-     * Write the service manifest that binds the generated source file to the ArtifactVersionService.
+     * Write the binary artifact index resource for service type INDEX.
      *
-     * @param subDirectory subdirectory from META-INF
-     * @param fileName     the service file name
-     * @param fileContent  content for the service file
-     * @throws MojoFailureException in case the output file can not be written to META-INF directory
+     * @throws MojoFailureException in case the index file can not be written
      */
-    void writeServiceManifest(String subDirectory, String fileName, String fileContent) throws MojoFailureException {
-        // compile META-INF directory name
-        File directory = new File(project.getBuild().getOutputDirectory(), "META-INF");
+    void generateIndex() throws MojoFailureException {
+        getLog().warn("The artifact version index is not found by an ArtifactVersionCollector, include this module in "
+                + "a registry generated by the generate-registry goal of the application module.");
+
+        // determine build timestamp
+        long start = System.nanoTime();
+        buildTimestamp = determineTimestamp();
+        recordStage(GenerationMetrics.PARAMETERS, start);
+
+        // write the index resource
+        start = System.nanoTime();
+        FlightRecorderEvents.Event event = FlightRecorderEvents.begin(FlightRecorderEvents.RENDERING);
+        byte[] index = ArtifactIndex.write(Collections.singletonList(createArtifactDescriptor()));
+        event.commit(project, ArtifactIndex.RESOURCE_NAME, index.length);
+        recordStage(GenerationMetrics.RENDERING, start);
+        writeResourceFile(ArtifactIndex.RESOURCE_NAME, index);
+        if (generateNativeImageMetadata) {
+            writeNativeImageMetadata(Collections.emptyList(), Collections.singletonList(ArtifactIndex.RESOURCE_NAME));
+        }
 
-        // append "services" directory
-        directory = new File(directory, subDirectory);
+        // delete files that only the previous execution generated
+        removeStaleFiles();
 
-        // create target directory (if it does not exist)
-        makeDirectories(directory, "META-INF/" + subDirectory);
+        // report the number of files that actually had to be written
+        logFileStatistics();
+    }
 
-        // file name is always the same
-        File serviceFile = new File(directory, fileName);
+    /**
+     * Verify or generate the module descriptor declaring the native service, depending on the configured mode.
+     *
+     * @param bytecode       whether to write a class file instead of a source file
+     * @param templateValues template values of the service class
+     * @throws MojoFailureException in case the module descriptor does not provide the service, or can not be written
+     */
+    void writeModuleDescriptor(boolean bytecode, Map<String, String> templateValues) throws MojoFailureException {
+        // Spring services are not looked up with the service loader
+        if (moduleInfo == ModuleInfoMode.NONE || !serviceType.equals(ServiceType.NATIVE)) {
+            return;
+        }
+        String provider = packageName + "." + serviceClass;
+        File descriptor = ModuleDescriptor.find(project.getCompileSourceRoots(), targetFolder);
+        if (descriptor != null) {
+            String source;
+            try {
+                source = String.join(LINE_FEED, Files.readAllLines(descriptor.toPath(), StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new MojoFailureException("Unable to read module descriptor: " + descriptor, e);
+            }
+            if (!ModuleDescriptor.provides(source, ARTIFACT_VERSION_SERVICE, provider)) {
+                throw new MojoFailureException("Module descriptor " + descriptor + " does not provide the generated "
+                        + "service, please add: provides " + ARTIFACT_VERSION_SERVICE + " with " + provider + ";");
+            }
+            return;
+        }
+        if (moduleInfo == ModuleInfoMode.VERIFY) {
+            return;
+        }
+
+        String name = moduleName != null ? moduleName
+                : ModuleDescriptor.deriveModuleName(project.getGroupId(), project.getArtifactId());
+        if (!ServiceClassWriter.isValidClassName(name)) {
+            throw new MojoFailureException("Invalid module name " + name + ", please configure moduleName.");
+        }
+        if (bytecode) {
+            writeResourceFile("module-info" + CLASS_FILE_EXTENSION,
+                    ServiceClassWriter.writeModuleInfo(name, coreModuleName, provider));
+        } else {
+            Map<String, String> valueMap = new HashMap<>(templateValues);
+            valueMap.put("moduleName", name);
+            valueMap.put("coreModuleName", coreModuleName);
+            writeSourceFile(targetFolder, ModuleDescriptor.FILE_NAME, "module-info-template.txt", valueMap);
+        }
+    }
 
-        // create output file writer
-        try (OutputStream outputStream = createServiceFileOutputStream(
-                serviceFile); PrintWriter writer = createPrintWriter(outputStream)) {
-            // simply print the generated class name into the generated file
-            writer.println(fileContent);
-        } catch (IllegalArgumentException | UnsupportedOperationException | SecurityException | IOException e) {
-            throw new MojoFailureException("Unable to create new service loader definition file: " + serviceFile);
+    /**
+     * Write the GraalVM native image configuration of the generated classes and resources.
+     *
+     * @param classNames    fully qualified names of generated classes
+     * @param resourceNames names of generated resources
+     * @throws MojoFailureException in case a configuration file can not be written
+     */
+    void writeNativeImageMetadata(List<String> classNames, List<String> resourceNames) throws MojoFailureException {
+        String directory = NativeImageMetadata.getDirectory(project.getGroupId(), project.getArtifactId());
+        if (!classNames.isEmpty()) {
+            writeResourceFile(directory + NativeImageMetadata.REFLECT_CONFIG,
+                    encode(NativeImageMetadata.toReflectConfig(classNames)));
         }
+        writeResourceFile(directory + NativeImageMetadata.RESOURCE_CONFIG,
+                encode(NativeImageMetadata.toResourceConfig(resourceNames)));
     }
 
-    PrintWriter createPrintWriter(OutputStream outputStream) {
-        return new PrintWriter(outputStream);
+    /**
+     * Create a descriptor of the project artifact, including its parent chain.
+     *
+     * @return the artifact descriptor
+     */
+    ArtifactDescriptor createArtifactDescriptor() {
+        // parent descriptors are shared by sibling modules
+        FlightRecorderEvents.Event event = FlightRecorderEvents.begin(FlightRecorderEvents.PARENT_CHAIN);
+        ArtifactDescriptor parentDescriptor = ParentChainCache.forSession(session).getDescriptor(project.getParent());
+        event.commit(project, null, 0);
+        return new ArtifactDescriptor(project.getGroupId(), project.getArtifactId(), project.getVersion(),
+                buildTimestamp, normalizeLineFeeds(project.getName()), normalizeLineFeeds(project.getDescription()),
+                project.getUrl(), parentDescriptor);
     }
 
     /**
@@ -214,36 +585,8 @@ public class GenerateServiceMojo extends AbstractMojo {
      * @return a brand new (and hopefully meaningful) service class name
      */
     String determineServiceClassName() {
-        // get artifact ID from project
-        String artifactId = project.getArtifactId();
-
-        // output buffer for generated class name
-        StringBuilder output = new StringBuilder();
-
-        // start off with a capital letter
-        boolean capitalizeNext = true;
-
-        // iterate all characters in artifact ID
-        for (int i = 0; i < artifactId.length(); i++) {
-            // get character at current index position
-            char thisChar = artifactId.charAt(i);
-
-            // skip dashes and dots...
-            if (thisChar == '-' || thisChar == '.') {
-                // ... but remember to capitalize next character
-                capitalizeNext = true;
-            } else if (capitalizeNext) {
-                // otherwise append uppercase value of character...
-                output.append(String.valueOf(thisChar).toUpperCase());
-                capitalizeNext = false;
-            } else {
-                // or leave character "as it is"
-                output.append(thisChar);
-            }
-        }
-
-        // postfix and return result
-        return output + VERSION_SERVICE_STRING;
+        // camel case artifact ID, postfixed
+        return toCamelCase(project.getArtifactId()) + VERSION_SERVICE_STRING;
     }
 
     /**
@@ -258,67 +601,6 @@ public class GenerateServiceMojo extends AbstractMojo {
         return serviceClass + AUTO_CONFIGURATION_STRING;
     }
 
-    /**
-     * Write the service java class file.
-     *
-     * @param templateResourceFileName name of the template file
-     * @param templateValues           values to fill into template
-     * @param className                the class name to use
-     * @throws MojoFailureException in case an IOException occurred
-     */
-    void writeClassFile(String templateResourceFileName, Map<String, String> templateValues,
-                        String className) throws MojoFailureException {
-        // need to create path from package components, therefore we have to split the package string...
-        String[] packageComponents = packageName.split("\\.");
-
-        // ... starting with the target folder
-        File packageDir = targetFolder;
-
-        // ... iterate and append path components
-        for (String component : packageComponents) {
-            packageDir = new File(packageDir, component);
-        }
-
-        // and finally try to create resulting directory path
-        makeDirectories(packageDir, "service class package");
-
-        // concatenate class file name
-        String fileName = className + ".java";
-
-        // open template file input stream and java source file output stream for generated service file
-        try (InputStream inStream = createServiceTemplateResourceStream(templateResourceFileName);
-             OutputStream outputStream = createClassFileOutputStream(packageDir, fileName)) {
-            // input stream should always be available from resource file
-            if (inStream == null) {
-                throw new MojoFailureException("Failed to read service template from plugin resources");
-            }
-
-            // create reader and writer objects for template and output files respectively
-            try (Reader reader = new InputStreamReader(inStream,
-                    StandardCharsets.UTF_8); PrintWriter writer = createPrintWriter(outputStream)) {
-
-                // read template file to string builder
-                String out = readTemplateFile(reader);
-
-                // iterate map of template values for replacement
-                for (Map.Entry<String, String> entry : templateValues.entrySet()) {
-                    String value = entry.getValue();
-                    if (value == null) {
-                        out = out.replace("\"${" + entry.getKey() + "}\"", NULL_STRING);
-                    } else {
-                        // replace values in string
-                        out = out.replace("${" + entry.getKey() + "}", value);
-                    }
-                }
-
-                // write resulting java source code to output file
-                writer.print(out);
-            }
-        } catch (IOException e) {
-            throw new MojoFailureException("Unable to read template file from plugin resources", e);
-        }
-    }
-
     /**
      * Set up a map of template variable replacement values.
      *
@@ -330,175 +612,313 @@ public class GenerateServiceMojo extends AbstractMojo {
         valueMap.put("package", packageName);
         valueMap.put("serviceClass", serviceClass);
         valueMap.put("configClass", autoconfigurationClass);
+        valueMap.put("beanName", getBeanName(serviceClass));
         valueMap.put("groupId", project.getGroupId());
         valueMap.put("artifactId", project.getArtifactId());
         valueMap.put("version", project.getVersion());
         valueMap.put("name", replaceLineFeeds(project.getName()));
         valueMap.put("url", project.getUrl());
         valueMap.put("description", replaceLineFeeds(project.getDescription()));
-        valueMap.put("timestamp", "" + new Date().getTime());
+        valueMap.put("timestamp", "" + buildTimestamp);
         valueMap.put("parentArtifactDefinition", getParentArtifactDefinition());
+        valueMap.put(DEPENDENCY_TREE, "");
+        valueMap.put(EXTENDED_METADATA, "");
+        if (embedGitMetadata) {
+            GitMetadata git = getGitMetadata();
+            valueMap.put(GIT_COMMIT_VALUE, git.getCommit());
+            valueMap.put(GIT_BRANCH_VALUE, git.getBranch());
+            valueMap.put(GIT_COMMIT_TIME_VALUE, git.getCommitTime() == null ? null
+                    : String.valueOf(git.getCommitTime() * 1000L));
+        }
+        valueMap.put(GIT_METADATA, "");
         return valueMap;
     }
 
     /**
-     * Determine the content for the creation of parent artifacts.
+     * Render the resolved dependency tree of the project into the generated service class.
      *
-     * @return list of parent artifact instantiations as string
+     * @param templateValues template values of the service class
+     * @return source code of the dependency tree accessor, classes and constants
+     * @throws MojoFailureException in case the template can not be read or the tree is too large
      */
-    String getParentArtifactDefinition() {
-        MavenProject parent = project.getParent();
-        if (parent != null) {
-            int i = 1;
-            String parentVariableName = PARENT_VARIABLE_NAME;
-            StringBuilder parentArtifactDefinition = new StringBuilder();
-            do {
-                StringBuilder buffer = new StringBuilder();
-                buffer.append("        BasicArtifact ").append(parentVariableName);
-                buffer.append(" = new BasicArtifact(");
-                appendStringAndComma(buffer, parent.getGroupId());
-                appendStringAndComma(buffer, parent.getArtifactId());
-                appendStringAndComma(buffer, parent.getVersion());
-                parent = parent.getParent();
-                parentVariableName = PARENT_VARIABLE_NAME + i++;
-                if (parent == null) {
-                    buffer.append(NULL_STRING);
-                } else {
-                    buffer.append(parentVariableName);
-                }
-                buffer.append(");\n");
-                parentArtifactDefinition.insert(0, buffer);
-            } while (parent != null);
-            return parentArtifactDefinition.toString();
+    String renderDependencyTree(Map<String, String> templateValues) throws MojoFailureException {
+        long start = System.nanoTime();
+        DependencyTree tree;
+        try {
+            tree = DependencyTree.of(project.getArtifacts());
+        } catch (IllegalArgumentException e) {
+            throw new MojoFailureException("Unable to embed dependency tree: " + e.getMessage(), e);
         }
-        return "";
+        getLog().info("Embedding dependency tree with " + tree.size() + " dependencies (" + tree.getStringCount()
+                + " distinct strings).");
+
+        Map<String, String> valueMap = new HashMap<>(templateValues);
+        valueMap.put("dependencyStrings", tree.getStringConstants());
+        valueMap.put("dependencyNodes", tree.getNodeConstants());
+        valueMap.put("nodeSize", String.valueOf(DependencyTree.NODE_SIZE));
+        String definition = getServiceTemplate(DependencyTree.TEMPLATE).render(valueMap);
+        recordStage(GenerationMetrics.RENDERING, start);
+        return definition;
     }
 
     /**
-     * Convenience method used to append new content to a comma separated list.
+     * Render the extended metadata of the project (licenses, SCM, developers and organization) into the generated
+     * service class.
      *
-     * @param buffer  buffer to append to
-     * @param content content to append
+     * @param templateValues template values of the service class
+     * @return source code of the metadata accessor, classes and holder class
+     * @throws MojoFailureException in case the template can not be read
      */
-    private static void appendStringAndComma(StringBuilder buffer, String content) {
-        buffer.append("\"").append(content).append("\", ");
+    String renderExtendedMetadata(Map<String, String> templateValues) throws MojoFailureException {
+        long start = System.nanoTime();
+        Organization organization = project.getOrganization();
+        Scm scm = project.getScm();
+
+        StringBuilder licenses = new StringBuilder();
+        for (Object element : project.getLicenses()) {
+            License license = (License) element;
+            licenses.append(licenses.length() > 0 ? LIST_SEPARATOR : "").append("new License(")
+                    .append(ServiceTemplate.toJavaLiteral(license.getName())).append(LIST_SEPARATOR)
+                    .append(ServiceTemplate.toJavaLiteral(license.getUrl())).append(')');
+        }
+        StringBuilder developers = new StringBuilder();
+        for (Object element : project.getDevelopers()) {
+            Developer developer = (Developer) element;
+            developers.append(developers.length() > 0 ? LIST_SEPARATOR : "").append("new Developer(")
+                    .append(ServiceTemplate.toJavaLiteral(developer.getId())).append(LIST_SEPARATOR)
+                    .append(ServiceTemplate.toJavaLiteral(developer.getName())).append(LIST_SEPARATOR)
+                    .append(ServiceTemplate.toJavaLiteral(developer.getEmail())).append(LIST_SEPARATOR)
+                    .append(ServiceTemplate.toJavaLiteral(developer.getOrganization())).append(')');
+        }
+
+        Map<String, String> valueMap = new HashMap<>(templateValues);
+        valueMap.put("organization", ServiceTemplate.toJavaLiteral(organization == null ? null
+                : organization.getName()));
+        valueMap.put("organizationUrl", ServiceTemplate.toJavaLiteral(organization == null ? null
+                : organization.getUrl()));
+        valueMap.put("scmUrl", ServiceTemplate.toJavaLiteral(scm == null ? null : scm.getUrl()));
+        valueMap.put("scmConnection", ServiceTemplate.toJavaLiteral(scm == null ? null : scm.getConnection()));
+        valueMap.put("licenses", licenses.toString());
+        valueMap.put("developers", developers.toString());
+        String definition = getServiceTemplate(EXTENDED_METADATA_TEMPLATE).render(valueMap);
+        recordStage(GenerationMetrics.RENDERING, start);
+        return definition;
     }
 
     /**
-     * Strings in pom.xml files may contain line breaks. Replace these by backslash n to have valid String constants in
-     * generated service class files.
+     * Render the git metadata of the project (commit ID, branch and commit time) into the generated service class.
      *
-     * @param input the input string from pom.xml
-     * @return correct string for service class
+     * @param templateValues template values of the service class, including the git values
+     * @return source code of the git metadata accessors
+     * @throws MojoFailureException in case the template can not be read
      */
-    static String replaceLineFeeds(String input) {
-        return input == null ? null : input.replaceAll("\\r?\\n", "\\\\n").replace("\t", " ");
+    String renderGitMetadata(Map<String, String> templateValues) throws MojoFailureException {
+        long start = System.nanoTime();
+        String commitTime = templateValues.get(GIT_COMMIT_TIME_VALUE);
+        Map<String, String> valueMap = new HashMap<>(templateValues);
+        valueMap.put(GIT_COMMIT_VALUE, ServiceTemplate.toJavaLiteral(templateValues.get(GIT_COMMIT_VALUE)));
+        valueMap.put(GIT_BRANCH_VALUE, ServiceTemplate.toJavaLiteral(templateValues.get(GIT_BRANCH_VALUE)));
+        valueMap.put(GIT_COMMIT_TIME_VALUE, commitTime == null ? "null" : commitTime + "L");
+        String definition = getServiceTemplate("git-metadata-template.txt").render(valueMap);
+        recordStage(GenerationMetrics.RENDERING, start);
+        return definition;
     }
 
     /**
-     * Read service java class template file from resources.
+     * Determine the build timestamp from the configured timestamp source. Falls back to the current time, if the
+     * configured source does not provide a value.
      *
-     * @param reader the file reader instance
-     * @return a string with the template file content
-     * @throws IOException in case reading the file failed
+     * @return build timestamp in milliseconds since epoch
+     * @throws MojoFailureException in case a configured timestamp value can not be parsed
      */
-    String readTemplateFile(Reader reader) throws IOException {
-        // the buffer size to use
-        int bufferSize = 1024;
-
-        // create an empty buffer
-        char[] buffer = new char[bufferSize];
+    long determineTimestamp() throws MojoFailureException {
+        String value;
+        switch (timestampSource) {
+            case OUTPUT_TIMESTAMP:
+                // maven uses single character values to disable reproducible builds
+                value = outputTimestamp != null && outputTimestamp.length() > 1 ? outputTimestamp : null;
+                break;
+            case SOURCE_DATE_EPOCH:
+                value = getEnvironmentVariable("SOURCE_DATE_EPOCH");
+                break;
+            case GIT_COMMIT:
+                value = readGitCommitTime();
+                break;
+            case FIXED:
+                value = fixedTimestamp;
+                break;
+            default:
+                // the cache would restore classes containing the time of the build that populated it
+                if (isBuildCacheEnabled()) {
+                    getLog().warn("The Maven build cache is enabled, but generated classes contain the current time. "
+                            + "Use another timestampSource (e.g. OUTPUT_TIMESTAMP) to make them cacheable.");
+                }
+                return getBuildStartTime();
+        }
 
-        // create new string builder instance
-        StringBuilder out = new StringBuilder();
+        if (value == null || value.trim().isEmpty()) {
+            getLog().warn("No timestamp available from source " + timestampSource + ", using build start time.");
+            return getBuildStartTime();
+        }
 
-        // read file content in buffer sized chunks
-        for (int numRead; (numRead = reader.read(buffer, 0, buffer.length)) > 0; ) {
-            // and append the buffer content to string builder
-            out.append(buffer, 0, numRead);
+        try {
+            return parseTimestamp(value.trim());
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new MojoFailureException("Invalid timestamp from source " + timestampSource + ": " + value, e);
         }
+    }
 
-        // return the template file content
-        return out.toString();
+    /**
+     * Get the start time of the build from the session, like the {@code maven.build.timestamp} property. All modules
+     * of a reactor share it, no matter in which order or on which thread they are built.
+     *
+     * @return start time in milliseconds since epoch, the current time if there is no session (e.g. in tests)
+     */
+    long getBuildStartTime() {
+        Date startTime = session == null || session.getRequest() == null ? null : session.getRequest().getStartTime();
+        return startTime == null ? System.currentTimeMillis() : startTime.getTime();
     }
 
     /**
-     * Check whether directory already exists, otherwise try to create it.
+     * Check whether the Maven build cache extension is configured for the current build (in
+     * {@code .mvn/extensions.xml}) and not disabled by the {@code maven.build.cache.enabled} property.
      *
-     * @param directory   directory to be created
-     * @param description description of directory purpose
+     * @return whether the build cache is enabled
      */
-    void makeDirectories(File directory, String description) throws MojoFailureException {
-        if (!(directory.isDirectory() || directory.mkdirs())) {
-            throw new MojoFailureException("Unable to create " + description + " directory: " + directory.getPath());
+    boolean isBuildCacheEnabled() {
+        if (session == null || session.getRequest() == null) {
+            return false;
+        }
+
+        // the cache can be disabled for a single build
+        String enabled = System.getProperty(BUILD_CACHE_ENABLED_PROPERTY);
+        if (session.getUserProperties() != null) {
+            enabled = session.getUserProperties().getProperty(BUILD_CACHE_ENABLED_PROPERTY, enabled);
+        }
+        if (Boolean.FALSE.toString().equalsIgnoreCase(enabled)) {
+            return false;
+        }
+
+        File directory = session.getRequest().getMultiModuleProjectDirectory();
+        if (directory == null) {
+            return false;
+        }
+        File extensions = new File(directory, ".mvn/extensions.xml");
+        try {
+            return extensions.isFile() && Files.readAllLines(extensions.toPath(), StandardCharsets.UTF_8).stream()
+                    .anyMatch(line -> line.contains("maven-build-cache-extension"));
+        } catch (InvalidPathException | IOException e) {
+            return false;
         }
     }
 
     /**
-     * Create output stream object from service file name. Extracted to achieve code coverage for catch block in
-     * {@link #writeServiceManifest(String, String, String)} method.
+     * Parse a timestamp value, either given in ISO-8601 format or as seconds since epoch.
      *
-     * @param serviceFile the service file name
-     * @return new output stream object
-     * @throws FileNotFoundException in case the file can not be created
+     * @param value the timestamp value
+     * @return timestamp in milliseconds since epoch
      */
-    protected OutputStream createServiceFileOutputStream(File serviceFile) throws IOException {
-        try {
-            return Files.newOutputStream(serviceFile.toPath());
-        } catch (InvalidPathException exc) {
-            throw new IOException("Invalid path: " + serviceFile, exc);
+    static long parseTimestamp(String value) {
+        if (value.chars().allMatch(Character::isDigit)) {
+            return Long.parseLong(value) * 1000L;
         }
+        return OffsetDateTime.parse(value).toInstant().toEpochMilli();
     }
 
     /**
-     * Create service class output stream.
+     * Read an environment variable. Extracted to be able to test environment dependent behaviour.
      *
-     * @param packageDir the package directory
-     * @param fileName   file name to use
-     * @return a new output stream object
-     * @throws FileNotFoundException in case the file can not be created
+     * @param name name of the environment variable
+     * @return the value or null
      */
-    protected OutputStream createClassFileOutputStream(File packageDir, String fileName) throws IOException {
-        // create file object
-        File file = new File(packageDir, fileName);
+    String getEnvironmentVariable(String name) {
+        return System.getenv(name);
+    }
 
-        // check, whether file exists under a name that is similar, but not equal to file name (case-insensitive)
-        cleanupExistingFile(file, fileName);
+    /**
+     * Determine the commit time of the last commit in the project's git repository.
+     *
+     * @return commit time in seconds since epoch or null, if it can not be determined
+     */
+    String readGitCommitTime() {
+        Long commitTime = getGitMetadata().getCommitTime();
+        return commitTime == null ? null : String.valueOf(commitTime);
+    }
 
-        return Files.newOutputStream(file.toPath());
+    /**
+     * Get the git metadata of the project's repository. Modules of the same repository share the metadata, which is
+     * read from the git directory only once per build.
+     *
+     * @return git metadata, without values if the project is not part of a readable git repository
+     */
+    GitMetadata getGitMetadata() {
+        GitMetadata metadata = GitMetadataCache.forSession(session).get(project.getBasedir());
+        if (metadata.getCommit() == null) {
+            getLog().warn("No git commit found for " + project.getBasedir() + ".");
+        }
+        return metadata;
     }
 
     /**
-     * Delete file that exists under a name that is similar, but not equal to file name (case-insensitive).
+     * Determine the content for the creation of parent artifacts. Sibling modules share the rendered definition.
      *
-     * @param file     file including path
-     * @param fileName file name to check
+     * @return list of parent artifact instantiations as string
      */
-    protected void cleanupExistingFile(File file, String fileName) {
-        if (file.exists() && !checkFileExistsCaseSensitive(file, fileName)) {
-            try {
-                Files.delete(file.toPath());
-            } catch (InvalidPathException | IOException e) {
-                getLog().warn(
-                        "Unable to remove file with different name before generating new artifact version service file. Try cleaning project first.");
-            }
+    String getParentArtifactDefinition() {
+        MavenProject parent = project.getParent();
+        if (parent == null) {
+            return "";
         }
+        FlightRecorderEvents.Event event = FlightRecorderEvents.begin(FlightRecorderEvents.PARENT_CHAIN);
+        String definition = ParentChainCache.forSession(session).getDefinition(parent);
+        event.commit(project, null, definition.length());
+        return definition;
     }
 
     /**
-     * Check if a file exists with another combination of uppercase and lowercase characters. May be important when
-     * generating a new service class on a Windows or macOS system.
+     * Check whether the service is registered with a bean method of the autoconfiguration class.
      *
-     * @param file     the file to check
-     * @param fileName the expected file name to compare to
-     * @return whether a file with different spelling exists
+     * @return whether to register the service with a bean method instead of component scanning
      */
-    protected boolean checkFileExistsCaseSensitive(File file, String fileName) {
-        try {
-            return file.getCanonicalFile().getName().equals(fileName);
-        } catch (IOException exception) {
-            return false;
+    boolean isBeanMethodRegistration() {
+        return serviceType.equals(ServiceType.SPRING_BOOT) && !skipSpringBootAutoConfiguration
+                && springRegistration == SpringRegistration.BEAN_METHOD;
+    }
+
+    /**
+     * Determine the name of the service bean, the same name Spring derives from the class name when scanning it.
+     *
+     * @param className simple class name
+     * @return bean name, class name with lower case first character (unless the first two characters are upper case)
+     */
+    static String getBeanName(String className) {
+        if (className == null || className.isEmpty() || className.length() > 1
+                && Character.isUpperCase(className.charAt(0)) && Character.isUpperCase(className.charAt(1))) {
+            return className;
         }
+        return Character.toLowerCase(className.charAt(0)) + className.substring(1);
+    }
+
+    /**
+     * Strings in pom.xml files may contain line breaks. Replace these by backslash n to have valid String constants in
+     * generated service class files.
+     *
+     * @param input the input string from pom.xml
+     * @return correct string for service class
+     */
+    static String replaceLineFeeds(String input) {
+        return input == null ? null : normalizeLineFeeds(input).replace(LINE_FEED, "\\n");
+    }
+
+    /**
+     * Normalize line breaks and tabs in strings from pom.xml files, so that class files and generated source files
+     * (and binary indexes) carry the same values, independent of the line separators of the pom.xml file.
+     *
+     * @param input the input string from pom.xml
+     * @return string with line feeds as line breaks and spaces instead of tabs
+     */
+    static String normalizeLineFeeds(String input) {
+        return input == null ? null : input.replace("\r\n", LINE_FEED).replace('\t', ' ');
     }
 
     /**
@@ -507,21 +927,12 @@ public class GenerateServiceMojo extends AbstractMojo {
      * @return the resource file name to use
      */
     protected String getTemplateResourceFileName() {
-        String infix = serviceType.equals(ServiceType.NATIVE) ? "" : "-spring-boot";
+        // services registered with a bean method do not need to be annotated for component scanning
+        String infix = serviceType.equals(ServiceType.NATIVE) || isBeanMethodRegistration() ? "" : "-spring-boot";
         final String fileNamePrefix = "service-template";
         if (project.getParent() != null) {
             return fileNamePrefix + infix + "-with-parent.txt";
         }
         return fileNamePrefix + infix + ".txt";
     }
-
-    /**
-     * Get service class template resource as input stream.
-     *
-     * @param templateResourceFileName name of the template file
-     * @return the input stream
-     */
-    protected InputStream createServiceTemplateResourceStream(String templateResourceFileName) {
-        return getClass().getResourceAsStream(templateResourceFileName);
-    }
 }
@@ -0,0 +1,281 @@
+package de.westemeyer.plugins.maven.versions;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Timings and I/O statistics of a single execution generating files, written as machine-readable JSON report. Stage
+ * timings do not overlap, so they add up to (almost) the total duration of the execution. Not thread-safe, every
+ * execution (and every module of the reactor goal) has metrics of its own.
+ */
+final class GenerationMetrics {
+    /**
+     * Stage: set up parameters, class names, build timestamp and template values.
+     */
+    static final String PARAMETERS = "parameters";
+
+    /**
+     * Stage: find version services of dependencies (registry only).
+     */
+    static final String DEPENDENCIES = "dependencies";
+
+    /**
+     * Stage: load and parse templates.
+     */
+    static final String TEMPLATES = "templates";
+
+    /**
+     * Stage: render templates, bytecode or binary index.
+     */
+    static final String RENDERING = "rendering";
+
+    /**
+     * Stage: create output directories.
+     */
+    static final String DIRECTORIES = "directories";
+
+    /**
+     * Stage: write (or skip) source, class and resource files.
+     */
+    static final String FILES = "files";
+
+    /**
+     * Stage: write (or skip) service manifests.
+     */
+    static final String MANIFESTS = "manifests";
+
+    /**
+     * Stage: remove stale files and write the state file.
+     */
+    static final String STALE_FILES = "staleFiles";
+
+    /**
+     * Separator of JSON object members and array elements.
+     */
+    private static final String SEPARATOR = ", ";
+
+    /**
+     * Accumulated durations of all stages (in nanoseconds), in order of their first occurrence.
+     */
+    private final Map<String, Long> stages = new LinkedHashMap<>();
+
+    /**
+     * All files generated by the execution, in order of generation.
+     */
+    private final List<FileMetrics> files = new ArrayList<>();
+
+    /**
+     * Module coordinates (groupId:artifactId:version).
+     */
+    private String module;
+
+    /**
+     * Goal and execution ID.
+     */
+    private String execution;
+
+    /**
+     * Total duration of the execution in nanoseconds.
+     */
+    private long totalNanos;
+
+    /**
+     * Add the duration of a stage.
+     *
+     * @param stage the stage
+     * @param nanos duration in nanoseconds
+     */
+    void addStage(String stage, long nanos) {
+        stages.merge(stage, nanos, Long::sum);
+    }
+
+    /**
+     * Add a generated file (also adding its duration to the stage).
+     *
+     * @param stage   the stage, {@link #FILES} or {@link #MANIFESTS}
+     * @param file    the generated file
+     * @param bytes   size of the file content
+     * @param written whether the file has been written (or left unchanged)
+     * @param nanos   duration of comparing and writing the file in nanoseconds
+     */
+    void addFile(String stage, Path file, long bytes, boolean written, long nanos) {
+        addStage(stage, nanos);
+        files.add(new FileMetrics(file, bytes, written, nanos));
+    }
+
+    /**
+     * Complete the metrics of an execution.
+     *
+     * @param coordinates  module coordinates
+     * @param executionKey goal and execution ID
+     * @param duration     total duration in nanoseconds
+     */
+    void finish(String coordinates, String executionKey, long duration) {
+        module = coordinates;
+        execution = executionKey;
+        totalNanos = duration;
+    }
+
+    /**
+     * Get the accumulated stage durations.
+     *
+     * @return durations in nanoseconds by stage
+     */
+    Map<String, Long> getStages() {
+        return stages;
+    }
+
+    /**
+     * Get the total duration of the execution.
+     *
+     * @return total duration in nanoseconds
+     */
+    long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * Get the number of files written.
+     *
+     * @return number of files written
+     */
+    int getFilesWritten() {
+        return (int) files.stream().filter(file -> file.written).count();
+    }
+
+    /**
+     * Get the number of files left unchanged.
+     *
+     * @return number of files skipped
+     */
+    int getFilesSkipped() {
+        return files.size() - getFilesWritten();
+    }
+
+    /**
+     * Get the number of bytes written.
+     *
+     * @return number of bytes written
+     */
+    long getBytesWritten() {
+        return files.stream().filter(file -> file.written).mapToLong(file -> file.bytes).sum();
+    }
+
+    /**
+     * Render the metrics as JSON object.
+     *
+     * @param buildDirectory directory file paths are relative to (files are omitted, if null)
+     * @return JSON representation
+     */
+    String toJson(Path buildDirectory) {
+        StringBuilder json = new StringBuilder("{");
+        json.append("\"module\": ").append(quote(module));
+        json.append(SEPARATOR).append("\"execution\": ").append(quote(execution));
+        appendSummary(json, totalNanos, getFilesWritten(), getFilesSkipped(), getBytesWritten(), stages);
+        if (buildDirectory != null) {
+            json.append(SEPARATOR).append("\"files\": [");
+            for (int i = 0; i < files.size(); i++) {
+                FileMetrics file = files.get(i);
+                json.append(i > 0 ? SEPARATOR : "").append("{\"path\": ")
+                        .append(quote(AbstractArtifactVersionMojo.relativize(buildDirectory, file.path)))
+                        .append(SEPARATOR).append("\"bytes\": ").append(file.bytes)
+                        .append(SEPARATOR).append("\"written\": ").append(file.written)
+                        .append(SEPARATOR).append("\"nanos\": ").append(file.nanos).append('}');
+            }
+            json.append(']');
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * Append the summary members shared by execution and reactor reports.
+     *
+     * @param json         the JSON buffer
+     * @param totalNanos   total duration in nanoseconds
+     * @param filesWritten number of files written
+     * @param filesSkipped number of files skipped
+     * @param bytesWritten number of bytes written
+     * @param stages       durations in nanoseconds by stage
+     */
+    static void appendSummary(StringBuilder json, long totalNanos, int filesWritten, int filesSkipped,
+                              long bytesWritten, Map<String, Long> stages) {
+        json.append(SEPARATOR).append("\"totalNanos\": ").append(totalNanos);
+        json.append(SEPARATOR).append("\"filesWritten\": ").append(filesWritten);
+        json.append(SEPARATOR).append("\"filesSkipped\": ").append(filesSkipped);
+        json.append(SEPARATOR).append("\"bytesWritten\": ").append(bytesWritten);
+        json.append(SEPARATOR).append("\"stageNanos\": {");
+        String separator = "";
+        for (Map.Entry<String, Long> stage : stages.entrySet()) {
+            json.append(separator).append(quote(stage.getKey())).append(": ").append(stage.getValue());
+            separator = SEPARATOR;
+        }
+        json.append('}');
+    }
+
+    /**
+     * Quote and escape a JSON string.
+     *
+     * @param value the string value (may be null)
+     * @return JSON string literal or null
+     */
+    static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < ' ') {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * Statistics of a single generated file.
+     */
+    private static final class FileMetrics {
+        /**
+         * The generated file.
+         */
+        private final Path path;
+
+        /**
+         * Size of the file content.
+         */
+        private final long bytes;
+
+        /**
+         * Whether the file has been written.
+         */
+        private final boolean written;
+
+        /**
+         * Duration of comparing and writing the file in nanoseconds.
+         */
+        private final long nanos;
+
+        /**
+         * Create new file statistics.
+         *
+         * @param path    the generated file
+         * @param bytes   size of the file content
+         * @param written whether the file has been written
+         * @param nanos   duration in nanoseconds
+         */
+        private FileMetrics(Path path, long bytes, boolean written, long nanos) {
+            this.path = path;
+            this.bytes = bytes;
+            this.written = written;
+            this.nanos = nanos;
+        }
+    }
+}
@@ -0,0 +1,677 @@
+package de.westemeyer.plugins.maven.versions;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Git metadata (commit ID, branch and commit time of HEAD) of a repository, read from the git directory directly
+ * instead of starting a git process. HEAD is resolved through loose and packed refs, the commit is read from a loose
+ * object or a pack file (following delta chains). Linked work trees and submodules (git directories referenced by a
+ * <code>.git</code> file) are supported, the dirty state of the work tree is not determined.
+ */
+final class GitMetadata {
+    /**
+     * Metadata of directories outside any (readable) git repository.
+     */
+    static final GitMetadata NONE = new GitMetadata(null, null, null);
+
+    /**
+     * Name of the git directory (or file pointing to it) in the root of the work tree.
+     */
+    private static final String GIT_DIRECTORY = ".git";
+
+    /**
+     * Prefix of symbolic refs.
+     */
+    private static final String SYMBOLIC_REF_PREFIX = "ref: ";
+
+    /**
+     * Prefix of the git directory reference in <code>.git</code> files.
+     */
+    private static final String GIT_DIRECTORY_PREFIX = "gitdir: ";
+
+    /**
+     * Prefix of local branch refs.
+     */
+    private static final String BRANCH_PREFIX = "refs/heads/";
+
+    /**
+     * Maximum number of symbolic refs followed (like git does).
+     */
+    private static final int MAX_SYMBOLIC_REFS = 5;
+
+    /**
+     * Maximum length of delta chains, protects against cycles in corrupt pack files.
+     */
+    private static final int MAX_DELTA_DEPTH = 4096;
+
+    /**
+     * Signature of version 2 pack index files.
+     */
+    private static final byte[] PACK_INDEX_SIGNATURE = {(byte) 0xff, 't', 'O', 'c'};
+
+    /**
+     * Size of the pack index header: signature and version.
+     */
+    private static final int PACK_INDEX_HEADER_SIZE = 8;
+
+    /**
+     * Number of entries of the fan-out table of pack index files.
+     */
+    private static final int FAN_OUT_SIZE = 256;
+
+    /**
+     * Object type names, by pack object type number.
+     */
+    private static final List<String> OBJECT_TYPES = Arrays.asList("", "commit", "tree", "blob", "tag");
+
+    /**
+     * Pack object type of commits.
+     */
+    private static final int COMMIT = 1;
+
+    /**
+     * Pack object type of deltas against a base at a relative offset in the same pack.
+     */
+    private static final int OFFSET_DELTA = 6;
+
+    /**
+     * Pack object type of deltas against a base identified by its object ID.
+     */
+    private static final int REFERENCE_DELTA = 7;
+
+    /**
+     * Flag of continued variable length numbers and of copy instructions in deltas.
+     */
+    private static final int CONTINUATION = 0x80;
+
+    /**
+     * Mask of the payload bits of variable length numbers.
+     */
+    private static final int PAYLOAD = 0x7f;
+
+    /**
+     * ID of the commit HEAD points to.
+     */
+    private final String commit;
+
+    /**
+     * Name of the checked out branch (null for a detached HEAD).
+     */
+    private final String branch;
+
+    /**
+     * Commit time of the HEAD commit in seconds since epoch.
+     */
+    private final Long commitTime;
+
+    /**
+     * Create new git metadata.
+     *
+     * @param commit     commit ID (may be null)
+     * @param branch     branch name (may be null)
+     * @param commitTime commit time in seconds since epoch (may be null)
+     */
+    GitMetadata(String commit, String branch, Long commitTime) {
+        this.commit = commit;
+        this.branch = branch;
+        this.commitTime = commitTime;
+    }
+
+    /**
+     * Get the ID of the commit HEAD points to.
+     *
+     * @return commit ID or null, if there is no commit (or no repository)
+     */
+    String getCommit() {
+        return commit;
+    }
+
+    /**
+     * Get the name of the checked out branch.
+     *
+     * @return branch name or null for a detached HEAD (or no repository)
+     */
+    String getBranch() {
+        return branch;
+    }
+
+    /**
+     * Get the commit time of the HEAD commit.
+     *
+     * @return commit time in seconds since epoch or null, if there is no commit (or no repository)
+     */
+    Long getCommitTime() {
+        return commitTime;
+    }
+
+    /**
+     * Find the root of the work tree containing a directory.
+     *
+     * @param directory the directory (e.g. a module's base directory)
+     * @return work tree root or null, if the directory is not part of a git repository
+     */
+    static File findWorkTree(File directory) {
+        for (File candidate = directory.getAbsoluteFile(); candidate != null; candidate = candidate.getParentFile()) {
+            if (new File(candidate, GIT_DIRECTORY).exists()) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Read the metadata of HEAD in a work tree.
+     *
+     * @param workTree root of the work tree
+     * @return git metadata
+     * @throws IOException in case the repository can not be read
+     */
+    static GitMetadata read(File workTree) throws IOException {
+        File gitDirectory = getGitDirectory(workTree);
+
+        // linked work trees have their own HEAD, but share refs and objects with the main work tree
+        File commonDirectory = gitDirectory;
+        File commonDirectoryFile = new File(gitDirectory, "commondir");
+        if (commonDirectoryFile.isFile()) {
+            commonDirectory = resolve(gitDirectory, readFirstLine(commonDirectoryFile));
+        }
+
+        String value = readFirstLine(new File(gitDirectory, "HEAD"));
+        String branch = null;
+        for (int i = 0; value != null && value.startsWith(SYMBOLIC_REF_PREFIX); i++) {
+            if (i == MAX_SYMBOLIC_REFS) {
+                throw new IOException("Too many symbolic refs in " + gitDirectory);
+            }
+            String ref = value.substring(SYMBOLIC_REF_PREFIX.length()).trim();
+            if (i == 0 && ref.startsWith(BRANCH_PREFIX)) {
+                branch = ref.substring(BRANCH_PREFIX.length());
+            }
+            value = readRef(gitDirectory, commonDirectory, ref);
+        }
+
+        // a branch without any commits yet
+        if (value == null) {
+            return new GitMetadata(null, branch, null);
+        }
+        if (!isObjectId(value)) {
+            throw new IOException("Invalid object ID " + value + " in " + gitDirectory);
+        }
+        GitObject object = readObject(new File(commonDirectory, "objects"), value, 0);
+        if (object.type != COMMIT) {
+            throw new IOException("HEAD does not point to a commit: " + value);
+        }
+        return new GitMetadata(value, branch, parseCommitTime(
+                StandardCharsets.UTF_8.decode(ByteBuffer.wrap(object.data)).toString()));
+    }
+
+    /**
+     * Get the git directory of a work tree, following <code>.git</code> files of linked work trees and submodules.
+     *
+     * @param workTree root of the work tree
+     * @return the git directory
+     * @throws IOException in case the <code>.git</code> file can not be read
+     */
+    static File getGitDirectory(File workTree) throws IOException {
+        File gitDirectory = new File(workTree, GIT_DIRECTORY);
+        if (gitDirectory.isDirectory()) {
+            return gitDirectory;
+        }
+        String reference = readFirstLine(gitDirectory);
+        if (reference == null || !reference.startsWith(GIT_DIRECTORY_PREFIX)) {
+            throw new IOException("Invalid git directory reference in " + gitDirectory);
+        }
+        return resolve(workTree, reference.substring(GIT_DIRECTORY_PREFIX.length()));
+    }
+
+    /**
+     * Read the value of a ref, either from its loose file or from the packed refs.
+     *
+     * @param gitDirectory    git directory of the work tree
+     * @param commonDirectory git directory shared by all work trees
+     * @param ref             full ref name (e.g. refs/heads/main)
+     * @return object ID or symbolic ref, null if the ref does not exist
+     * @throws IOException in case a ref file can not be read
+     */
+    static String readRef(File gitDirectory, File commonDirectory, String ref) throws IOException {
+        for (File directory : Arrays.asList(gitDirectory, commonDirectory)) {
+            File file = new File(directory, ref);
+            if (file.isFile()) {
+                return readFirstLine(file);
+            }
+        }
+
+        // refs are packed by git gc and in fresh clones
+        File packedRefs = new File(commonDirectory, "packed-refs");
+        if (!packedRefs.isFile()) {
+            return null;
+        }
+        for (String line : Files.readAllLines(packedRefs.toPath(), StandardCharsets.UTF_8)) {
+            // skip the header and peeled tags
+            int separator = line.indexOf(' ');
+            if (!line.startsWith("#") && !line.startsWith("^") && separator > 0
+                    && line.substring(separator + 1).trim().equals(ref)) {
+                return line.substring(0, separator);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parse the committer time from the content of a commit object.
+     *
+     * @param content commit object content
+     * @return commit time in seconds since epoch or null, if the commit has no (valid) committer
+     */
+    static Long parseCommitTime(String content) {
+        for (String line : content.split("\n")) {
+            // headers end with an empty line, the message follows
+            if (line.isEmpty()) {
+                break;
+            }
+            if (line.startsWith("committer ")) {
+                // committer name <email> seconds timezone
+                String[] time = line.substring(line.lastIndexOf('>') + 1).trim().split(" ");
+                try {
+                    return Long.valueOf(time[0]);
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Read an object, loose or packed.
+     *
+     * @param objects object directory
+     * @param id      object ID
+     * @param depth   number of deltas already followed
+     * @return the object
+     * @throws IOException in case the object can not be found or read
+     */
+    private static GitObject readObject(File objects, String id, int depth) throws IOException {
+        File loose = new File(objects, id.substring(0, 2) + File.separator + id.substring(2));
+        if (loose.isFile()) {
+            return readLooseObject(loose);
+        }
+        File[] indexes = new File(objects, "pack").listFiles((directory, name) -> name.endsWith(".idx"));
+        if (indexes != null) {
+            for (File index : indexes) {
+                long offset = findOffset(index, toBytes(id));
+                if (offset >= 0) {
+                    String name = index.getName();
+                    File pack = new File(index.getParentFile(), name.substring(0, name.length() - 4) + ".pack");
+                    try (RandomAccessFile file = new RandomAccessFile(pack, "r")) {
+                        return readPackedObject(objects, file, offset, id.length() / 2, depth);
+                    }
+                }
+            }
+        }
+        throw new IOException("Object " + id + " not found in " + objects);
+    }
+
+    /**
+     * Read a loose (zlib compressed) object.
+     *
+     * @param file object file
+     * @return the object
+     * @throws IOException in case the object can not be read
+     */
+    private static GitObject readLooseObject(File file) throws IOException {
+        String invalidHeader = "Invalid object header in " + file;
+        Inflater inflater = new Inflater();
+        try (InputStream stream = new FileInputStream(file)) {
+            DataInputStream in = new DataInputStream(new InflaterInputStream(stream, inflater));
+
+            // header: type name, space, decimal size, zero byte
+            StringBuilder header = new StringBuilder();
+            for (int c = in.read(); c != 0; c = in.read()) {
+                if (c < 0) {
+                    throw new EOFException(invalidHeader);
+                }
+                header.append((char) c);
+            }
+            int separator = header.indexOf(" ");
+            int type = separator < 0 ? -1 : OBJECT_TYPES.indexOf(header.substring(0, separator));
+            if (type <= 0) {
+                throw new IOException(invalidHeader);
+            }
+            byte[] data = new byte[Integer.parseInt(header.substring(separator + 1))];
+            in.readFully(data);
+            return new GitObject(type, data);
+        } catch (NumberFormatException e) {
+            throw new IOException(invalidHeader, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Look up the offset of an object in a (version 2) pack index.
+     *
+     * @param index pack index file
+     * @param id    binary object ID
+     * @return offset of the object in the pack file or -1, if the pack does not contain the object
+     * @throws IOException in case the index can not be read
+     */
+    static long findOffset(File index, byte[] id) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(index, "r")) {
+            byte[] signature = new byte[PACK_INDEX_SIGNATURE.length];
+            file.readFully(signature);
+            if (!Arrays.equals(signature, PACK_INDEX_SIGNATURE) || file.readInt() != 2) {
+                throw new IOException("Unsupported pack index " + index);
+            }
+
+            // the fan-out table holds the number of objects with a first byte less than or equal to its index
+            int first = id[0] & 0xff;
+            int low = 0;
+            if (first > 0) {
+                file.seek(PACK_INDEX_HEADER_SIZE + (first - 1) * 4L);
+                low = file.readInt();
+            }
+            file.seek(PACK_INDEX_HEADER_SIZE + first * 4L);
+            int high = file.readInt();
+            file.seek(PACK_INDEX_HEADER_SIZE + (FAN_OUT_SIZE - 1) * 4L);
+            long count = file.readInt();
+
+            // binary search in the sorted object IDs, followed by checksums and offsets
+            long ids = PACK_INDEX_HEADER_SIZE + FAN_OUT_SIZE * 4L;
+            byte[] candidate = new byte[id.length];
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                file.seek(ids + middle * (long) id.length);
+                file.readFully(candidate);
+                int comparison = compare(candidate, id);
+                if (comparison < 0) {
+                    low = middle + 1;
+                } else if (comparison > 0) {
+                    high = middle;
+                } else {
+                    long offsets = ids + count * (id.length + 4L);
+                    file.seek(offsets + middle * 4L);
+                    long offset = file.readInt() & 0xffffffffL;
+                    // offsets beyond 2 GB are stored in a separate table of 8 byte offsets
+                    if ((offset & 0x80000000L) != 0) {
+                        file.seek(offsets + count * 4L + (offset & 0x7fffffffL) * 8L);
+                        offset = file.readLong();
+                    }
+                    return offset;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Read an object from a pack file, resolving deltas.
+     *
+     * @param objects  object directory (to look up bases of reference deltas)
+     * @param file     pack file
+     * @param offset   offset of the object in the pack file
+     * @param idLength length of binary object IDs
+     * @param depth    number of deltas already followed
+     * @return the object
+     * @throws IOException in case the object can not be read
+     */
+    private static GitObject readPackedObject(File objects, RandomAccessFile file, long offset, int idLength,
+                                              int depth) throws IOException {
+        if (depth > MAX_DELTA_DEPTH) {
+            throw new IOException("Delta chain too long in " + objects);
+        }
+
+        // header: type and size, the size continues in 7 bit groups
+        file.seek(offset);
+        int c = file.readUnsignedByte();
+        int type = (c >> 4) & 7;
+        long size = c & 0x0f;
+        for (int shift = 4; (c & CONTINUATION) != 0; shift += 7) {
+            c = file.readUnsignedByte();
+            size |= (long) (c & PAYLOAD) << shift;
+        }
+
+        GitObject base = null;
+        if (type == OFFSET_DELTA) {
+            c = file.readUnsignedByte();
+            long distance = c & PAYLOAD;
+            while ((c & CONTINUATION) != 0) {
+                c = file.readUnsignedByte();
+                distance = ((distance + 1) << 7) | (c & PAYLOAD);
+            }
+            long position = file.getFilePointer();
+            base = readPackedObject(objects, file, offset - distance, idLength, depth + 1);
+            file.seek(position);
+        } else if (type == REFERENCE_DELTA) {
+            byte[] baseId = new byte[idLength];
+            file.readFully(baseId);
+            long position = file.getFilePointer();
+            base = readObject(objects, toHex(baseId), depth + 1);
+            file.seek(position);
+        } else if (type <= 0 || type >= OBJECT_TYPES.size()) {
+            throw new IOException("Invalid pack object type " + type + " at offset " + offset);
+        }
+
+        byte[] data = inflate(file, size);
+        return base == null ? new GitObject(type, data) : new GitObject(base.type, applyDelta(base.data, data));
+    }
+
+    /**
+     * Inflate zlib compressed data at the current position of a pack file.
+     *
+     * @param file pack file
+     * @param size size of the inflated data
+     * @return inflated data
+     * @throws IOException in case the data can not be inflated
+     */
+    private static byte[] inflate(RandomAccessFile file, long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Object too large: " + size);
+        }
+        byte[] data = new byte[(int) size];
+        Inflater inflater = new Inflater();
+        try {
+            // do not close the stream, it would close the pack file
+            new DataInputStream(new InflaterInputStream(Channels.newInputStream(file.getChannel()), inflater))
+                    .readFully(data);
+            return data;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Apply a delta (copy and insert instructions) to its base.
+     *
+     * @param base  base object content
+     * @param delta delta data
+     * @return the resulting object content
+     * @throws IOException in case the delta is invalid
+     */
+    static byte[] applyDelta(byte[] base, byte[] delta) throws IOException {
+        ByteArrayInputStream in = new ByteArrayInputStream(delta);
+        if (readSize(in) != base.length) {
+            throw new IOException("Delta base size mismatch");
+        }
+        byte[] result = new byte[(int) readSize(in)];
+        int length = 0;
+        try {
+            for (int instruction = in.read(); instruction >= 0; instruction = in.read()) {
+                if ((instruction & CONTINUATION) != 0) {
+                    // copy from base: flags select the bytes of offset (4) and size (3) present
+                    int copyOffset = 0;
+                    int copySize = 0;
+                    for (int i = 0; i < 4; i++) {
+                        if ((instruction & (1 << i)) != 0) {
+                            copyOffset |= in.read() << (8 * i);
+                        }
+                    }
+                    for (int i = 0; i < 3; i++) {
+                        if ((instruction & (0x10 << i)) != 0) {
+                            copySize |= in.read() << (8 * i);
+                        }
+                    }
+                    copySize = copySize == 0 ? 0x10000 : copySize;
+                    System.arraycopy(base, copyOffset, result, length, copySize);
+                    length += copySize;
+                } else if (instruction > 0) {
+                    // insert the following bytes
+                    if (in.read(result, length, instruction) != instruction) {
+                        throw new EOFException("Truncated delta");
+                    }
+                    length += instruction;
+                } else {
+                    throw new IOException("Invalid delta instruction");
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Invalid delta", e);
+        }
+        if (length != result.length) {
+            throw new IOException("Delta result size mismatch");
+        }
+        return result;
+    }
+
+    /**
+     * Read a size from the header of a delta (little endian 7 bit groups).
+     *
+     * @param in delta data
+     * @return the size
+     * @throws IOException in case the delta ends prematurely
+     */
+    private static long readSize(InputStream in) throws IOException {
+        long size = 0;
+        int c;
+        int shift = 0;
+        do {
+            c = in.read();
+            if (c < 0) {
+                throw new EOFException("Truncated delta header");
+            }
+            size |= (long) (c & PAYLOAD) << shift;
+            shift += 7;
+        } while ((c & CONTINUATION) != 0);
+        return size;
+    }
+
+    /**
+     * Check whether a string is a (SHA-1 or SHA-256) object ID.
+     *
+     * @param value the string
+     * @return whether the string consists of 40 or 64 hex digits
+     */
+    static boolean isObjectId(String value) {
+        return (value.length() == 40 || value.length() == 64)
+                && value.chars().allMatch(c -> c >= '0' && c <= '9' || c >= 'a' && c <= 'f');
+    }
+
+    /**
+     * Convert a hex object ID into its binary form.
+     *
+     * @param id hex object ID
+     * @return binary object ID
+     */
+    static byte[] toBytes(String id) {
+        byte[] bytes = new byte[id.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(id.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+
+    /**
+     * Convert a binary object ID into its hex form.
+     *
+     * @param id binary object ID
+     * @return hex object ID
+     */
+    static String toHex(byte[] id) {
+        StringBuilder hex = new StringBuilder(id.length * 2);
+        for (byte b : id) {
+            hex.append(Character.forDigit((b >> 4) & 0x0f, 16)).append(Character.forDigit(b & 0x0f, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Compare two binary object IDs of the same length as unsigned bytes.
+     *
+     * @param first  first ID
+     * @param second second ID
+     * @return negative, zero or positive, if the first ID is less than, equal to or greater than the second
+     */
+    private static int compare(byte[] first, byte[] second) {
+        for (int i = 0; i < first.length; i++) {
+            int comparison = Integer.compare(first[i] & 0xff, second[i] & 0xff);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Resolve a path from a git file, which is either absolute or relative to the file's directory.
+     *
+     * @param directory directory of the git file
+     * @param path      the path
+     * @return the resolved file
+     */
+    private static File resolve(File directory, String path) {
+        File file = new File(path.trim());
+        return file.isAbsolute() ? file : new File(directory, path.trim());
+    }
+
+    /**
+     * Read the first line of a file.
+     *
+     * @param file the file
+     * @return first line (trimmed) or null, if the file is empty
+     * @throws IOException in case the file can not be read
+     */
+    private static String readFirstLine(File file) throws IOException {
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        return lines.isEmpty() ? null : lines.get(0).trim();
+    }
+
+    /**
+     * A git object: its type and content.
+     */
+    private static final class GitObject {
+        /**
+         * Object type (pack type number).
+         */
+        private final int type;
+
+        /**
+         * Object content.
+         */
+        private final byte[] data;
+
+        /**
+         * Create a new object.
+         *
+         * @param type object type
+         * @param data object content
+         */
+        private GitObject(int type, byte[] data) {
+            this.type = type;
+            this.data = data;
+        }
+    }
+}
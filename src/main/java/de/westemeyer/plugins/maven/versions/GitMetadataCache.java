@@ -0,0 +1,58 @@
+package de.westemeyer.plugins.maven.versions;
+
+import org.apache.maven.execution.MavenSession;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Thread-safe cache of git metadata, keyed by the root of the work tree. All modules of a reactor usually live in the
+ * same repository, so its metadata is read only once per build. Like the parent chain cache, the cache is stored in
+ * the session and never outlives a build, new commits are picked up by the next build of a build daemon.
+ */
+final class GitMetadataCache {
+    /**
+     * Git metadata, by work tree root.
+     */
+    private final ConcurrentMap<File, GitMetadata> metadata = new ConcurrentHashMap<>();
+
+    /**
+     * Get the git metadata cache of a build session.
+     *
+     * @param session the maven session (may be null, e.g. in tests)
+     * @return the session's cache or a new cache, if there is no session
+     */
+    static GitMetadataCache forSession(MavenSession session) {
+        return AbstractArtifactVersionMojo.getSessionObject(session, GitMetadataCache.class, GitMetadataCache::new);
+    }
+
+    /**
+     * Get the git metadata of the repository containing a directory.
+     *
+     * @param directory the directory (may be null)
+     * @return git metadata, {@link GitMetadata#NONE} if the directory is not part of a readable git repository
+     */
+    GitMetadata get(File directory) {
+        File workTree = directory == null ? null : GitMetadata.findWorkTree(directory);
+        if (workTree == null) {
+            return GitMetadata.NONE;
+        }
+        return metadata.computeIfAbsent(workTree, GitMetadataCache::read);
+    }
+
+    /**
+     * Read the git metadata of a work tree.
+     *
+     * @param workTree root of the work tree
+     * @return git metadata, {@link GitMetadata#NONE} if the repository can not be read
+     */
+    private static GitMetadata read(File workTree) {
+        try {
+            return GitMetadata.read(workTree);
+        } catch (IOException e) {
+            return GitMetadata.NONE;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package de.westemeyer.plugins.maven.versions;
+
+import java.io.File;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Helpers for java module descriptors (module-info.java) of projects providing generated services. Modular
+ * applications resolve services from the provides clauses of module descriptors, so jlink can bind them at link time,
+ * META-INF/services files are ignored on the module path.
+ */
+final class ModuleDescriptor {
+    /**
+     * File name of module descriptor sources.
+     */
+    static final String FILE_NAME = "module-info.java";
+
+    /**
+     * Comments in java source code.
+     */
+    private static final Pattern COMMENTS = Pattern.compile("//[^\\n]*|/\\*.*?\\*/", Pattern.DOTALL);
+
+    /**
+     * Provides clauses in module descriptors, the service and its comma separated providers.
+     */
+    private static final Pattern PROVIDES = Pattern.compile("\\bprovides\\s+([\\w.]+)\\s+with\\s+([^;]+);");
+
+    /**
+     * Characters that are not allowed in module names.
+     */
+    private static final Pattern INVALID_CHARACTERS = Pattern.compile("[^A-Za-z0-9]+");
+
+    /**
+     * Utility class constructor.
+     */
+    private ModuleDescriptor() {
+    }
+
+    /**
+     * Find the module descriptor in the source roots of a project.
+     *
+     * @param sourceRoots compile source roots of the project
+     * @param exclude     source root to ignore (the target folder of generated sources)
+     * @return the module descriptor source file, or null if the project does not have one
+     */
+    static File find(List<String> sourceRoots, File exclude) {
+        for (String sourceRoot : sourceRoots) {
+            File root = new File(sourceRoot);
+            File file = new File(root, FILE_NAME);
+            if (!root.getAbsoluteFile().equals(exclude.getAbsoluteFile()) && file.isFile()) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Check whether a module descriptor provides a service implementation.
+     *
+     * @param source   source code of the module descriptor
+     * @param service  fully qualified name of the service interface
+     * @param provider fully qualified name of the implementation
+     * @return whether a provides clause for the service lists the implementation
+     */
+    static boolean provides(String source, String service, String provider) {
+        String simpleName = service.substring(service.lastIndexOf('.') + 1);
+        Matcher matcher = PROVIDES.matcher(COMMENTS.matcher(source).replaceAll(" "));
+        while (matcher.find()) {
+            // the service interface may be imported
+            if (!matcher.group(1).equals(service) && !matcher.group(1).equals(simpleName)) {
+                continue;
+            }
+            for (String implementation : matcher.group(2).split(",")) {
+                if (implementation.trim().equals(provider)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Derive a module name from group ID and artifact ID, the same way automatic module names are derived from jar
+     * file names: sequences of characters other than letters and digits are replaced by dots.
+     *
+     * @param groupId    group ID of the project
+     * @param artifactId artifact ID of the project
+     * @return the module name
+     */
+    static String deriveModuleName(String groupId, String artifactId) {
+        String name = INVALID_CHARACTERS.matcher(groupId + "." + artifactId).replaceAll(".");
+        int start = 0;
+        int end = name.length();
+        while (start < end && name.charAt(start) == '.') {
+            start++;
+        }
+        while (end > start && name.charAt(end - 1) == '.') {
+            end--;
+        }
+        return name.substring(start, end);
+    }
+}
@@ -0,0 +1,22 @@
+package de.westemeyer.plugins.maven.versions;
+
+/**
+ * How to declare the generated service in the module descriptor (module-info) of modular projects.
+ */
+public enum ModuleInfoMode {
+    /**
+     * Do not look at module descriptors, the service is only declared in META-INF/services.
+     */
+    NONE,
+
+    /**
+     * Fail the build, if the project has a module descriptor that does not provide the generated service.
+     */
+    VERIFY,
+
+    /**
+     * Generate a module descriptor providing the generated service, if the project does not have one (otherwise
+     * verify the existing one).
+     */
+    GENERATE
+}
@@ -0,0 +1,80 @@
+package de.westemeyer.plugins.maven.versions;
+
+import java.util.List;
+
+/**
+ * GraalVM native image configuration for generated classes and resources. The native image builder picks up
+ * configuration files from {@value #DIRECTORY}&lt;groupId&gt;/&lt;artifactId&gt;/ in every jar on the class path, so
+ * generated services and their manifests survive native builds without any manual configuration.
+ */
+final class NativeImageMetadata {
+    /**
+     * Base directory of native image configuration files.
+     */
+    static final String DIRECTORY = "META-INF/native-image/";
+
+    /**
+     * Name of the reflection configuration file.
+     */
+    static final String REFLECT_CONFIG = "reflect-config.json";
+
+    /**
+     * Name of the resource configuration file.
+     */
+    static final String RESOURCE_CONFIG = "resource-config.json";
+
+    /**
+     * Separator of JSON array elements, one element per line.
+     */
+    private static final String SEPARATOR = ",\n";
+
+    /**
+     * Utility class constructor.
+     */
+    private NativeImageMetadata() {
+    }
+
+    /**
+     * Get the directory of the native image configuration files of a project.
+     *
+     * @param groupId    group ID of the project
+     * @param artifactId artifact ID of the project
+     * @return resource directory, ending with a slash
+     */
+    static String getDirectory(String groupId, String artifactId) {
+        return DIRECTORY + groupId + "/" + artifactId + "/";
+    }
+
+    /**
+     * Render the reflection configuration, registering the constructors and public methods of classes. Service loaders
+     * and Spring (without ahead of time processing) instantiate the generated classes reflectively.
+     *
+     * @param classNames fully qualified class names
+     * @return JSON content of the reflection configuration
+     */
+    static String toReflectConfig(List<String> classNames) {
+        StringBuilder json = new StringBuilder("[\n");
+        for (int i = 0; i < classNames.size(); i++) {
+            json.append(i > 0 ? SEPARATOR : "").append("  {\"name\": ")
+                    .append(GenerationMetrics.quote(classNames.get(i)))
+                    .append(", \"allDeclaredConstructors\": true, \"allPublicMethods\": true}");
+        }
+        return json.append("\n]\n").toString();
+    }
+
+    /**
+     * Render the resource configuration, including resources by their literal name.
+     *
+     * @param resourceNames resource names relative to the class path root
+     * @return JSON content of the resource configuration
+     */
+    static String toResourceConfig(List<String> resourceNames) {
+        StringBuilder json = new StringBuilder("{\n  \"resources\": {\n    \"includes\": [\n");
+        for (int i = 0; i < resourceNames.size(); i++) {
+            // patterns are regular expressions, quote the resource name
+            json.append(i > 0 ? SEPARATOR : "").append("      {\"pattern\": ")
+                    .append(GenerationMetrics.quote("\\Q" + resourceNames.get(i) + "\\E")).append('}');
+        }
+        return json.append("\n    ]\n  }\n}\n").toString();
+    }
+}
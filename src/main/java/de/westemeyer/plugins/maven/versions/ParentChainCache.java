@@ -0,0 +1,135 @@
+package de.westemeyer.plugins.maven.versions;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.project.MavenProject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Thread-safe cache of parent chains, keyed by the coordinates of the (direct) parent. Sibling modules share their
+ * parent chain, so it is walked and rendered only once per build. The cache is stored in the session, so it is shared
+ * by all modules of a reactor (also in parallel builds), but never outlives a build, not even in long-living build
+ * daemons where parent poms may change between builds.
+ */
+final class ParentChainCache {
+    /**
+     * Name (or prefix) of the generated parent artifact variable.
+     */
+    private static final String PARENT_VARIABLE_NAME = "parentArtifact";
+
+    /**
+     * Rendered parent artifact definitions for service class templates.
+     */
+    private final ConcurrentMap<String, String> definitions = new ConcurrentHashMap<>();
+
+    /**
+     * Parent artifact descriptors (sharing their own parents).
+     */
+    private final ConcurrentMap<String, ArtifactDescriptor> descriptors = new ConcurrentHashMap<>();
+
+    /**
+     * Get the parent chain cache of a build session.
+     *
+     * @param session the maven session (may be null, e.g. in tests)
+     * @return the session's cache or a new cache, if there is no session
+     */
+    static ParentChainCache forSession(MavenSession session) {
+        return AbstractArtifactVersionMojo.getSessionObject(session, ParentChainCache.class, ParentChainCache::new);
+    }
+
+    /**
+     * Get the parent artifact definition (source code) of a parent chain.
+     *
+     * @param parent the direct parent project
+     * @return parent artifact definitions, the direct parent being assigned to variable "parentArtifact"
+     */
+    String getDefinition(MavenProject parent) {
+        return definitions.computeIfAbsent(getCoordinates(parent), key -> renderDefinition(parent));
+    }
+
+    /**
+     * Get the artifact descriptor of a parent chain.
+     *
+     * @param parent the direct parent project (may be null)
+     * @return parent artifact descriptor (or null without parent)
+     */
+    ArtifactDescriptor getDescriptor(MavenProject parent) {
+        // walk up until an ancestor is found that has already been cached
+        List<MavenProject> missing = new ArrayList<>();
+        ArtifactDescriptor descriptor = null;
+        for (MavenProject project = parent; project != null; project = project.getParent()) {
+            descriptor = descriptors.get(getCoordinates(project));
+            if (descriptor != null) {
+                break;
+            }
+            missing.add(project);
+        }
+
+        // then add descriptors from there down to the direct parent
+        for (int i = missing.size() - 1; i >= 0; i--) {
+            MavenProject project = missing.get(i);
+            ArtifactDescriptor created = new ArtifactDescriptor(project.getGroupId(), project.getArtifactId(),
+                    project.getVersion(), descriptor);
+            ArtifactDescriptor existing = descriptors.putIfAbsent(getCoordinates(project), created);
+            descriptor = existing == null ? created : existing;
+        }
+        return descriptor;
+    }
+
+    /**
+     * Render the parent artifact definition of a parent chain in linear time, starting from the root.
+     *
+     * @param parent the direct parent project
+     * @return parent artifact definitions
+     */
+    static String renderDefinition(MavenProject parent) {
+        List<MavenProject> chain = new ArrayList<>();
+        for (MavenProject project = parent; project != null; project = project.getParent()) {
+            chain.add(project);
+        }
+
+        StringBuilder buffer = new StringBuilder(chain.size() * 128);
+        for (int i = chain.size() - 1; i >= 0; i--) {
+            MavenProject project = chain.get(i);
+            buffer.append("        BasicArtifact ").append(getVariableName(i)).append(" = new BasicArtifact(");
+            appendStringAndComma(buffer, project.getGroupId());
+            appendStringAndComma(buffer, project.getArtifactId());
+            appendStringAndComma(buffer, project.getVersion());
+            buffer.append(i + 1 < chain.size() ? getVariableName(i + 1) : "null").append(");\n");
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Get the variable name of a parent artifact.
+     *
+     * @param depth distance to the direct parent (0 for the direct parent)
+     * @return variable name
+     */
+    private static String getVariableName(int depth) {
+        return depth == 0 ? PARENT_VARIABLE_NAME : PARENT_VARIABLE_NAME + depth;
+    }
+
+    /**
+     * Convenience method used to append new content to a comma separated list.
+     *
+     * @param buffer  buffer to append to
+     * @param content content to append
+     */
+    private static void appendStringAndComma(StringBuilder buffer, String content) {
+        buffer.append('"').append(content).append("\", ");
+    }
+
+    /**
+     * Get the coordinates of a project as cache key.
+     *
+     * @param project the project
+     * @return group ID, artifact ID and version separated by colons
+     */
+    static String getCoordinates(MavenProject project) {
+        return project.getGroupId() + ':' + project.getArtifactId() + ':' + project.getVersion();
+    }
+}
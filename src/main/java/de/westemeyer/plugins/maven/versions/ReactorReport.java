@@ -0,0 +1,182 @@
+package de.westemeyer.plugins.maven.versions;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.project.MavenProject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregated report of all executions of a reactor build. Like the parent chain cache, the report is stored in the
+ * session, so it is shared by all modules (also in parallel builds). It is written to the build directory of the
+ * top-level project as soon as all expected executions have been added (or the last project of the reactor has been
+ * built), and rewritten with every execution added afterwards, so it is complete at the end of the build.
+ */
+final class ReactorReport {
+    /**
+     * Name of the report file in the build directory of the top-level project.
+     */
+    static final String FILE_NAME = "artifact-version-report.json";
+
+    /**
+     * Plugin key (groupId:artifactId) of this plugin.
+     */
+    static final String PLUGIN_KEY = "de.westemeyer:artifact-version-maven-plugin";
+
+    /**
+     * Goals writing reports.
+     */
+    private static final List<String> REPORTING_GOALS = Arrays.asList("generate-service", "generate-registry");
+
+    /**
+     * Metrics of all executions added so far.
+     */
+    private final List<GenerationMetrics> executions = new ArrayList<>();
+
+    /**
+     * Number of executions expected in this build.
+     */
+    private final int expectedExecutions;
+
+    /**
+     * The last project of the reactor (may be null).
+     */
+    private final MavenProject lastProject;
+
+    /**
+     * The report file (may be null, if there is no build directory to write it to).
+     */
+    private final Path reportFile;
+
+    /**
+     * Whether all expected executions have been added.
+     */
+    private boolean complete;
+
+    /**
+     * Create a new report.
+     *
+     * @param expectedExecutions number of executions expected in this build
+     * @param lastProject        the last project of the reactor (may be null)
+     * @param reportFile         the report file (may be null)
+     */
+    ReactorReport(int expectedExecutions, MavenProject lastProject, Path reportFile) {
+        this.expectedExecutions = expectedExecutions;
+        this.lastProject = lastProject;
+        this.reportFile = reportFile;
+    }
+
+    /**
+     * Get the report of a build session.
+     *
+     * @param session the maven session (may be null, e.g. in tests)
+     * @return the session's report or a new report (without report file), if there is no session
+     */
+    static ReactorReport forSession(MavenSession session) {
+        return AbstractArtifactVersionMojo.getSessionObject(session, ReactorReport.class, () -> {
+            List<MavenProject> projects = session == null || session.getProjects() == null ? Collections.emptyList()
+                    : session.getProjects();
+            return new ReactorReport(countExecutions(projects),
+                    projects.isEmpty() ? null : projects.get(projects.size() - 1),
+                    session == null ? null : getReportFile(session.getTopLevelProject()));
+        });
+    }
+
+    /**
+     * Determine the report file in the build directory of a project.
+     *
+     * @param project the (top-level) project
+     * @return the report file or null, if the project does not have a build directory
+     */
+    static Path getReportFile(MavenProject project) {
+        if (project == null || project.getBuild() == null || project.getBuild().getDirectory() == null) {
+            return null;
+        }
+        return new File(project.getBuild().getDirectory(), FILE_NAME).getAbsoluteFile().toPath();
+    }
+
+    /**
+     * Count the executions of reporting goals configured in the projects of the reactor. If there are none, the goal
+     * is probably invoked from the command line, so it is executed once for every project.
+     *
+     * @param projects all projects of the reactor
+     * @return number of expected executions
+     */
+    static int countExecutions(List<MavenProject> projects) {
+        int count = 0;
+        for (MavenProject project : projects) {
+            List<Plugin> plugins = project.getBuild() == null ? Collections.emptyList()
+                    : project.getBuild().getPlugins();
+            for (Plugin plugin : plugins) {
+                if (PLUGIN_KEY.equals(plugin.getKey())) {
+                    for (PluginExecution execution : plugin.getExecutions()) {
+                        count += (int) execution.getGoals().stream().filter(REPORTING_GOALS::contains).count();
+                    }
+                }
+            }
+        }
+        return count > 0 ? count : projects.size();
+    }
+
+    /**
+     * Add the metrics of an execution and write the report, if all expected executions have been added.
+     *
+     * @param metrics the metrics of the execution
+     * @param project the project of the execution
+     * @return the report file, if it has been written, otherwise null
+     * @throws IOException in case the report file can not be written
+     */
+    synchronized Path add(GenerationMetrics metrics, MavenProject project) throws IOException {
+        executions.add(metrics);
+        complete |= executions.size() >= expectedExecutions || project == lastProject;
+        if (!complete || reportFile == null) {
+            return null;
+        }
+
+        // writing while holding the lock makes sure an older report never replaces a newer one
+        Files.createDirectories(reportFile.getParent());
+        try (OutputStream outputStream = AtomicFileOutputStream.open(reportFile)) {
+            outputStream.write(AbstractArtifactVersionMojo.encode(toJson()));
+        }
+        return reportFile;
+    }
+
+    /**
+     * Render the report as JSON object, totals first.
+     *
+     * @return JSON representation
+     */
+    synchronized String toJson() {
+        long totalNanos = 0;
+        int filesWritten = 0;
+        int filesSkipped = 0;
+        long bytesWritten = 0;
+        Map<String, Long> stages = new LinkedHashMap<>();
+        for (GenerationMetrics execution : executions) {
+            totalNanos += execution.getTotalNanos();
+            filesWritten += execution.getFilesWritten();
+            filesSkipped += execution.getFilesSkipped();
+            bytesWritten += execution.getBytesWritten();
+            execution.getStages().forEach((stage, nanos) -> stages.merge(stage, nanos, Long::sum));
+        }
+
+        StringBuilder json = new StringBuilder("{\"executionCount\": ").append(executions.size());
+        GenerationMetrics.appendSummary(json, totalNanos, filesWritten, filesSkipped, bytesWritten, stages);
+        json.append(", \"executions\": [");
+        for (int i = 0; i < executions.size(); i++) {
+            json.append(i > 0 ? "," : "").append("\n  ").append(executions.get(i).toJson(null));
+        }
+        return json.append("\n]}\n").toString();
+    }
+}
@@ -0,0 +1,380 @@
+package de.westemeyer.plugins.maven.versions;
+
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.ModuleVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.util.List;
+
+/**
+ * Writes the bytecode of generated service classes directly, so modules do not need to run the java compiler just to
+ * compile generated artifact version services. The generated classes are equivalent to the ones compiled from the
+ * service templates (class file version of Java 8): the artifact is created once in the static initializer.
+ */
+final class ServiceClassWriter {
+    /**
+     * Internal name of the artifact version service interface.
+     */
+    private static final String ARTIFACT_VERSION_SERVICE = "de/westemeyer/version/core/api/ArtifactVersionService";
+
+    /**
+     * Internal name of the artifact class.
+     */
+    private static final String ARTIFACT = "de/westemeyer/version/core/model/Artifact";
+
+    /**
+     * Internal name of the basic artifact class (used for parents).
+     */
+    private static final String BASIC_ARTIFACT = "de/westemeyer/version/core/model/BasicArtifact";
+
+    /**
+     * Descriptor of the artifact constructor.
+     */
+    private static final String ARTIFACT_CONSTRUCTOR = "(Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;J"
+            + "Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Lde/westemeyer/version/core/model/ArtifactCoordinates;)V";
+
+    /**
+     * Descriptor of the basic artifact constructor.
+     */
+    private static final String BASIC_ARTIFACT_CONSTRUCTOR = "(Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;"
+            + "Lde/westemeyer/version/core/model/ArtifactCoordinates;)V";
+
+    /**
+     * Name of the static field holding the artifact.
+     */
+    private static final String ARTIFACT_FIELD = "ARTIFACT";
+
+    /**
+     * Internal name of the object class.
+     */
+    private static final String OBJECT = "java/lang/Object";
+
+    /**
+     * Name of constructor methods.
+     */
+    private static final String CONSTRUCTOR = "<init>";
+
+    /**
+     * Name of static initializer methods.
+     */
+    private static final String CLASS_INITIALIZER = "<clinit>";
+
+    /**
+     * Descriptor of constructors without arguments.
+     */
+    private static final String DEFAULT_CONSTRUCTOR = "()V";
+
+    /**
+     * Spring service annotation.
+     */
+    private static final String SERVICE_ANNOTATION = "Lorg/springframework/stereotype/Service;";
+
+    /**
+     * Spring configuration annotation.
+     */
+    private static final String CONFIGURATION_ANNOTATION = "Lorg/springframework/context/annotation/Configuration;";
+
+    /**
+     * Spring component scan annotation.
+     */
+    private static final String COMPONENT_SCAN_ANNOTATION = "Lorg/springframework/context/annotation/ComponentScan;";
+
+    /**
+     * Spring bean annotation.
+     */
+    private static final String BEAN_ANNOTATION = "Lorg/springframework/context/annotation/Bean;";
+
+    /**
+     * Internal name of the artifact version collector base class.
+     */
+    private static final String ARTIFACT_VERSION_COLLECTOR = "de/westemeyer/version/core/collector/AbstractArtifactVersionCollector";
+
+    /**
+     * Name of the static field holding the services of an aggregate class.
+     */
+    private static final String SERVICES_FIELD = "SERVICES";
+
+    /**
+     * Descriptor of list fields.
+     */
+    private static final String LIST = "Ljava/util/List;";
+
+    /**
+     * Utility class constructor.
+     */
+    private ServiceClassWriter() {
+    }
+
+    /**
+     * Write an artifact version service class.
+     *
+     * @param className     fully qualified class name
+     * @param artifact      the artifact to return from the service
+     * @param springService whether to annotate the class as Spring service
+     * @return class file content
+     */
+    static byte[] writeServiceClass(String className, ArtifactDescriptor artifact, boolean springService) {
+        String internalName = className.replace('.', '/');
+        ClassWriter classWriter = createClassWriter(className, ARTIFACT_VERSION_SERVICE);
+        if (springService) {
+            classWriter.visitAnnotation(SERVICE_ANNOTATION, true).visitEnd();
+        }
+        writeDefaultConstructor(classWriter);
+
+        // private static final Artifact ARTIFACT = new Artifact(..., parentArtifact);
+        String artifactDescriptor = "L" + ARTIFACT + ";";
+        classWriter.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, ARTIFACT_FIELD,
+                artifactDescriptor, null, null).visitEnd();
+        MethodVisitor initializer = classWriter.visitMethod(Opcodes.ACC_STATIC, CLASS_INITIALIZER, DEFAULT_CONSTRUCTOR, null,
+                null);
+        initializer.visitCode();
+        initializer.visitTypeInsn(Opcodes.NEW, ARTIFACT);
+        initializer.visitInsn(Opcodes.DUP);
+        pushString(initializer, artifact.groupId);
+        pushString(initializer, artifact.artifactId);
+        pushString(initializer, artifact.version);
+        initializer.visitLdcInsn(artifact.timestamp);
+        pushString(initializer, artifact.name);
+        pushString(initializer, artifact.description);
+        pushString(initializer, artifact.url);
+        pushParent(initializer, artifact.parent);
+        initializer.visitMethodInsn(Opcodes.INVOKESPECIAL, ARTIFACT, CONSTRUCTOR, ARTIFACT_CONSTRUCTOR, false);
+        initializer.visitFieldInsn(Opcodes.PUTSTATIC, internalName, ARTIFACT_FIELD, artifactDescriptor);
+        initializer.visitInsn(Opcodes.RETURN);
+        initializer.visitMaxs(0, 0);
+        initializer.visitEnd();
+
+        // public Artifact getArtifact() { return ARTIFACT; }
+        MethodVisitor method = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "getArtifact", "()" + artifactDescriptor,
+                null, null);
+        method.visitCode();
+        method.visitFieldInsn(Opcodes.GETSTATIC, internalName, ARTIFACT_FIELD, artifactDescriptor);
+        method.visitInsn(Opcodes.ARETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+
+        classWriter.visitEnd();
+        return classWriter.toByteArray();
+    }
+
+    /**
+     * Write a Spring configuration class scanning its package for the generated service.
+     *
+     * @param className fully qualified class name
+     * @return class file content
+     */
+    static byte[] writeConfigurationClass(String className) {
+        ClassWriter classWriter = createClassWriter(className, null);
+        classWriter.visitAnnotation(CONFIGURATION_ANNOTATION, true).visitEnd();
+        classWriter.visitAnnotation(COMPONENT_SCAN_ANNOTATION, true).visitEnd();
+        writeDefaultConstructor(classWriter);
+        classWriter.visitEnd();
+        return classWriter.toByteArray();
+    }
+
+    /**
+     * Write a Spring configuration class registering the generated service with a bean method. Bean methods are not
+     * proxied, so Spring does not need to create a CGLIB subclass of the configuration class.
+     *
+     * @param className        fully qualified class name
+     * @param serviceClassName fully qualified name of the service class
+     * @param beanName         name of the bean method (and bean)
+     * @return class file content
+     */
+    static byte[] writeBeanConfigurationClass(String className, String serviceClassName, String beanName) {
+        ClassWriter classWriter = createClassWriter(className, null);
+        AnnotationVisitor configuration = classWriter.visitAnnotation(CONFIGURATION_ANNOTATION, true);
+        configuration.visit("proxyBeanMethods", Boolean.FALSE);
+        configuration.visitEnd();
+        writeDefaultConstructor(classWriter);
+
+        // @Bean public ServiceClass beanName() { return new ServiceClass(); }
+        String serviceInternalName = serviceClassName.replace('.', '/');
+        MethodVisitor method = classWriter.visitMethod(Opcodes.ACC_PUBLIC, beanName,
+                "()L" + serviceInternalName + ";", null, null);
+        method.visitAnnotation(BEAN_ANNOTATION, true).visitEnd();
+        method.visitCode();
+        method.visitTypeInsn(Opcodes.NEW, serviceInternalName);
+        method.visitInsn(Opcodes.DUP);
+        method.visitMethodInsn(Opcodes.INVOKESPECIAL, serviceInternalName, CONSTRUCTOR, DEFAULT_CONSTRUCTOR, false);
+        method.visitInsn(Opcodes.ARETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+
+        classWriter.visitEnd();
+        return classWriter.toByteArray();
+    }
+
+    /**
+     * Write an artifact version collector aggregating a list of version services, so all services of a jar file are
+     * collected from a single provider instead of a service loader lookup per service. The services are created once
+     * in the static initializer.
+     *
+     * @param className    fully qualified class name
+     * @param serviceNames fully qualified names of the version service classes (with public default constructors)
+     * @return class file content
+     */
+    static byte[] writeAggregateClass(String className, List<String> serviceNames) {
+        String internalName = className.replace('.', '/');
+        ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        classWriter.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, internalName, null,
+                ARTIFACT_VERSION_COLLECTOR, null);
+        classWriter.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, SERVICES_FIELD, LIST,
+                null, null).visitEnd();
+
+        // public Aggregate() { super(); }
+        MethodVisitor constructor = classWriter.visitMethod(Opcodes.ACC_PUBLIC, CONSTRUCTOR, DEFAULT_CONSTRUCTOR, null,
+                null);
+        constructor.visitCode();
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, ARTIFACT_VERSION_COLLECTOR, CONSTRUCTOR, DEFAULT_CONSTRUCTOR,
+                false);
+        constructor.visitInsn(Opcodes.RETURN);
+        constructor.visitMaxs(0, 0);
+        constructor.visitEnd();
+
+        // SERVICES = Collections.unmodifiableList(Arrays.asList(new ArtifactVersionService[]{new A(), ...}));
+        MethodVisitor initializer = classWriter.visitMethod(Opcodes.ACC_STATIC, CLASS_INITIALIZER, DEFAULT_CONSTRUCTOR, null,
+                null);
+        initializer.visitCode();
+        initializer.visitLdcInsn(serviceNames.size());
+        initializer.visitTypeInsn(Opcodes.ANEWARRAY, ARTIFACT_VERSION_SERVICE);
+        for (int i = 0; i < serviceNames.size(); i++) {
+            String serviceName = serviceNames.get(i).replace('.', '/');
+            initializer.visitInsn(Opcodes.DUP);
+            initializer.visitLdcInsn(i);
+            initializer.visitTypeInsn(Opcodes.NEW, serviceName);
+            initializer.visitInsn(Opcodes.DUP);
+            initializer.visitMethodInsn(Opcodes.INVOKESPECIAL, serviceName, CONSTRUCTOR, DEFAULT_CONSTRUCTOR, false);
+            initializer.visitInsn(Opcodes.AASTORE);
+        }
+        initializer.visitMethodInsn(Opcodes.INVOKESTATIC, "java/util/Arrays", "asList",
+                "([Ljava/lang/Object;)" + LIST, false);
+        initializer.visitMethodInsn(Opcodes.INVOKESTATIC, "java/util/Collections", "unmodifiableList",
+                "(" + LIST + ")" + LIST, false);
+        initializer.visitFieldInsn(Opcodes.PUTSTATIC, internalName, SERVICES_FIELD, LIST);
+        initializer.visitInsn(Opcodes.RETURN);
+        initializer.visitMaxs(0, 0);
+        initializer.visitEnd();
+
+        // protected Iterable<ArtifactVersionService> getArtifactVersionServices() { return SERVICES; }
+        MethodVisitor method = classWriter.visitMethod(Opcodes.ACC_PROTECTED, "getArtifactVersionServices",
+                "()Ljava/lang/Iterable;", null, null);
+        method.visitCode();
+        method.visitFieldInsn(Opcodes.GETSTATIC, internalName, SERVICES_FIELD, LIST);
+        method.visitInsn(Opcodes.ARETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+
+        classWriter.visitEnd();
+        return classWriter.toByteArray();
+    }
+
+    /**
+     * Write a module descriptor providing the generated service. Module descriptors require class file version 53
+     * (Java 9), the service class itself is not affected.
+     *
+     * @param moduleName       name of the module
+     * @param requiredModule   name of the module containing the artifact version service interface
+     * @param serviceClassName fully qualified name of the service class
+     * @return class file content
+     */
+    static byte[] writeModuleInfo(String moduleName, String requiredModule, String serviceClassName) {
+        ClassWriter classWriter = new ClassWriter(0);
+        classWriter.visit(Opcodes.V9, Opcodes.ACC_MODULE, "module-info", null, null, null);
+        ModuleVisitor module = classWriter.visitModule(moduleName, 0, null);
+        module.visitRequire("java.base", Opcodes.ACC_MANDATED, null);
+        module.visitRequire(requiredModule, 0, null);
+        module.visitProvide(ARTIFACT_VERSION_SERVICE, serviceClassName.replace('.', '/'));
+        module.visitEnd();
+        classWriter.visitEnd();
+        return classWriter.toByteArray();
+    }
+
+    /**
+     * Check whether a fully qualified class name is valid in Java source code, bytecode would be written regardless.
+     *
+     * @param className fully qualified class name
+     * @return whether all name components are valid java identifiers
+     */
+    static boolean isValidClassName(String className) {
+        for (String component : className.split("\\.", -1)) {
+            if (component.isEmpty() || !Character.isJavaIdentifierStart(component.charAt(0))) {
+                return false;
+            }
+            for (int i = 1; i < component.length(); i++) {
+                if (!Character.isJavaIdentifierPart(component.charAt(i))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Create a class writer and start a public class.
+     *
+     * @param className     fully qualified class name
+     * @param interfaceName internal name of the implemented interface (may be null)
+     * @return the class writer
+     */
+    private static ClassWriter createClassWriter(String className, String interfaceName) {
+        // there are no branches, so there are no stack map frames to compute
+        ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        classWriter.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, className.replace('.', '/'), null,
+                OBJECT, interfaceName == null ? null : new String[]{interfaceName});
+        return classWriter;
+    }
+
+    /**
+     * Write a public constructor without arguments.
+     *
+     * @param classWriter the class writer
+     */
+    private static void writeDefaultConstructor(ClassWriter classWriter) {
+        MethodVisitor constructor = classWriter.visitMethod(Opcodes.ACC_PUBLIC, CONSTRUCTOR, DEFAULT_CONSTRUCTOR, null,
+                null);
+        constructor.visitCode();
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, OBJECT, CONSTRUCTOR, DEFAULT_CONSTRUCTOR, false);
+        constructor.visitInsn(Opcodes.RETURN);
+        constructor.visitMaxs(0, 0);
+        constructor.visitEnd();
+    }
+
+    /**
+     * Push a parent artifact (including its own parents) onto the operand stack.
+     *
+     * @param method the method to write to
+     * @param parent the parent artifact (may be null)
+     */
+    private static void pushParent(MethodVisitor method, ArtifactDescriptor parent) {
+        if (parent == null) {
+            method.visitInsn(Opcodes.ACONST_NULL);
+            return;
+        }
+        method.visitTypeInsn(Opcodes.NEW, BASIC_ARTIFACT);
+        method.visitInsn(Opcodes.DUP);
+        pushString(method, parent.groupId);
+        pushString(method, parent.artifactId);
+        pushString(method, parent.version);
+        pushParent(method, parent.parent);
+        method.visitMethodInsn(Opcodes.INVOKESPECIAL, BASIC_ARTIFACT, CONSTRUCTOR, BASIC_ARTIFACT_CONSTRUCTOR, false);
+    }
+
+    /**
+     * Push a string constant (or null) onto the operand stack.
+     *
+     * @param method the method to write to
+     * @param value  the string value
+     */
+    private static void pushString(MethodVisitor method, String value) {
+        if (value == null) {
+            method.visitInsn(Opcodes.ACONST_NULL);
+        } else {
+            method.visitLdcInsn(value);
+        }
+    }
+}
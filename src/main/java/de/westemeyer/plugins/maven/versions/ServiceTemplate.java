@@ -0,0 +1,226 @@
+package de.westemeyer.plugins.maven.versions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A service class template that has been parsed into a list of literal text segments and placeholders. Parsing is
+ * done only once per template resource, rendering a file is a single pass over the segments into one pre-sized
+ * buffer.
+ * <p>
+ * Placeholders have the form <code>${key}</code>. A placeholder enclosed in double quotes whose value is null is
+ * rendered as <code>null</code> (without quotes). Placeholders without a value are left untouched.
+ */
+final class ServiceTemplate {
+    /**
+     * Templates parsed from plugin resources. The cache lives as long as the plugin class loader, so it is shared by
+     * all modules of a reactor build and across builds in a Maven daemon.
+     */
+    private static final ConcurrentMap<String, ServiceTemplate> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * Placeholder prefix.
+     */
+    private static final String PLACEHOLDER_START = "${";
+
+    /**
+     * Java literal of null values.
+     */
+    private static final String NULL_LITERAL = "null";
+
+    /**
+     * Literal text segments, always one more than placeholders.
+     */
+    private final String[] literals;
+
+    /**
+     * Placeholder keys, the placeholder at index i follows literal i.
+     */
+    private final String[] keys;
+
+    /**
+     * Flags whether the placeholder at index i is enclosed in double quotes.
+     */
+    private final boolean[] quoted;
+
+    /**
+     * Accumulated length of all literal segments.
+     */
+    private final int literalLength;
+
+    /**
+     * Create a new template from its parsed segments.
+     *
+     * @param literals literal text segments
+     * @param keys     placeholder keys
+     * @param quoted   quoted flags of placeholders
+     */
+    private ServiceTemplate(String[] literals, String[] keys, boolean[] quoted) {
+        this.literals = literals;
+        this.keys = keys;
+        this.quoted = quoted;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Get a cached template.
+     *
+     * @param name template resource name
+     * @return the cached template or null, if it has not been cached yet
+     */
+    static ServiceTemplate getCached(String name) {
+        return CACHE.get(name);
+    }
+
+    /**
+     * Add a template to the cache, unless another thread has already done so.
+     *
+     * @param name     template resource name
+     * @param template the parsed template
+     * @return the template from the cache
+     */
+    static ServiceTemplate cache(String name, ServiceTemplate template) {
+        ServiceTemplate existing = CACHE.putIfAbsent(name, template);
+        return existing == null ? template : existing;
+    }
+
+    /**
+     * Parse template text into literal segments and placeholders.
+     *
+     * @param text the template text
+     * @return the parsed template
+     */
+    static ServiceTemplate parse(String text) {
+        List<String> literals = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        List<Boolean> quoted = new ArrayList<>();
+
+        // start of the current literal segment
+        int literalStart = 0;
+        int index = text.indexOf(PLACEHOLDER_START);
+        while (index >= 0) {
+            int end = text.indexOf('}', index);
+            if (end < 0) {
+                break;
+            }
+
+            // a placeholder is quoted, if it is directly enclosed in double quotes (quote may not be used twice)
+            boolean isQuoted = index > literalStart && text.charAt(index - 1) == '"' && end + 1 < text.length()
+                    && text.charAt(end + 1) == '"';
+            int placeholderStart = isQuoted ? index - 1 : index;
+            int placeholderEnd = isQuoted ? end + 2 : end + 1;
+
+            literals.add(text.substring(literalStart, placeholderStart));
+            keys.add(text.substring(index + PLACEHOLDER_START.length(), end));
+            quoted.add(isQuoted);
+            literalStart = placeholderEnd;
+            index = text.indexOf(PLACEHOLDER_START, literalStart);
+        }
+        literals.add(text.substring(literalStart));
+
+        boolean[] quotedArray = new boolean[quoted.size()];
+        for (int i = 0; i < quotedArray.length; i++) {
+            quotedArray[i] = quoted.get(i);
+        }
+        return new ServiceTemplate(literals.toArray(new String[0]), keys.toArray(new String[0]), quotedArray);
+    }
+
+    /**
+     * Render the template with the given values.
+     *
+     * @param values map of placeholder keys and values
+     * @return the rendered text
+     */
+    String render(Map<String, String> values) {
+        // look up values only once and determine the exact capacity of the output buffer
+        String[] resolved = new String[keys.length];
+        int length = literalLength;
+        for (int i = 0; i < keys.length; i++) {
+            resolved[i] = values.get(keys[i]);
+            length += resolved[i] == null ? keys[i].length() + PLACEHOLDER_START.length() + 3 : resolved[i].length() + 2;
+        }
+
+        StringBuilder out = new StringBuilder(length);
+        for (int i = 0; i < keys.length; i++) {
+            out.append(literals[i]);
+            String value = resolved[i];
+            if (value == null) {
+                if (quoted[i] && values.containsKey(keys[i])) {
+                    out.append(NULL_LITERAL);
+                } else {
+                    appendPlaceholder(out, i);
+                }
+            } else if (quoted[i]) {
+                out.append('"').append(value).append('"');
+            } else {
+                out.append(value);
+            }
+        }
+        out.append(literals[keys.length]);
+        return out.toString();
+    }
+
+    /**
+     * Append an unresolved placeholder as it appeared in the template text.
+     *
+     * @param out   output buffer
+     * @param index placeholder index
+     */
+    private void appendPlaceholder(StringBuilder out, int index) {
+        if (quoted[index]) {
+            out.append('"');
+        }
+        out.append(PLACEHOLDER_START).append(keys[index]).append('}');
+        if (quoted[index]) {
+            out.append('"');
+        }
+    }
+
+    /**
+     * Convert a string into a java string literal for generated source code.
+     *
+     * @param value the string (may be null)
+     * @return escaped string literal in double quotes, or null literal
+     */
+    static String toJavaLiteral(String value) {
+        if (value == null) {
+            return NULL_LITERAL;
+        }
+        StringBuilder buffer = new StringBuilder(value.length() + 2).append('"');
+        appendEscaped(buffer, value, 0, value.length());
+        return buffer.append('"').toString();
+    }
+
+    /**
+     * Append a part of a string escaped for a java string literal. Characters outside printable ASCII are written as
+     * unicode escapes, except for line feeds and carriage returns (unicode escapes of those would end the literal).
+     *
+     * @param buffer the buffer to append to
+     * @param value  the string
+     * @param start  start index (inclusive)
+     * @param end    end index (exclusive)
+     */
+    static void appendEscaped(StringBuilder buffer, String value, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char character = value.charAt(i);
+            if (character == '\n') {
+                buffer.append("\\n");
+            } else if (character == '\r') {
+                buffer.append("\\r");
+            } else if (character == '"' || character == '\\') {
+                buffer.append('\\').append(character);
+            } else if (character >= ' ' && character <= '~') {
+                buffer.append(character);
+            } else {
+                buffer.append(String.format("\\u%04x", (int) character));
+            }
+        }
+    }
+}
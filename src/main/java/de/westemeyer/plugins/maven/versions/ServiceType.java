@@ -12,5 +12,11 @@ public enum ServiceType {
     /**
      * Generate a Spring Boot service.
      */
-    SPRING_BOOT
+    SPRING_BOOT,
+
+    /**
+     * Generate a compact binary artifact index resource instead of a service class, nothing needs to be compiled. The
+     * index is not found by an ArtifactVersionCollector, registries generated by the generate-registry goal include it.
+     */
+    INDEX
 }
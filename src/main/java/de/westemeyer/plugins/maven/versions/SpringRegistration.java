@@ -0,0 +1,17 @@
+package de.westemeyer.plugins.maven.versions;
+
+/**
+ * How the generated autoconfiguration class registers the generated service with the Spring application context.
+ */
+public enum SpringRegistration {
+    /**
+     * Annotate the service class as {@code @Service} and let the autoconfiguration class scan its package.
+     */
+    COMPONENT_SCAN,
+
+    /**
+     * Register the service class with a {@code @Bean} method of the autoconfiguration class, which does not proxy its
+     * bean methods. Neither the package is scanned, nor is a CGLIB subclass of the autoconfiguration class created.
+     */
+    BEAN_METHOD
+}
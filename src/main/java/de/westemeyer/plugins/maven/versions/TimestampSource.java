@@ -0,0 +1,31 @@
+package de.westemeyer.plugins.maven.versions;
+
+/**
+ * The source of the build timestamp that is written to generated service classes.
+ */
+public enum TimestampSource {
+    /**
+     * Use the start time of the build, shared by all modules of a reactor. Generated classes differ with every build.
+     */
+    NOW,
+
+    /**
+     * Use the reproducible build timestamp from the {@code project.build.outputTimestamp} property.
+     */
+    OUTPUT_TIMESTAMP,
+
+    /**
+     * Use the {@code SOURCE_DATE_EPOCH} environment variable (seconds since epoch).
+     */
+    SOURCE_DATE_EPOCH,
+
+    /**
+     * Use the commit time of the last commit in the project's git repository.
+     */
+    GIT_COMMIT,
+
+    /**
+     * Use the fixed value configured in the {@code fixedTimestamp} parameter.
+     */
+    FIXED
+}
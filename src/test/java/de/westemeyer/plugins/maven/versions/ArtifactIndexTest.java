@@ -0,0 +1,134 @@
+package de.westemeyer.plugins.maven.versions;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArtifactIndexTest {
+
+    @Test
+    void writeAndRead() throws IOException {
+        // given
+        ArtifactDescriptor root = new ArtifactDescriptor("de.westemeyer", "root", "1.0.0", null);
+        ArtifactDescriptor parent = new ArtifactDescriptor("de.westemeyer", "parent", "1.0.0", root);
+        List<ArtifactDescriptor> artifacts = Arrays.asList(
+                new ArtifactDescriptor("de.westemeyer", "module-a", "1.0.0", 1672531200000L, "Module A",
+                        "Description\nwith line feed", "https://www.westemeyer.de", parent),
+                new ArtifactDescriptor("de.westemeyer", "module-b", "1.0.0", 1672531200000L, "Moduł B", null, null,
+                        parent),
+                new ArtifactDescriptor("org.other", "other", "2.0", 0L, null, null, null, null));
+
+        // when
+        byte[] index = ArtifactIndex.write(artifacts);
+        List<ArtifactDescriptor> actual = ArtifactIndex.read(new ByteArrayInputStream(index));
+
+        // then
+        assertEquals(artifacts, actual);
+        assertSame(actual.get(0).parent, actual.get(1).parent);
+        assertNull(actual.get(2).parent);
+        assertEquals(actual, ArtifactIndex.read(ByteBuffer.wrap(index)));
+    }
+
+    @Test
+    void stringsAndParentsAreDeduplicated() {
+        // given
+        ArtifactDescriptor parent = new ArtifactDescriptor("group", "parent", "1", null);
+        ArtifactDescriptor first = new ArtifactDescriptor("group", "first", "1", 0L, null, null, null, parent);
+        ArtifactDescriptor second = new ArtifactDescriptor("group", "second", "1", 0L, null, null, null,
+                new ArtifactDescriptor("group", "parent", "1", null));
+
+        // when
+        ByteBuffer buffer = ByteBuffer.wrap(ArtifactIndex.write(Arrays.asList(first, second)));
+
+        // then
+        assertEquals(ArtifactIndex.MAGIC, buffer.getInt(0));
+        assertEquals(ArtifactIndex.FORMAT_VERSION, buffer.getShort(4));
+        // "group", "first", "1", "parent", "second"
+        assertEquals(5, buffer.getInt(8));
+        assertEquals(2, buffer.getInt(12));
+        assertEquals(1, buffer.getInt(16));
+    }
+
+    @Test
+    void fixedWidthLayout() {
+        // given
+        ArtifactDescriptor artifact = new ArtifactDescriptor("g", "a", "v", 42L, null, null, null, null);
+
+        // when
+        byte[] index = ArtifactIndex.write(Collections.singletonList(artifact));
+
+        // then: header, 4 offsets, 3 bytes of string data, one artifact record
+        assertEquals(ArtifactIndex.HEADER_SIZE + 4 * 4 + 3 + ArtifactIndex.ARTIFACT_RECORD_SIZE, index.length);
+        ByteBuffer buffer = ByteBuffer.wrap(index);
+        int artifactTable = ArtifactIndex.HEADER_SIZE + 4 * 4 + 3;
+        assertEquals(42L, buffer.getLong(artifactTable + 12));
+        assertEquals(-1, buffer.getInt(artifactTable + 32));
+    }
+
+    @Test
+    void emptyIndex() throws IOException {
+        byte[] index = ArtifactIndex.write(Collections.emptyList());
+        assertArrayEquals(new byte[]{'A', 'V', 'I', 'X', 0, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0},
+                index);
+        assertEquals(0, ArtifactIndex.read(ByteBuffer.wrap(index)).size());
+    }
+
+    @Test
+    void readInvalidIndex() {
+        assertThrows(IOException.class, () -> ArtifactIndex.read(ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5, 6, 7, 8})));
+        assertThrows(IOException.class, () -> ArtifactIndex.read(ByteBuffer.wrap(new byte[]{'A', 'V'})));
+        byte[] truncated = Arrays.copyOf(ArtifactIndex.write(Collections.singletonList(
+                new ArtifactDescriptor("g", "a", "v", 42L, null, null, null, null))), 30);
+        assertThrows(IOException.class, () -> ArtifactIndex.read(ByteBuffer.wrap(truncated)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {8, 12, 16})
+    void readInvalidCounts(int countPosition) {
+        // given
+        byte[] index = ArtifactIndex.write(Collections.singletonList(new ArtifactDescriptor("g", "a", "v", 42L, null,
+                null, null, new ArtifactDescriptor("g", "parent", "v", null))));
+
+        // when/then: negative counts and counts exceeding the buffer
+        for (int count : new int[]{-1, Integer.MIN_VALUE, 1000, Integer.MAX_VALUE}) {
+            ByteBuffer buffer = ByteBuffer.wrap(index.clone());
+            buffer.putInt(countPosition, count);
+            IOException exception = assertThrows(IOException.class, () -> ArtifactIndex.read(buffer));
+            assertTrue(exception.getMessage().contains("invalid"));
+        }
+    }
+
+    @Test
+    void readForwardParentReference() {
+        // given: parents "root" (0) and "parent" (1), the root references the parent
+        ArtifactDescriptor root = new ArtifactDescriptor("g", "root", "v", null);
+        byte[] index = ArtifactIndex.write(Collections.singletonList(new ArtifactDescriptor("g", "a", "v", 42L, null,
+                null, null, new ArtifactDescriptor("g", "parent", "v", root))));
+        ByteBuffer buffer = ByteBuffer.wrap(index);
+        int parentTable = index.length - 2 * ArtifactIndex.PARENT_RECORD_SIZE;
+        assertEquals(-1, buffer.getInt(parentTable + 12));
+
+        // when/then
+        for (int parent : new int[]{0, 1}) {
+            buffer.putInt(parentTable + 12, parent);
+            assertThrows(IOException.class, () -> ArtifactIndex.read(buffer));
+        }
+        buffer.putInt(parentTable + 12, -1);
+        buffer.putInt(index.length - 4, 2);
+        assertThrows(IOException.class, () -> ArtifactIndex.read(buffer));
+    }
+}
@@ -0,0 +1,152 @@
+package de.westemeyer.plugins.maven.versions;
+
+import org.apache.maven.plugins.shade.relocation.Relocator;
+import org.apache.maven.plugins.shade.relocation.SimpleRelocator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarInputStream;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArtifactVersionsTransformerTest {
+
+    @Test
+    void canTransformResource() {
+        ArtifactVersionsTransformer transformer = new ArtifactVersionsTransformer();
+        assertTrue(transformer.canTransformResource(GenerateRegistryMojo.SERVICE_DEFINITION));
+        assertTrue(transformer.canTransformResource(ArtifactVersionsTransformer.COLLECTOR_DEFINITION));
+        assertTrue(transformer.canTransformResource(ArtifactVersionsTransformer.AUTO_CONFIGURATION_IMPORTS));
+        assertTrue(transformer.canTransformResource(ArtifactIndex.RESOURCE_NAME));
+        assertFalse(transformer.canTransformResource("META-INF/services/java.sql.Driver"));
+        assertFalse(transformer.hasTransformedResource());
+    }
+
+    @Test
+    void mergeResources() throws IOException {
+        // given
+        ArtifactVersionsTransformer transformer = new ArtifactVersionsTransformer();
+        List<Relocator> relocators = Collections.singletonList(new SimpleRelocator("org.library", "shaded.library",
+                null, null));
+        ArtifactDescriptor first = new ArtifactDescriptor("org.app", "module-b", "1.0", 1L, null, null, null, null);
+        ArtifactDescriptor second = new ArtifactDescriptor("org.app", "module-a", "1.0", 2L, null, null, null, null);
+
+        // when
+        transformer.processResource(GenerateRegistryMojo.SERVICE_DEFINITION,
+                stream("org.app.b.ModuleBVersionService\n# comment\norg.library.LibraryVersionService\n"), relocators,
+                2000L);
+        transformer.processResource(GenerateRegistryMojo.SERVICE_DEFINITION,
+                stream("org.app.a.ModuleAVersionService\norg.app.b.ModuleBVersionService\n"), relocators, 1000L);
+        transformer.processResource(ArtifactVersionsTransformer.AUTO_CONFIGURATION_IMPORTS,
+                stream("org.app.b.ModuleBAutoConfiguration\n"), relocators);
+        transformer.processResource(ArtifactIndex.RESOURCE_NAME,
+                new ByteArrayInputStream(ArtifactIndex.write(Arrays.asList(first, second))), relocators, 0L);
+        transformer.processResource(ArtifactIndex.RESOURCE_NAME, new ByteArrayInputStream(ArtifactIndex.write(
+                Collections.singletonList(new ArtifactDescriptor("org.app", "module-a", "1.0", 3L, null, null, null,
+                        null)))), relocators, 0L);
+        Map<String, byte[]> entries = transform(transformer);
+
+        // then: sorted, without duplicates, relocated
+        assertTrue(transformer.hasTransformedResource());
+        assertEquals(Arrays.asList(GenerateRegistryMojo.SERVICE_DEFINITION,
+                ArtifactVersionsTransformer.AUTO_CONFIGURATION_IMPORTS, ArtifactIndex.RESOURCE_NAME),
+                Arrays.asList(entries.keySet().toArray()));
+        assertEquals("org.app.a.ModuleAVersionService\norg.app.b.ModuleBVersionService\n"
+                + "shaded.library.LibraryVersionService\n", text(entries, GenerateRegistryMojo.SERVICE_DEFINITION));
+        assertEquals("org.app.b.ModuleBAutoConfiguration\n",
+                text(entries, ArtifactVersionsTransformer.AUTO_CONFIGURATION_IMPORTS));
+        assertEquals(Arrays.asList(second, first), ArtifactIndex.read(
+                new ByteArrayInputStream(entries.get(ArtifactIndex.RESOURCE_NAME))));
+        assertEquals(2L, ArtifactIndex.read(new ByteArrayInputStream(entries.get(ArtifactIndex.RESOURCE_NAME)))
+                .get(0).timestamp);
+    }
+
+    @Test
+    void relocateWithoutRelocators() {
+        assertEquals("a.B", ArtifactVersionsTransformer.relocate("a.B", null));
+    }
+
+    // artifact-version-core requires Java 17, so generated classes are only loaded there
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_17)
+    void generateAggregateClass() throws IOException, ReflectiveOperationException {
+        // given
+        ArtifactVersionsTransformer transformer = new ArtifactVersionsTransformer();
+        transformer.setAggregateClass("org.app.AppArtifactVersions");
+        transformer.processResource(GenerateRegistryMojo.SERVICE_DEFINITION,
+                stream("org.app.b.ModuleBVersionService\norg.app.a.ModuleAVersionService\n"), null, 0L);
+        transformer.processResource(ArtifactVersionsTransformer.COLLECTOR_DEFINITION,
+                stream("org.app.AppArtifactRegistry\n"), null, 0L);
+
+        // when
+        Map<String, byte[]> entries = transform(transformer);
+
+        // then
+        assertEquals("org.app.AppArtifactRegistry\norg.app.AppArtifactVersions\n",
+                text(entries, ArtifactVersionsTransformer.COLLECTOR_DEFINITION));
+        Map<String, byte[]> classes = new HashMap<>();
+        classes.put("org.app.AppArtifactVersions", entries.get("org/app/AppArtifactVersions.class"));
+        classes.put("org.app.a.ModuleAVersionService", ServiceClassWriter.writeServiceClass(
+                "org.app.a.ModuleAVersionService", new ArtifactDescriptor("org.app", "module-a", "1.0", null), false));
+        classes.put("org.app.b.ModuleBVersionService", ServiceClassWriter.writeServiceClass(
+                "org.app.b.ModuleBVersionService", new ArtifactDescriptor("org.app", "module-b", "2.0", null), false));
+        Class<?> aggregate = new ClassLoader(ArtifactVersionsTransformerTest.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                byte[] content = classes.get(name);
+                if (content == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, content, 0, content.length);
+            }
+        }.loadClass("org.app.AppArtifactVersions");
+        Object collector = aggregate.getConstructor().newInstance();
+        Set<?> artifacts = (Set<?>) aggregate.getMethod("collect").invoke(collector);
+        assertEquals(2, artifacts.size());
+        assertTrue(artifacts.toString().contains("artifactId=module-a"));
+        assertTrue(artifacts.toString().contains("artifactId=module-b"));
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String text(Map<String, byte[]> entries, String name) {
+        return new String(entries.get(name), StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, byte[]> transform(ArtifactVersionsTransformer transformer) throws IOException {
+        ByteArrayOutputStream jar = new ByteArrayOutputStream();
+        try (JarOutputStream outputStream = new JarOutputStream(jar)) {
+            transformer.modifyOutputStream(outputStream);
+        }
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (JarInputStream inputStream = new JarInputStream(new ByteArrayInputStream(jar.toByteArray()))) {
+            for (JarEntry entry = inputStream.getNextJarEntry(); entry != null; entry = inputStream.getNextJarEntry()) {
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                for (int numRead; (numRead = inputStream.read(buffer)) > 0; ) {
+                    content.write(buffer, 0, numRead);
+                }
+                entries.put(entry.getName(), content.toByteArray());
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,121 @@
+package de.westemeyer.plugins.maven.versions;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AtomicFileOutputStreamTest {
+
+    @Test
+    void replacesFileWhenClosed(@TempDir File tempDir) throws IOException {
+        // given
+        Path target = tempDir.toPath().resolve("Generated.java");
+        Files.write(target, bytes("old content"));
+
+        // when
+        try (OutputStream stream = AtomicFileOutputStream.open(target)) {
+            stream.write(bytes("new "));
+            stream.write('c');
+            stream.flush();
+            // then: the target file is not touched before the stream is closed
+            assertArrayEquals(bytes("old content"), Files.readAllBytes(target));
+            stream.write(bytes("xontentx"), 1, 6);
+        }
+
+        // then
+        assertArrayEquals(bytes("new content"), Files.readAllBytes(target));
+        assertEquals(1, countFiles(tempDir));
+    }
+
+    @Test
+    void closeTwice(@TempDir File tempDir) throws IOException {
+        // given
+        Path target = tempDir.toPath().resolve("Generated.java");
+        OutputStream stream = AtomicFileOutputStream.open(target);
+        stream.write(bytes("content"));
+        // when
+        stream.close();
+        Files.delete(target);
+        stream.close();
+        // then
+        assertFalse(Files.exists(target));
+    }
+
+    @Test
+    void openFails(@TempDir File tempDir) {
+        Path target = tempDir.toPath().resolve("missing/Generated.java");
+        assertThrows(IOException.class, () -> AtomicFileOutputStream.open(target));
+    }
+
+    @Test
+    void publishFails(@TempDir File tempDir) throws IOException {
+        // given: a directory can not be replaced by a file
+        Path target = tempDir.toPath().resolve("Generated.java");
+        Files.createDirectories(target.resolve("content"));
+        OutputStream stream = AtomicFileOutputStream.open(target);
+        stream.write(bytes("content"));
+        // when
+        assertThrows(IOException.class, stream::close);
+        // then: the temporary file is gone
+        assertEquals(1, countFiles(tempDir));
+    }
+
+    @Test
+    void deletesLeftoversOfOtherOwners(@TempDir File tempDir) throws IOException {
+        // given: a leftover of a killed build, a concurrent writer and files of other targets
+        Path target = tempDir.toPath().resolve("Generated.java");
+        Path leftover = tempDir.toPath().resolve(".Generated.java.0123abcd.4567.tmp");
+        Files.write(leftover, bytes("leftover"));
+        Path otherTarget = tempDir.toPath().resolve(".Generated.java.bak.0123abcd.4567.tmp");
+        Files.write(otherTarget, bytes("other"));
+        try (OutputStream concurrent = AtomicFileOutputStream.open(target)) {
+            concurrent.write(bytes("concurrent"));
+
+            // when
+            try (OutputStream stream = AtomicFileOutputStream.open(target)) {
+                stream.write(bytes("content"));
+            }
+
+            // then
+            assertFalse(Files.exists(leftover));
+            assertTrue(Files.exists(otherTarget));
+            assertEquals(3, countFiles(tempDir));
+        }
+        assertArrayEquals(bytes("concurrent"), Files.readAllBytes(target));
+        assertEquals(2, countFiles(tempDir));
+    }
+
+    @Test
+    void isLeftover() {
+        String prefix = ".Generated.java.";
+        assertTrue(AtomicFileOutputStream.isLeftover(".Generated.java.0123abcd.4567.tmp", prefix));
+        assertFalse(AtomicFileOutputStream.isLeftover(".Generated.java." + AtomicFileOutputStream.OWNER + ".4567.tmp",
+                prefix));
+        assertFalse(AtomicFileOutputStream.isLeftover(".Generated.java.0123abcd.4567.txt", prefix));
+        assertFalse(AtomicFileOutputStream.isLeftover(".Generated.java.x.0123abcd.4567.tmp", prefix));
+        assertFalse(AtomicFileOutputStream.isLeftover(".Generated.java.0123abcd.tmp", prefix));
+        assertFalse(AtomicFileOutputStream.isLeftover(".Generated.java..4567.tmp", prefix));
+        assertFalse(AtomicFileOutputStream.isLeftover(".Other.java.0123abcd.4567.tmp", prefix));
+    }
+
+    private static long countFiles(File directory) {
+        String[] names = directory.list();
+        return names == null ? 0 : names.length;
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,249 @@
+package de.westemeyer.plugins.maven.versions;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DependencyScannerTest {
+
+    @Test
+    void scanJar(@TempDir File tempDir) throws IOException {
+        // given
+        File jar = new File(tempDir, "library.jar");
+        writeJar(jar, GenerateRegistryMojo.SERVICE_DEFINITION, "org.library.versions.LibraryVersionService\n",
+                "META-INF/maven/org.library/library/pom.properties", pomProperties("org.library", "library", "1.2"),
+                "META-INF/maven/org.shaded/shaded/pom.properties", pomProperties("org.shaded", "shaded", "3.0"),
+                "META-INF/maven/org.invalid/invalid/pom.properties", "groupId=org.invalid\n",
+                "META-INF/maven/nested/path/too/pom.properties", pomProperties("a", "b", "c"));
+
+        // when
+        DependencyScanner.JarMetadata metadata = DependencyScanner.scanJar(jar);
+
+        // then
+        assertEquals(jar.length(), metadata.size);
+        assertEquals(jar.lastModified(), metadata.lastModified);
+        assertEquals(Collections.singletonList("org.library.versions.LibraryVersionService"), metadata.services);
+        assertEquals(Arrays.asList(new ArtifactDescriptor("org.library", "library", "1.2", null),
+                new ArtifactDescriptor("org.shaded", "shaded", "3.0", null)), metadata.artifacts);
+        assertFalse(metadata.index);
+    }
+
+    @Test
+    void scanIndex(@TempDir File tempDir) throws IOException {
+        // given
+        File jar = new File(tempDir, "library.jar");
+        writeJar(jar, ArtifactIndex.RESOURCE_NAME, "");
+        Path cacheFile = tempDir.toPath().resolve(DependencyScanner.CACHE_FILE_NAME);
+
+        // when
+        DependencyScanner scanner = DependencyScanner.load(cacheFile);
+        DependencyScanner.JarMetadata metadata = scanner.scan(Collections.singletonList(jar), 1).get(jar);
+        scanner.save(cacheFile, Collections.singletonList(jar));
+
+        // then: the index itself is read only when the registry is generated
+        assertTrue(metadata.index);
+        assertTrue(DependencyScanner.load(cacheFile).getCached(jar).index);
+    }
+
+    @Test
+    void scanSpringServices(@TempDir File tempDir) throws IOException {
+        // given: only autoconfiguration classes with a matching version service class are generated ones
+        File jar = new File(tempDir, "library.jar");
+        writeJar(jar, DependencyScanner.AUTO_CONFIGURATION_IMPORTS, "org.library.versions.LibraryAutoConfiguration\n"
+                        + "org.library.OtherAutoConfiguration\norg.library.Configuration\n",
+                "org/library/versions/LibraryVersionService.class", "");
+        Path cacheFile = tempDir.toPath().resolve(DependencyScanner.CACHE_FILE_NAME);
+
+        // when
+        DependencyScanner scanner = DependencyScanner.load(cacheFile);
+        DependencyScanner.JarMetadata metadata = scanner.scan(Collections.singletonList(jar), 1).get(jar);
+        scanner.save(cacheFile, Collections.singletonList(jar));
+
+        // then
+        List<String> expected = Collections.singletonList("org.library.versions.LibraryVersionService");
+        assertEquals(expected, metadata.springServices);
+        assertTrue(metadata.services.isEmpty());
+        assertEquals(expected, DependencyScanner.load(cacheFile).getCached(jar).springServices);
+    }
+
+    @Test
+    void findSpringServicesInDirectory(@TempDir File tempDir) throws IOException {
+        // given
+        File imports = new File(tempDir, DependencyScanner.AUTO_CONFIGURATION_IMPORTS);
+        assertTrue(imports.getParentFile().mkdirs());
+        Files.write(imports.toPath(), "a.CompiledAutoConfiguration\na.GeneratedAutoConfiguration\na.OtherAutoConfiguration\n"
+                .getBytes(StandardCharsets.UTF_8));
+        File compiled = new File(tempDir, "a/CompiledVersionService.class");
+        assertTrue(compiled.getParentFile().mkdirs());
+        Files.write(compiled.toPath(), new byte[0]);
+
+        // when/then
+        assertEquals(Arrays.asList("a.CompiledVersionService", "a.GeneratedVersionService"),
+                DependencyScanner.findSpringServices(tempDir, "a.GeneratedVersionService"::equals));
+        assertTrue(DependencyScanner.findSpringServices(new File(tempDir, "missing"), className -> true).isEmpty());
+    }
+
+    @Test
+    void scanNoZipFile(@TempDir File tempDir) throws IOException {
+        // given
+        File pom = new File(tempDir, "parent.pom");
+        Files.write(pom.toPath(), "<project/>".getBytes(StandardCharsets.UTF_8));
+
+        // when
+        DependencyScanner.JarMetadata metadata = DependencyScanner.scanJar(pom);
+
+        // then
+        assertTrue(metadata.services.isEmpty());
+        assertTrue(metadata.artifacts.isEmpty());
+    }
+
+    @Test
+    void scanInParallelAndCache(@TempDir File tempDir) throws IOException {
+        // given
+        List<File> jars = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            File jar = new File(tempDir, "library-" + i + ".jar");
+            writeJar(jar, "META-INF/maven/org.library/library-" + i + "/pom.properties",
+                    pomProperties("org.library", "library-" + i, "1." + i));
+            jars.add(jar);
+        }
+        Path cacheFile = tempDir.toPath().resolve("state").resolve(DependencyScanner.CACHE_FILE_NAME);
+
+        // when
+        DependencyScanner scanner = DependencyScanner.load(cacheFile);
+        Map<File, DependencyScanner.JarMetadata> metadata = scanner.scan(jars, 4);
+        scanner.save(cacheFile, jars);
+
+        // then
+        assertEquals(20, scanner.getScanned());
+        assertEquals(jars, new ArrayList<>(metadata.keySet()));
+        assertEquals("org.library:library-7:1.7", metadata.get(jars.get(7)).artifacts.get(0).getCoordinates());
+
+        // when: scanning again with the cache file
+        DependencyScanner cached = DependencyScanner.load(cacheFile);
+        Map<File, DependencyScanner.JarMetadata> cachedMetadata = cached.scan(jars, 4);
+
+        // then: no jar is opened again
+        assertEquals(0, cached.getScanned());
+        for (File jar : jars) {
+            assertEquals(metadata.get(jar).artifacts, cachedMetadata.get(jar).artifacts);
+        }
+
+        // when: a jar changes
+        writeJar(jars.get(3), "META-INF/maven/org.library/changed/pom.properties",
+                pomProperties("org.library", "changed", "2.0"));
+        assertTrue(jars.get(3).setLastModified(jars.get(3).lastModified() + 2000L));
+        DependencyScanner changed = DependencyScanner.load(cacheFile);
+        Map<File, DependencyScanner.JarMetadata> changedMetadata = changed.scan(jars, 4);
+
+        // then: only that jar is scanned again
+        assertEquals(1, changed.getScanned());
+        assertEquals("org.library:changed:2.0", changedMetadata.get(jars.get(3)).artifacts.get(0).getCoordinates());
+    }
+
+    @Test
+    void saveKeepsOnlyCurrentJars(@TempDir File tempDir) throws IOException {
+        // given
+        File first = new File(tempDir, "first.jar");
+        File second = new File(tempDir, "second.jar");
+        writeJar(first, GenerateRegistryMojo.SERVICE_DEFINITION, "a.B\nc.D\n");
+        writeJar(second, "META-INF/MANIFEST.MF", "Manifest-Version: 1.0");
+        Path cacheFile = tempDir.toPath().resolve(DependencyScanner.CACHE_FILE_NAME);
+        DependencyScanner scanner = DependencyScanner.load(cacheFile);
+        scanner.scan(Arrays.asList(first, second), 2);
+
+        // when
+        scanner.save(cacheFile, Collections.singletonList(first));
+
+        // then
+        List<String> lines = Files.readAllLines(cacheFile, StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        assertEquals(DependencyScanner.CACHE_HEADER, lines.get(0));
+        assertTrue(lines.get(1).endsWith("\ta.B,c.D\t\t\tfalse"));
+        DependencyScanner loaded = DependencyScanner.load(cacheFile);
+        assertNotNull(loaded.getCached(first));
+        assertNull(loaded.getCached(second));
+    }
+
+    @Test
+    void loadInvalidCacheFile(@TempDir File tempDir) throws IOException {
+        // given
+        File jar = new File(tempDir, "library.jar");
+        writeJar(jar, "META-INF/MANIFEST.MF", "Manifest-Version: 1.0");
+        Path cacheFile = tempDir.toPath().resolve(DependencyScanner.CACHE_FILE_NAME);
+        Files.write(cacheFile, (DependencyScanner.CACHE_HEADER + "\n" + jar.getAbsolutePath() + "\tsize\t0\t\t\n")
+                .getBytes(StandardCharsets.UTF_8));
+
+        // when/then
+        assertNull(DependencyScanner.load(cacheFile).getCached(jar));
+        assertNull(DependencyScanner.load(tempDir.toPath().resolve("missing")).getCached(jar));
+    }
+
+    @Test
+    void scanUnreadableJar(@TempDir File tempDir) {
+        File directory = new File(tempDir, "directory.jar");
+        assertTrue(directory.mkdirs());
+        DependencyScanner scanner = DependencyScanner.load(null);
+        assertThrows(IOException.class, () -> scanner.scan(Collections.singletonList(directory), 1));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"META-INF/maven/org.group/artifact/pom.properties,true", "META-INF/maven/org.group/pom.properties,false",
+            "META-INF/maven/a/b/c/pom.properties,false", "META-INF/maven/org.group/artifact/pom.xml,false",
+            "other/maven/org.group/artifact/pom.properties,false", "META-INF/maven//artifact/pom.properties,false"})
+    void isPomProperties(String name, boolean expected) {
+        assertEquals(expected, DependencyScanner.isPomProperties(name));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"1.0,true", "' 1.0 ',true", "'',false", "'1 0',false", "a:b,false", "'a,b',false", "a\"b,false"})
+    void isValidCoordinate(String value, boolean expected) {
+        assertEquals(expected, DependencyScanner.isValidCoordinate(value));
+    }
+
+    @Test
+    void readPomProperties() throws IOException {
+        assertEquals(new ArtifactDescriptor("org.group", "artifact", "1.0", null), DependencyScanner.readPomProperties(
+                new ByteArrayInputStream(pomProperties("org.group", "artifact", "1.0").getBytes(StandardCharsets.UTF_8))));
+        assertNull(DependencyScanner.readPomProperties(
+                new ByteArrayInputStream("version=1.0".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    static String pomProperties(String groupId, String artifactId, String version) {
+        return "#Generated by Maven\ngroupId=" + groupId + "\nartifactId=" + artifactId + "\nversion=" + version + "\n";
+    }
+
+    static void writeJar(File jarFile, String... entries) throws IOException {
+        try (OutputStream outputStream = Files.newOutputStream(jarFile.toPath());
+             ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+            for (int i = 0; i < entries.length; i += 2) {
+                zipOutputStream.putNextEntry(new ZipEntry(entries[i]));
+                zipOutputStream.write(entries[i + 1].getBytes(StandardCharsets.UTF_8));
+                zipOutputStream.closeEntry();
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package de.westemeyer.plugins.maven.versions;
+
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.JRE;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DependencyTreeTest {
+
+    private static final String PROJECT_ID = "de.westemeyer:app:jar:1.0";
+
+    @Test
+    void encodeTree() {
+        // given
+        org.apache.maven.artifact.Artifact spring = artifact("org.springframework", "spring-core", "6.1.0", "compile",
+                PROJECT_ID);
+        org.apache.maven.artifact.Artifact jcl = artifact("org.springframework", "spring-jcl", "6.1.0", "compile",
+                PROJECT_ID, spring.getId());
+        org.apache.maven.artifact.Artifact lombok = artifact("org.projectlombok", "lombok", "1.18.30", "provided",
+                PROJECT_ID);
+
+        // when
+        DependencyTree tree = DependencyTree.of(Arrays.asList(jcl, spring, lombok));
+
+        // then: siblings sorted, children follow their parent
+        assertEquals(3, tree.size());
+        // org.projectlombok, lombok, 1.18.30, provided, org.springframework, spring-core, 6.1.0, compile, spring-jcl
+        assertEquals(9, tree.getStringCount());
+        assertEquals("\"org.projectlombok\\nlombok\\n1.18.30\\nprovided\\norg.springframework\\nspring-core\\n6.1.0"
+                + "\\ncompile\\nspring-jcl\"", tree.getStringConstants());
+        assertEquals("\"\\u0000\\u0000\\u0001\\u0002\\u0003\\u0000\\u0004\\u0005\\u0006\\u0007\\u0002\\u0004\\u0008"
+                + "\\u0006\\u0007\"", tree.getNodeConstants());
+    }
+
+    @Test
+    void encodeEmptyTree() {
+        DependencyTree tree = DependencyTree.of(Collections.emptyList());
+        assertEquals(0, tree.size());
+        assertEquals("\"\"", tree.getStringConstants());
+        assertEquals("\"\"", tree.getNodeConstants());
+    }
+
+    @Test
+    void toStringConstants() {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < DependencyTree.CHUNK_SIZE + 10; i++) {
+            value.append('a');
+        }
+        String constants = DependencyTree.toStringConstants(value.toString());
+        assertEquals(2, constants.split("\", \"").length);
+        assertEquals("\"\\\"\\\\\\r\\u00e4\"", DependencyTree.toStringConstants("\"\\\rä"));
+    }
+
+    @Test
+    void invalidCoordinates() {
+        List<org.apache.maven.artifact.Artifact> artifacts = Collections.singletonList(
+                artifact("group", "artifact", "1\n0", "compile", PROJECT_ID));
+        assertThrows(IllegalArgumentException.class, () -> DependencyTree.of(artifacts));
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_17)
+    void generatedServiceDecodesTree(@TempDir File tempDir) throws Exception {
+        // given: a large tree with repeating coordinates
+        Set<org.apache.maven.artifact.Artifact> artifacts = new LinkedHashSet<>();
+        for (int i = 0; i < 2000; i++) {
+            org.apache.maven.artifact.Artifact direct = artifact("org.group" + i % 10, "direct-" + i, "1." + i % 3,
+                    "compile", PROJECT_ID);
+            artifacts.add(direct);
+            artifacts.add(artifact("org.group" + i % 10, "transitive-" + i, "2.0", "runtime", PROJECT_ID,
+                    direct.getId()));
+        }
+        GenerateServiceMojo mojo = new GenerateServiceMojo();
+        mojo.setLog(mock(Log.class));
+        mojo.project = mock(MavenProject.class);
+        when(mojo.project.getArtifacts()).thenReturn(artifacts);
+        Map<String, String> values = new HashMap<>();
+        values.put("groupId", "de.westemeyer");
+        values.put("artifactId", "app");
+        values.put("package", "generated");
+        values.put("serviceClass", "AppVersionService");
+        values.put("version", "1.0");
+        values.put("timestamp", "0");
+        values.put("name", null);
+        values.put("description", null);
+        values.put("url", null);
+        values.put("extendedMetadata", "");
+        values.put("gitMetadata", "");
+
+        // when
+        values.put("dependencyTree", mojo.renderDependencyTree(values));
+        Class<?> serviceClass = GeneratedSourceCompiler.compileAndLoad(tempDir, "generated.AppVersionService",
+                mojo.getServiceTemplate("service-template.txt").render(values));
+
+        // then
+        List<?> dependencies = (List<?>) serviceClass.getMethod("getDependencies").invoke(null);
+        assertEquals(2000, dependencies.size());
+        Object first = dependencies.get(0);
+        Method getDependencies = first.getClass().getMethod("getDependencies");
+        assertEquals("org.group0:direct-0:1.0:compile", first.toString());
+        assertEquals(Collections.singletonList("org.group0:transitive-0:2.0:runtime"),
+                toStrings((List<?>) getDependencies.invoke(first)));
+        assertTrue(dependencies.get(1999).toString().startsWith("org.group9:direct-"));
+    }
+
+    private static List<String> toStrings(List<?> objects) {
+        List<String> strings = new ArrayList<>();
+        for (Object object : objects) {
+            strings.add(object.toString());
+        }
+        return strings;
+    }
+
+    private static org.apache.maven.artifact.Artifact artifact(String groupId, String artifactId, String version,
+                                                               String scope, String... trail) {
+        org.apache.maven.artifact.Artifact artifact = mock(org.apache.maven.artifact.Artifact.class);
+        String id = groupId + ":" + artifactId + ":jar:" + version;
+        when(artifact.getGroupId()).thenReturn(groupId);
+        when(artifact.getArtifactId()).thenReturn(artifactId);
+        when(artifact.getVersion()).thenReturn(version);
+        when(artifact.getScope()).thenReturn(scope);
+        when(artifact.getId()).thenReturn(id);
+        List<String> dependencyTrail = new ArrayList<>(Arrays.asList(trail));
+        dependencyTrail.add(id);
+        when(artifact.getDependencyTrail()).thenReturn(dependencyTrail);
+        return artifact;
+    }
+}
@@ -0,0 +1,122 @@
+package de.westemeyer.plugins.maven.versions;
+
+import org.apache.maven.model.Build;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FlightRecorderEventsTest {
+
+    @Test
+    void beginWithoutRecording() {
+        // when: no recording is running
+        FlightRecorderEvents.Event event = FlightRecorderEvents.begin(FlightRecorderEvents.RENDERING);
+        // then
+        assertFalse(event.isEnabled());
+        assertDoesNotThrow(() -> event.commit(null, null, 0));
+        assertFalse(FlightRecorderEvents.begin("Unknown").isEnabled());
+    }
+
+    // the JFR API (accessed via reflection, the tests are compiled for Java 8 as well) is available since Java 11
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_11)
+    void recordGeneratorEvents(@TempDir File tempDir) throws ReflectiveOperationException, MojoFailureException {
+        // given
+        assertTrue(FlightRecorderEvents.isAvailable());
+        GenerateServiceMojo mojo = getMojo(tempDir);
+        Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+        Object recording = recordingClass.getConstructor().newInstance();
+        for (String name : new String[]{"TemplateLoading", "Rendering", "ParentChain", "FileWrite"}) {
+            recordingClass.getMethod("enable", String.class).invoke(recording,
+                    "de.westemeyer.artifactversion." + name);
+        }
+
+        // when
+        recordingClass.getMethod("start").invoke(recording);
+        try {
+            mojo.generateFiles();
+            mojo.generateFiles();
+        } finally {
+            recordingClass.getMethod("stop").invoke(recording);
+        }
+        Path dump = new File(tempDir, "recording.jfr").toPath();
+        recordingClass.getMethod("dump", Path.class).invoke(recording, dump);
+        recordingClass.getMethod("close").invoke(recording);
+
+        // then: the byte counts depend on the templates, so only the manifest size is checked
+        List<String> events = new ArrayList<>();
+        Class<?> recordedEvent = Class.forName("jdk.jfr.consumer.RecordedEvent");
+        Class<?> recordedObject = Class.forName("jdk.jfr.consumer.RecordedObject");
+        long manifestBytes = 0;
+        for (Object event : (List<?>) Class.forName("jdk.jfr.consumer.RecordingFile")
+                .getMethod("readAllEvents", Path.class).invoke(null, dump)) {
+            Object type = recordedEvent.getMethod("getEventType").invoke(event);
+            String name = (String) type.getClass().getMethod("getName").invoke(type);
+            Object path = recordedObject.getMethod("getString", String.class).invoke(event, "path");
+            String fileName = path == null ? null : new File((String) path).getName();
+            boolean hasWritten = (Boolean) recordedObject.getMethod("hasField", String.class).invoke(event,
+                    "written");
+            events.add(name + " " + recordedObject.getMethod("getString", String.class).invoke(event, "module")
+                    + " " + fileName + (hasWritten ? " " + recordedObject.getMethod("getBoolean", String.class)
+                    .invoke(event, "written") : ""));
+            if (AbstractArtifactVersionMojo.ARTIFACT_VERSION_SERVICE.equals(fileName)) {
+                manifestBytes = (Long) recordedObject.getMethod("getLong", String.class).invoke(event, "bytes");
+            }
+        }
+        List<String> expected = new ArrayList<>();
+        for (boolean written : new boolean[]{true, false}) {
+            expected.add("de.westemeyer.artifactversion.ParentChain de.westemeyer:module:1.0.0 null");
+            expected.add("de.westemeyer.artifactversion.TemplateLoading de.westemeyer:module:1.0.0 "
+                    + "service-template-with-parent.txt");
+            expected.add("de.westemeyer.artifactversion.Rendering de.westemeyer:module:1.0.0 "
+                    + "ModuleVersionService.java");
+            expected.add("de.westemeyer.artifactversion.FileWrite de.westemeyer:module:1.0.0 "
+                    + "ModuleVersionService.java " + written);
+            expected.add("de.westemeyer.artifactversion.FileWrite de.westemeyer:module:1.0.0 "
+                    + AbstractArtifactVersionMojo.ARTIFACT_VERSION_SERVICE + " " + written);
+        }
+        assertEquals(expected, events);
+        assertEquals("de.westemeyer.versions.ModuleVersionService\n".length(),
+                manifestBytes);
+    }
+
+    private static GenerateServiceMojo getMojo(File tempDir) {
+        Build build = new Build();
+        build.setDirectory(new File(tempDir, "target").getPath());
+        build.setOutputDirectory(new File(tempDir, "target/classes").getPath());
+        MavenProject parent = mock(MavenProject.class);
+        when(parent.getGroupId()).thenReturn("de.westemeyer");
+        when(parent.getArtifactId()).thenReturn("parent");
+        when(parent.getVersion()).thenReturn("1.0.0");
+        MavenProject project = mock(MavenProject.class);
+        when(project.getGroupId()).thenReturn("de.westemeyer");
+        when(project.getArtifactId()).thenReturn("module");
+        when(project.getVersion()).thenReturn("1.0.0");
+        when(project.getParent()).thenReturn(parent);
+        when(project.getBuild()).thenReturn(build);
+        GenerateServiceMojo mojo = new GenerateServiceMojo();
+        mojo.setLog(mock(Log.class));
+        mojo.project = project;
+        mojo.targetFolder = new File(tempDir, "target/generated-sources");
+        mojo.serviceType = ServiceType.NATIVE;
+        mojo.timestampSource = TimestampSource.FIXED;
+        mojo.fixedTimestamp = "1672531200";
+        return mojo;
+    }
+}
@@ -0,0 +1,420 @@
+package de.westemeyer.plugins.maven.versions;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.model.Build;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GenerateRegistryMojoTest {
+
+    @Test
+    void generateRegistry(@TempDir File tempDir) throws IOException, MojoFailureException {
+        // given
+        File classes = new File(tempDir, "classes");
+        writeServiceDefinition(classes, "de.westemeyer.versions.AppVersionService\n");
+        File directoryDependency = new File(tempDir, "module-classes");
+        writeServiceDefinition(directoryDependency, "# generated\nde.westemeyer.versions.ModuleVersionService # module\n\n");
+        File jarDependency = new File(tempDir, "library.jar");
+        writeJar(jarDependency, GenerateRegistryMojo.SERVICE_DEFINITION, "org.library.versions.LibraryVersionService");
+        File otherJar = new File(tempDir, "other.jar");
+        writeJar(otherJar, "META-INF/MANIFEST.MF", "Manifest-Version: 1.0");
+        File pomFile = new File(tempDir, "parent.pom");
+        Files.write(pomFile.toPath(), "<project/>".getBytes(StandardCharsets.UTF_8));
+
+        GenerateRegistryMojo mojo = new GenerateRegistryMojo();
+        mojo.setLog(mock(Log.class));
+        mojo.targetFolder = new File(tempDir, "generated");
+        mojo.project = getMavenProject(classes, getArtifact("org.library", "library", jarDependency),
+                getArtifact("de.westemeyer", "module", directoryDependency),
+                getArtifact("org.other", "other", otherJar), getArtifact("org.parent", "parent", pomFile),
+                getArtifact("org.missing", "missing", null));
+
+        // when
+        mojo.generateRegistry();
+
+        // then
+        String registry = new String(Files.readAllBytes(
+                new File(tempDir, "generated/de/westemeyer/versions/AppArtifactRegistry.java").toPath()),
+                StandardCharsets.UTF_8);
+        assertTrue(registry.contains("public class AppArtifactRegistry extends AbstractArtifactVersionCollector {"));
+        assertTrue(registry.contains(
+                "    public static final Artifact APP = new de.westemeyer.versions.AppVersionService().getArtifact();\n"));
+        assertTrue(registry.contains(
+                "    public static final Artifact MODULE = new de.westemeyer.versions.ModuleVersionService().getArtifact();\n"));
+        assertTrue(registry.contains(
+                "    public static final Artifact LIBRARY = new org.library.versions.LibraryVersionService().getArtifact();\n"));
+        assertTrue(registry.contains("Arrays.<Artifact>asList(APP, MODULE, LIBRARY)"));
+        assertTrue(registry.contains("Arrays.<ArtifactVersionService>asList(() -> APP, () -> MODULE, () -> LIBRARY)"));
+        assertFalse(new File(classes, "META-INF/services/" + GenerateRegistryMojo.ARTIFACT_VERSION_COLLECTOR).exists());
+        verify(mojo.project).addCompileSourceRoot(mojo.targetFolder.getPath());
+        assertEquals(1, mojo.filesWritten);
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_17)
+    void generatedRegistryCollectsArtifacts(@TempDir File tempDir) throws Exception {
+        // given
+        File guava = new File(tempDir, "guava.jar");
+        DependencyScannerTest.writeJar(guava, "META-INF/maven/com.google.guava/guava/pom.properties",
+                DependencyScannerTest.pomProperties("com.google.guava", "guava", "33.0"));
+        GenerateRegistryMojo mojo = new GenerateRegistryMojo();
+        mojo.setLog(mock(Log.class));
+        mojo.targetFolder = new File(tempDir, "generated");
+        mojo.harvestDependencies = true;
+        File classes = new File(tempDir, "classes");
+        writeIndex(classes, new ArtifactDescriptor("de.westemeyer", "app", "1.0",
+                new ArtifactDescriptor("de.westemeyer", "parent", "1.0", null)));
+        mojo.project = getMavenProject(classes, getArtifact("com.google.guava", "guava", guava));
+        mojo.generateRegistry();
+        String source = new String(Files.readAllBytes(
+                new File(tempDir, "generated/de/westemeyer/versions/AppArtifactRegistry.java").toPath()),
+                StandardCharsets.UTF_8);
+
+        // when: the registry is instantiated directly, it is not registered with the service loader
+        Class<?> registryClass = GeneratedSourceCompiler.compileAndLoad(new File(tempDir, "compiled"),
+                "de.westemeyer.versions.AppArtifactRegistry", source);
+        Object registry = registryClass.getConstructor().newInstance();
+        Set<?> collected = (Set<?>) registryClass.getMethod("collect").invoke(registry);
+        List<?> artifacts = (List<?>) registryClass.getMethod("getArtifacts").invoke(null);
+
+        // then
+        assertEquals(2, collected.size());
+        assertTrue(collected.containsAll(artifacts));
+        Object app = artifacts.get(0);
+        Object parent = app.getClass().getMethod("parentArtifact").invoke(app);
+        assertEquals("parent", parent.getClass().getMethod("artifactId").invoke(parent));
+        assertEquals("33.0", artifacts.get(1).getClass().getMethod("version").invoke(artifacts.get(1)));
+        assertEquals(artifacts.get(1), registryClass.getMethod("artifactsByGroupIdAndArtifactId", String.class,
+                String.class).invoke(registry, "com.google.guava", "guava"));
+    }
+
+    @Test
+    void generateRegistryWarnsAboutSpringServices(@TempDir File tempDir) throws IOException, MojoFailureException {
+        // given: Spring Boot services of the project itself (not compiled yet), a reactor module and a jar
+        File classes = new File(tempDir, "classes");
+        writeAutoConfigurationImports(classes, "de.westemeyer.versions.AppAutoConfiguration");
+        File generated = new File(tempDir, "generated/de/westemeyer/versions/AppVersionService.java");
+        assertTrue(generated.getParentFile().mkdirs());
+        Files.write(generated.toPath(), "class AppVersionService {}".getBytes(StandardCharsets.UTF_8));
+        File module = new File(tempDir, "module-classes");
+        writeAutoConfigurationImports(module, "de.westemeyer.versions.ModuleAutoConfiguration\n"
+                + "org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration");
+        File moduleClass = new File(module, "de/westemeyer/versions/ModuleVersionService.class");
+        assertTrue(moduleClass.getParentFile().mkdirs());
+        Files.write(moduleClass.toPath(), new byte[0]);
+        File library = new File(tempDir, "library.jar");
+        DependencyScannerTest.writeJar(library, DependencyScanner.AUTO_CONFIGURATION_IMPORTS,
+                "org.library.versions.LibraryAutoConfiguration",
+                "org/library/versions/LibraryVersionService.class", "");
+
+        GenerateRegistryMojo mojo = new GenerateRegistryMojo();
+        Log log = mock(Log.class);
+        mojo.setLog(log);
+        mojo.targetFolder = new File(tempDir, "generated");
+        mojo.project = getMavenProject(classes, getArtifact("org.library", "library", library),
+                getArtifact("de.westemeyer", "module", module));
+
+        // when
+        Map<String, String> services = mojo.findVersionServices();
+
+        // then
+        assertTrue(services.isEmpty());
+        verify(log).warn("Skipping Spring Boot version service de.westemeyer.versions.AppVersionService in "
+                + classes + ", the registry only contains version services generated with serviceType NATIVE.");
+        verify(log).warn("Skipping Spring Boot version service de.westemeyer.versions.ModuleVersionService in "
+                + module + ", the registry only contains version services generated with serviceType NATIVE.");
+        verify(log).warn("Skipping Spring Boot version service org.library.versions.LibraryVersionService in "
+                + library + ", the registry only contains version services generated with serviceType NATIVE.");
+        verify(log, times(3)).warn(anyString());
+    }
+
+    @Test
+    void generateRegistryWithHarvestedDependencies(@TempDir File tempDir) throws IOException, MojoFailureException {
+        // given
+        File classes = new File(tempDir, "classes");
+        File library = new File(tempDir, "library.jar");
+        DependencyScannerTest.writeJar(library, GenerateRegistryMojo.SERVICE_DEFINITION,
+                "org.library.versions.LibraryVersionService",
+                "META-INF/maven/org.library/library/pom.properties",
+                DependencyScannerTest.pomProperties("org.library", "library", "1.0"));
+        File guava = new File(tempDir, "guava.jar");
+        DependencyScannerTest.writeJar(guava, "META-INF/maven/com.google.guava/guava/pom.properties",
+                DependencyScannerTest.pomProperties("com.google.guava", "guava", "33.0"));
+        File shaded = new File(tempDir, "shaded.jar");
+        DependencyScannerTest.writeJar(shaded, "META-INF/maven/org.shaded/library/pom.properties",
+                DependencyScannerTest.pomProperties("org.shaded", "library", "2.0"),
+                "META-INF/maven/com.google.guava/guava/pom.properties",
+                DependencyScannerTest.pomProperties("com.google.guava", "guava", "33.0"),
+                "META-INF/maven/de.westemeyer/app/pom.properties",
+                DependencyScannerTest.pomProperties("de.westemeyer", "app", "1.0"));
+
+        GenerateRegistryMojo mojo = new GenerateRegistryMojo();
+        mojo.setLog(mock(Log.class));
+        mojo.targetFolder = new File(tempDir, "generated");
+        mojo.harvestDependencies = true;
+        mojo.project = getMavenProject(classes, getArtifact("org.library", "library", library),
+                getArtifact("com.google.guava", "guava", guava), getArtifact("org.shaded", "shaded", shaded));
+        when(mojo.project.getBuild().getDirectory()).thenReturn(tempDir.getPath());
+
+        // when
+        mojo.generateRegistry();
+
+        // then
+        String registry = new String(Files.readAllBytes(
+                new File(tempDir, "generated/de/westemeyer/versions/AppArtifactRegistry.java").toPath()),
+                StandardCharsets.UTF_8);
+        assertTrue(registry.contains(
+                "    public static final Artifact LIBRARY = new org.library.versions.LibraryVersionService().getArtifact();\n"));
+        assertTrue(registry.contains("     * Artifact harvested from pom.properties of com.google.guava:guava:33.0.\n"));
+        assertTrue(registry.contains(
+                "    public static final Artifact GUAVA = new Artifact(\"com.google.guava\", \"guava\", \"33.0\", 0L, null, null, null, null);\n"));
+        assertTrue(registry.contains(
+                "    public static final Artifact LIBRARY_2 = new Artifact(\"org.shaded\", \"library\", \"2.0\", 0L, null, null, null, null);\n"));
+        assertTrue(registry.contains("Arrays.<Artifact>asList(LIBRARY, GUAVA, LIBRARY_2)"));
+        assertEquals(2, mojo.harvestedArtifacts.size());
+        assertTrue(new File(mojo.getStateFile(tempDir).getParentFile(), DependencyScanner.CACHE_FILE_NAME).isFile());
+    }
+
+    @Test
+    void generateRegistryWithIndexedArtifacts(@TempDir File tempDir) throws IOException, MojoFailureException {
+        // given: indexes of the project itself, a reactor module and a jar (which is not harvested again)
+        ArtifactDescriptor parent = new ArtifactDescriptor("de.westemeyer", "parent", "1.0",
+                new ArtifactDescriptor("de.westemeyer", "root", "1.0", null));
+        File classes = new File(tempDir, "classes");
+        writeIndex(classes, new ArtifactDescriptor("de.westemeyer", "app", "1.0", 1672531200000L, "App",
+                "Application \"main\"", "https://westemeyer.de", parent));
+        File module = new File(tempDir, "module-classes");
+        writeIndex(module, new ArtifactDescriptor("de.westemeyer", "module", "1.0", parent));
+        File library = new File(tempDir, "library.jar");
+        try (OutputStream outputStream = Files.newOutputStream(library.toPath());
+             ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+            zipOutputStream.putNextEntry(new ZipEntry(ArtifactIndex.RESOURCE_NAME));
+            zipOutputStream.write(ArtifactIndex.write(Collections.singletonList(
+                    new ArtifactDescriptor("org.library", "library", "2.0", null))));
+            zipOutputStream.putNextEntry(new ZipEntry("META-INF/maven/org.library/library/pom.properties"));
+            zipOutputStream.write(DependencyScannerTest.pomProperties("org.library", "library", "2.0")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+
+        GenerateRegistryMojo mojo = new GenerateRegistryMojo();
+        mojo.setLog(mock(Log.class));
+        mojo.targetFolder = new File(tempDir, "generated");
+        mojo.harvestDependencies = true;
+        mojo.project = getMavenProject(classes, getArtifact("org.library", "library", library),
+                getArtifact("de.westemeyer", "module", module));
+
+        // when
+        mojo.generateRegistry();
+
+        // then
+        String registry = new String(Files.readAllBytes(
+                new File(tempDir, "generated/de/westemeyer/versions/AppArtifactRegistry.java").toPath()),
+                StandardCharsets.UTF_8);
+        assertTrue(registry.contains("     * Artifact read from the artifact version index of de.westemeyer:app:1.0.\n"));
+        assertTrue(registry.contains("    public static final Artifact APP = new Artifact(\"de.westemeyer\", \"app\", "
+                + "\"1.0\", 1672531200000L, \"App\", \"Application \\\"main\\\"\", \"https://westemeyer.de\", "
+                + "new BasicArtifact(\"de.westemeyer\", \"parent\", \"1.0\", "
+                + "new BasicArtifact(\"de.westemeyer\", \"root\", \"1.0\", null)));\n"));
+        assertTrue(registry.contains("    public static final Artifact LIBRARY = new Artifact(\"org.library\", "
+                + "\"library\", \"2.0\", 0L, null, null, null, null);\n"));
+        assertTrue(registry.contains("Arrays.<Artifact>asList(APP, MODULE, LIBRARY)"));
+        assertEquals(3, mojo.indexedArtifacts.size());
+        assertTrue(mojo.harvestedArtifacts.isEmpty());
+    }
+
+    @Test
+    void readInvalidIndex(@TempDir File tempDir) throws IOException, MojoFailureException {
+        // given
+        File classes = new File(tempDir, "classes");
+        File index = new File(classes, ArtifactIndex.RESOURCE_NAME);
+        assertTrue(index.getParentFile().mkdirs());
+        Files.write(index.toPath(), new byte[]{1, 2, 3});
+        GenerateRegistryMojo mojo = new GenerateRegistryMojo();
+
+        // when/then
+        assertThrows(MojoFailureException.class, () -> mojo.readIndex(classes));
+        assertTrue(mojo.readIndex(new File(tempDir, "missing")).isEmpty());
+    }
+
+    @Test
+    void getTemplateValuesWithHostileHarvestedValues() {
+        // given: coordinates trying to break out of string literal and comment (the scanner rejects most of these,
+        // but the registry must not rely on it)
+        GenerateRegistryMojo mojo = new GenerateRegistryMojo();
+        mojo.project = getMavenProject(new File("classes"));
+        mojo.harvestedArtifacts.put("HOSTILE", new ArtifactDescriptor("org.hostile*/ \\u002a/", "hostile",
+                "1.0\", null, null, null, null); static { System.exit(1); } //", null));
+
+        // when
+        String constants = mojo.getTemplateValues(new HashMap<>()).get("artifactConstants");
+
+        // then
+        assertEquals("    /**\n"
+                + "     * Artifact harvested from pom.properties of org.hostile*&#47; \\\\u002a/:hostile:1.0\\\", null, "
+                + "null, null, null); static { System.exit(1); } //.\n"
+                + "     */\n"
+                + "    public static final Artifact HOSTILE = new Artifact(\"org.hostile*/ \\\\u002a/\", \"hostile\", "
+                + "\"1.0\\\", null, null, null, null); static { System.exit(1); } //\", 0L, null, null, null, null);\n",
+                constants);
+    }
+
+    @Test
+    void toCommentText() {
+        assertEquals("a*&#47;b \\\\u002a/ \\n\\u00e4", GenerateRegistryMojo.toCommentText("a*/b \\u002a/ \nä"));
+    }
+
+    @Test
+    void generateRegistryWithoutServices(@TempDir File tempDir) throws MojoFailureException, IOException {
+        // given
+        GenerateRegistryMojo mojo = new GenerateRegistryMojo();
+        mojo.setLog(mock(Log.class));
+        mojo.targetFolder = new File(tempDir, "generated");
+        mojo.project = getMavenProject(new File(tempDir, "classes"));
+        mojo.packageName = "my.registry";
+        mojo.registryClass = "Registry";
+
+        // when
+        mojo.generateRegistry();
+
+        // then
+        String registry = new String(
+                Files.readAllBytes(new File(tempDir, "generated/my/registry/Registry.java").toPath()),
+                StandardCharsets.UTF_8);
+        assertTrue(registry.contains("Arrays.<Artifact>asList()"));
+        assertTrue(registry.contains("Arrays.<ArtifactVersionService>asList()"));
+    }
+
+    @Test
+    void readServiceDefinitionWithoutServices(@TempDir File tempDir) throws IOException, MojoFailureException {
+        // given
+        File directory = new File(tempDir, "classes");
+        assertTrue(new File(directory, GenerateRegistryMojo.SERVICE_DEFINITION).mkdirs());
+        File textFile = new File(tempDir, "file.txt");
+        Files.write(textFile.toPath(), "no zip file".getBytes(StandardCharsets.UTF_8));
+        GenerateRegistryMojo mojo = new GenerateRegistryMojo();
+        mojo.setLog(mock(Log.class));
+        // when/then
+        assertEquals(0, mojo.readServiceDefinition(directory).size());
+        assertEquals(0, mojo.readServiceDefinition(new File(tempDir, "missing")).size());
+        assertEquals(0, mojo.readServiceDefinition(textFile).size());
+    }
+
+    @Test
+    void parseServiceDefinition() throws IOException {
+        List<String> classNames = GenerateRegistryMojo.parseServiceDefinition(new ByteArrayInputStream(
+                "# comment\n a.B \n\nc.D#comment\r\n".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(Arrays.asList("a.B", "c.D"), classNames);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"artifact-version-core,ARTIFACT_VERSION_CORE", "commons.lang3,COMMONS_LANG3", "3d-lib,_3D_LIB",
+            "existing,EXISTING_2"})
+    void getUniqueConstantName(String artifactId, String expected) {
+        Map<String, String> services = new HashMap<>();
+        services.put("EXISTING", "a.B");
+        assertEquals(expected, GenerateRegistryMojo.getUniqueConstantName(services, artifactId));
+    }
+
+    @Test
+    void getUniqueConstantNameMultipleCollisions() {
+        Map<String, String> services = new HashMap<>();
+        services.put("A", "a.A");
+        services.put("A_2", "a.B");
+        assertEquals("A_3", GenerateRegistryMojo.getUniqueConstantName(services, "a"));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"pom,0", "jar,1"})
+    void execute(String packaging, int times) throws MojoFailureException {
+        // given
+        GenerateRegistryMojo mojo = spy(new GenerateRegistryMojo());
+        mojo.project = mock(MavenProject.class);
+        when(mojo.project.getPackaging()).thenReturn(packaging);
+        doNothing().when(mojo).generateRegistry();
+        // when
+        mojo.execute();
+        // then
+        verify(mojo, times(times)).generateRegistry();
+    }
+
+    private static MavenProject getMavenProject(File outputDirectory, Artifact... artifacts) {
+        Build build = mock(Build.class);
+        when(build.getOutputDirectory()).thenReturn(outputDirectory.getPath());
+        MavenProject project = mock(MavenProject.class);
+        when(project.getBuild()).thenReturn(build);
+        when(project.getGroupId()).thenReturn("de.westemeyer");
+        when(project.getArtifactId()).thenReturn("app");
+        when(project.getArtifacts()).thenReturn(new LinkedHashSet<>(Arrays.asList(artifacts)));
+        return project;
+    }
+
+    private static Artifact getArtifact(String groupId, String artifactId, File file) {
+        Artifact artifact = mock(Artifact.class);
+        when(artifact.getGroupId()).thenReturn(groupId);
+        when(artifact.getArtifactId()).thenReturn(artifactId);
+        when(artifact.getFile()).thenReturn(file);
+        return artifact;
+    }
+
+    private static void writeServiceDefinition(File directory, String content) throws IOException {
+        File file = new File(directory, GenerateRegistryMojo.SERVICE_DEFINITION);
+        assertTrue(file.getParentFile().mkdirs());
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeIndex(File directory, ArtifactDescriptor artifact) throws IOException {
+        File file = new File(directory, ArtifactIndex.RESOURCE_NAME);
+        assertTrue(file.getParentFile().mkdirs());
+        Files.write(file.toPath(), ArtifactIndex.write(Collections.singletonList(artifact)));
+    }
+
+    private static void writeAutoConfigurationImports(File directory, String content) throws IOException {
+        File file = new File(directory, DependencyScanner.AUTO_CONFIGURATION_IMPORTS);
+        assertTrue(file.getParentFile().mkdirs());
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeJar(File jarFile, String entryName, String content) throws IOException {
+        try (OutputStream outputStream = Files.newOutputStream(jarFile.toPath());
+             ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+            zipOutputStream.putNextEntry(new ZipEntry(entryName));
+            zipOutputStream.write(content.getBytes(StandardCharsets.UTF_8));
+            zipOutputStream.closeEntry();
+        }
+    }
+}
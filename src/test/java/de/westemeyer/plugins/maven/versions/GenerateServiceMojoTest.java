@@ -1,15 +1,27 @@
 package de.westemeyer.plugins.maven.versions;
 
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.model.Build;
+import org.apache.maven.model.Developer;
+import org.apache.maven.model.License;
+import org.apache.maven.model.Scm;
+import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.DefaultRepositorySystemSession;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.JRE;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
 import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.ArgumentCaptor;
+import org.sonatype.plexus.build.incremental.BuildContext;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -17,19 +29,33 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.PrintWriter;
 import java.io.Reader;
 import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -41,6 +67,8 @@ import static org.mockito.Mockito.doCallRealMethod;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -118,6 +146,135 @@ class GenerateServiceMojoTest {
         assertDoesNotThrow(() -> Long.valueOf(templateValues.get("timestamp")));
     }
 
+    @ParameterizedTest(name = "{0}")
+    @CsvSource({"Output timestamp ISO,OUTPUT_TIMESTAMP,2023-01-01T00:00:00Z,,,,1672531200000",
+            "Output timestamp seconds,OUTPUT_TIMESTAMP,1672531200,,,,1672531200000",
+            "Source date epoch,SOURCE_DATE_EPOCH,,1672531200,,,1672531200000",
+            "Git commit,GIT_COMMIT,,,1672531200,,1672531200000",
+            "Fixed ISO with offset,FIXED,,,,2023-01-01T01:00:00+01:00,1672531200000"})
+    void determineTimestamp(String name, TimestampSource source, String outputTimestamp, String sourceDateEpoch,
+                            String gitCommitTime, String fixedTimestamp, long expected) throws MojoFailureException {
+        // given
+        GenerateServiceMojo mojo = getServiceMojoMock();
+        when(mojo.determineTimestamp()).thenCallRealMethod();
+        when(mojo.getEnvironmentVariable("SOURCE_DATE_EPOCH")).thenReturn(sourceDateEpoch);
+        when(mojo.readGitCommitTime()).thenReturn(gitCommitTime);
+        mojo.timestampSource = source;
+        mojo.outputTimestamp = outputTimestamp;
+        mojo.fixedTimestamp = fixedTimestamp;
+        // when/then
+        assertEquals(expected, mojo.determineTimestamp());
+    }
+
+    @ParameterizedTest
+    @CsvSource({"NOW,", "OUTPUT_TIMESTAMP,", "OUTPUT_TIMESTAMP,a", "SOURCE_DATE_EPOCH,", "GIT_COMMIT,", "FIXED,"})
+    void determineTimestampFallsBackToStartTime(TimestampSource source, String value) throws MojoFailureException {
+        // given
+        GenerateServiceMojo mojo = getServiceMojoMock();
+        when(mojo.determineTimestamp()).thenCallRealMethod();
+        when(mojo.getBuildStartTime()).thenCallRealMethod();
+        when(mojo.getLog()).thenReturn(mock(Log.class));
+        mojo.timestampSource = source;
+        mojo.outputTimestamp = value;
+        long before = System.currentTimeMillis();
+        // when
+        long timestamp = mojo.determineTimestamp();
+        // then
+        assertTrue(timestamp >= before && timestamp <= System.currentTimeMillis());
+    }
+
+    @Test
+    void getBuildStartTime(@TempDir File tempDir) throws MojoFailureException {
+        // given: two modules of the same build
+        MavenSession session = getSession(tempDir);
+        when(session.getRequest().getStartTime()).thenReturn(new Date(1672531200000L));
+        GenerateServiceMojo first = new GenerateServiceMojo();
+        first.session = session;
+        GenerateServiceMojo second = new GenerateServiceMojo();
+        second.session = session;
+        second.timestampSource = TimestampSource.NOW;
+
+        // when/then: both use the start time of the build
+        assertEquals(1672531200000L, first.getBuildStartTime());
+        assertEquals(1672531200000L, second.determineTimestamp());
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @CsvSource({"Extension configured,maven-build-cache-extension,,true",
+            "Other extension,other-extension,,false",
+            "Disabled by property,maven-build-cache-extension,false,false",
+            "Enabled by property,maven-build-cache-extension,true,true"})
+    void isBuildCacheEnabled(String name, String extension, String property, boolean expected, @TempDir File tempDir)
+            throws IOException {
+        // given
+        File extensions = new File(tempDir, ".mvn/extensions.xml");
+        assertTrue(extensions.getParentFile().mkdirs());
+        Files.write(extensions.toPath(), ("<extensions><extension><artifactId>" + extension
+                + "</artifactId></extension></extensions>").getBytes(StandardCharsets.UTF_8));
+        GenerateServiceMojo mojo = new GenerateServiceMojo();
+        mojo.session = getSession(tempDir);
+        if (property != null) {
+            mojo.session.getUserProperties().setProperty("maven.build.cache.enabled", property);
+        }
+        // when/then
+        assertEquals(expected, mojo.isBuildCacheEnabled());
+    }
+
+    @Test
+    void isBuildCacheEnabledWithoutSession(@TempDir File tempDir) {
+        GenerateServiceMojo mojo = new GenerateServiceMojo();
+        assertFalse(mojo.isBuildCacheEnabled());
+        mojo.session = mock(MavenSession.class);
+        assertFalse(mojo.isBuildCacheEnabled());
+        mojo.session = getSession(null);
+        assertFalse(mojo.isBuildCacheEnabled());
+        mojo.session = getSession(tempDir);
+        assertFalse(mojo.isBuildCacheEnabled());
+    }
+
+    @Test
+    void determineTimestampWithBuildCache() throws MojoFailureException {
+        // given
+        GenerateServiceMojo mojo = mock(GenerateServiceMojo.class);
+        Log log = mock(Log.class);
+        when(mojo.getLog()).thenReturn(log);
+        when(mojo.determineTimestamp()).thenCallRealMethod();
+        when(mojo.isBuildCacheEnabled()).thenReturn(true);
+        mojo.timestampSource = TimestampSource.NOW;
+        // when
+        mojo.determineTimestamp();
+        // then
+        verify(log).warn(anyString());
+    }
+
+    @Test
+    void determineTimestampInvalidValue() {
+        // given
+        GenerateServiceMojo mojo = getServiceMojoMock();
+        assertDoesNotThrow(() -> when(mojo.determineTimestamp()).thenCallRealMethod());
+        mojo.timestampSource = TimestampSource.FIXED;
+        mojo.fixedTimestamp = "yesterday";
+        // when/then
+        assertThrows(MojoFailureException.class, mojo::determineTimestamp);
+    }
+
+    @Test
+    void getEnvironmentVariable() {
+        assertEquals(System.getenv("PATH"), new GenerateServiceMojo().getEnvironmentVariable("PATH"));
+    }
+
+    @Test
+    void readGitCommitTimeOutsideRepository(@TempDir File tempDir) {
+        // given
+        GenerateServiceMojo mojo = getServiceMojoMock();
+        when(mojo.readGitCommitTime()).thenCallRealMethod();
+        when(mojo.getGitMetadata()).thenCallRealMethod();
+        when(mojo.getLog()).thenReturn(mock(Log.class));
+        when(mojo.project.getBasedir()).thenReturn(tempDir);
+        // when/then
+        assertNull(mojo.readGitCommitTime());
+    }
+
     private static MavenProject getMavenProject(String groupId, String artifactId, String version) {
         MavenProject project = mock(MavenProject.class);
         when(project.getGroupId()).thenReturn(groupId);
@@ -162,43 +319,33 @@ class GenerateServiceMojoTest {
     }
 
     @Test
-    void writeServiceManifestCreatePrintWriterFails() throws MojoFailureException {
-        // given
-        GenerateServiceMojo mojo = getServiceMojoMock();
-        doCallRealMethod().when(mojo).writeServiceManifest(anyString(), anyString(), anyString());
-        when(mojo.createPrintWriter(null)).thenThrow(new SecurityException());
-        // when/then
-        assertThrows(MojoFailureException.class,
-                () -> mojo.writeServiceManifest("services", "de.westemeyer.version.core.api.ArtifactVersionService",
-                        mojo.packageName + "." + mojo.serviceClass));
-    }
-
-    @Test
-    void writeServiceManifestCloseWriterFails() throws MojoFailureException {
+    void writeServiceManifestWriteFails() throws IOException, MojoFailureException {
         // given
         GenerateServiceMojo mojo = getServiceMojoMock();
         doCallRealMethod().when(mojo).writeServiceManifest(anyString(), anyString(), anyString());
-        PrintWriter printWriter = mock(PrintWriter.class);
-        when(mojo.createPrintWriter(null)).thenReturn(printWriter);
-        doThrow(SecurityException.class).when(printWriter).close();
+        OutputStream outputStream = mock(OutputStream.class);
+        when(mojo.createServiceFileOutputStream(any(File.class))).thenReturn(outputStream);
+        doThrow(IOException.class).when(outputStream).write(any(byte[].class));
         // when/then
         assertThrows(MojoFailureException.class,
                 () -> mojo.writeServiceManifest("services", "de.westemeyer.version.core.api.ArtifactVersionService",
                         mojo.packageName + "." + mojo.serviceClass));
+        verify(outputStream).close();
     }
 
     @Test
-    void writeServiceManifestPrintlnWriterFails() throws MojoFailureException {
+    void writeServiceManifestCloseFails() throws IOException, MojoFailureException {
         // given
         GenerateServiceMojo mojo = getServiceMojoMock();
         doCallRealMethod().when(mojo).writeServiceManifest(anyString(), anyString(), anyString());
-        PrintWriter printWriter = mock(PrintWriter.class);
-        when(mojo.createPrintWriter(null)).thenReturn(printWriter);
-        doThrow(SecurityException.class).when(printWriter).println(anyString());
+        OutputStream outputStream = mock(OutputStream.class);
+        when(mojo.createServiceFileOutputStream(any(File.class))).thenReturn(outputStream);
+        doThrow(IOException.class).when(outputStream).close();
         // when/then
         assertThrows(MojoFailureException.class,
                 () -> mojo.writeServiceManifest("services", "de.westemeyer.version.core.api.ArtifactVersionService",
                         mojo.packageName + "." + mojo.serviceClass));
+        assertEquals(0, mojo.filesWritten);
     }
 
     @Test
@@ -208,7 +355,6 @@ class GenerateServiceMojoTest {
         doCallRealMethod().when(mojo).writeServiceManifest(anyString(), anyString(), anyString());
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         when(mojo.createServiceFileOutputStream(any(File.class))).thenReturn(outputStream);
-        when(mojo.createPrintWriter(any())).thenCallRealMethod();
         // when
         assertDoesNotThrow(() -> mojo.writeServiceManifest("services", "fileName", "content"));
         // then
@@ -221,15 +367,12 @@ class GenerateServiceMojoTest {
         File packageDir = new File("de/westemeyer");
         GenerateServiceMojo mojo = getServiceMojoMock();
         doCallRealMethod().when(mojo).writeClassFile(anyString(), anyMap(), anyString());
+        doCallRealMethod().when(mojo).writeSourceFile(any(File.class), anyString(), anyString(), anyMap());
         mojo.packageName = "de.westemeyer";
-        when(mojo.createServiceTemplateResourceStream(anyString())).thenReturn(
-                new ByteArrayInputStream(TEMPLATE.getBytes(
-                        StandardCharsets.UTF_8)));
+        when(mojo.getServiceTemplate(anyString())).thenReturn(ServiceTemplate.parse(TEMPLATE));
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         when(mojo.createClassFileOutputStream(packageDir, "MyServiceClass.java")).thenReturn(outputStream);
-        when(mojo.readTemplateFile(any(Reader.class))).thenCallRealMethod();
         Map<String, String> templateValues = getSimpleTemplateValues();
-        when(mojo.createPrintWriter(any(OutputStream.class))).thenCallRealMethod();
         // when
         assertDoesNotThrow(() -> mojo.writeClassFile("file", templateValues, "MyServiceClass"));
         // then
@@ -239,6 +382,64 @@ class GenerateServiceMojoTest {
                 outputStream.toString());
     }
 
+    @Test
+    void writeClassFileUnchanged() throws MojoFailureException, IOException {
+        // given
+        File packageDir = new File("de/westemeyer");
+        GenerateServiceMojo mojo = getServiceMojoMock();
+        doCallRealMethod().when(mojo).writeClassFile(anyString(), anyMap(), anyString());
+        doCallRealMethod().when(mojo).writeSourceFile(any(File.class), anyString(), anyString(), anyMap());
+        mojo.packageName = "de.westemeyer";
+        when(mojo.getServiceTemplate(anyString())).thenReturn(ServiceTemplate.parse(TEMPLATE));
+        when(mojo.isFileUpToDate(any(File.class), any(byte[].class))).thenReturn(true);
+        when(mojo.checkFileExistsCaseSensitive(any(File.class), eq("MyServiceClass.java"))).thenReturn(true);
+        // when
+        assertDoesNotThrow(() -> mojo.writeClassFile("file", getSimpleTemplateValues(), "MyServiceClass"));
+        // then
+        verify(mojo, never()).createClassFileOutputStream(packageDir, "MyServiceClass.java");
+        assertEquals(1, mojo.filesSkipped);
+        assertEquals(0, mojo.filesWritten);
+    }
+
+    @Test
+    void writeServiceManifestUnchanged() throws IOException, MojoFailureException {
+        // given
+        GenerateServiceMojo mojo = getServiceMojoMock();
+        doCallRealMethod().when(mojo).writeServiceManifest(anyString(), anyString(), anyString());
+        when(mojo.isFileUpToDate(any(File.class),
+                eq("content\n".getBytes(StandardCharsets.UTF_8)))).thenReturn(true);
+        // when
+        assertDoesNotThrow(() -> mojo.writeServiceManifest("services", "fileName", "content"));
+        // then
+        verify(mojo, never()).createServiceFileOutputStream(any(File.class));
+        assertEquals(1, mojo.filesSkipped);
+        assertEquals(0, mojo.filesWritten);
+    }
+
+    @Test
+    void isFileUpToDate(@TempDir File tempDir) throws IOException {
+        // given
+        GenerateServiceMojo mojo = new GenerateServiceMojo();
+        File file = new File(tempDir, "Generated.java");
+        Files.write(file.toPath(), "class Generated {}".getBytes(StandardCharsets.UTF_8));
+        // when/then
+        assertTrue(mojo.isFileUpToDate(file, GenerateServiceMojo.encode("class Generated {}")));
+        assertFalse(mojo.isFileUpToDate(file, GenerateServiceMojo.encode("class Generated { }")));
+        assertFalse(mojo.isFileUpToDate(file, GenerateServiceMojo.encode("class Other {}")));
+        assertFalse(mojo.isFileUpToDate(new File(tempDir, "Missing.java"), GenerateServiceMojo.encode("class Generated {}")));
+        assertFalse(mojo.isFileUpToDate(tempDir, new byte[0]));
+    }
+
+    @Test
+    void isFileUpToDateInvalidPath() {
+        // given
+        File file = mock(File.class);
+        when(file.isFile()).thenReturn(true);
+        when(file.toPath()).thenThrow(InvalidPathException.class);
+        // when/then
+        assertFalse(new GenerateServiceMojo().isFileUpToDate(file, new byte[0]));
+    }
+
     private static Map<String, String> getSimpleTemplateValues() {
         Map<String, String> templateValues = new HashMap<>();
         templateValues.put("serviceClass", "MyServiceClass");
@@ -254,35 +455,69 @@ class GenerateServiceMojoTest {
     }
 
     @Test
-    void writeClassFileNullInputStream() throws MojoFailureException {
+    void loadServiceTemplateNullInputStream() {
         // given
         GenerateServiceMojo mojo = getServiceMojoMock();
-        doCallRealMethod().when(mojo).writeClassFile("file", null, "MyServiceClass");
-        mojo.packageName = "de.westemeyer";
+        assertDoesNotThrow(() -> doCallRealMethod().when(mojo).loadServiceTemplate("file"));
         // when
         MojoFailureException mojoFailureException = assertThrows(MojoFailureException.class,
-                () -> mojo.writeClassFile("file", null, "MyServiceClass"));
+                () -> mojo.loadServiceTemplate("file"));
         // then
         assertEquals("Failed to read service template from plugin resources", mojoFailureException.getMessage());
     }
 
     @Test
-    void writeClassFileClosingPrintWriterFails() throws MojoFailureException, IOException {
+    void loadServiceTemplate() throws MojoFailureException, IOException {
+        // given
+        GenerateServiceMojo mojo = getServiceMojoMock();
+        doCallRealMethod().when(mojo).loadServiceTemplate("file");
+        when(mojo.createServiceTemplateResourceStream("file")).thenReturn(
+                new ByteArrayInputStream(TEMPLATE.getBytes(StandardCharsets.UTF_8)));
+        when(mojo.readTemplateFile(any(Reader.class))).thenCallRealMethod();
+        // when/then
+        assertEquals(TEMPLATE, mojo.loadServiceTemplate("file"));
+    }
+
+    @Test
+    void loadServiceTemplateFails() throws MojoFailureException, IOException {
+        // given
+        GenerateServiceMojo mojo = getServiceMojoMock();
+        doCallRealMethod().when(mojo).loadServiceTemplate("file");
+        when(mojo.createServiceTemplateResourceStream("file")).thenReturn(
+                new ByteArrayInputStream(TEMPLATE.getBytes(StandardCharsets.UTF_8)));
+        when(mojo.readTemplateFile(any(Reader.class))).thenThrow(IOException.class);
+        // when/then
+        assertThrows(MojoFailureException.class, () -> mojo.loadServiceTemplate("file"));
+    }
+
+    @Test
+    void getServiceTemplateIsCached() throws MojoFailureException {
+        // given
+        String name = "cached-template-" + System.nanoTime();
+        GenerateServiceMojo mojo = getServiceMojoMock();
+        when(mojo.getServiceTemplate(name)).thenCallRealMethod();
+        when(mojo.loadServiceTemplate(name)).thenReturn(TEMPLATE);
+        // when
+        ServiceTemplate first = mojo.getServiceTemplate(name);
+        ServiceTemplate second = mojo.getServiceTemplate(name);
+        // then
+        assertSame(first, second);
+        verify(mojo, times(1)).loadServiceTemplate(name);
+    }
+
+    @Test
+    void writeClassFileClosingOutputStreamFails() throws MojoFailureException, IOException {
         // given
         File packageDir = new File("de/westemeyer");
         GenerateServiceMojo mojo = getServiceMojoMock();
         doCallRealMethod().when(mojo).writeClassFile(anyString(), anyMap(), anyString());
+        doCallRealMethod().when(mojo).writeSourceFile(any(File.class), anyString(), anyString(), anyMap());
         mojo.packageName = "de.westemeyer";
-        when(mojo.createServiceTemplateResourceStream(anyString())).thenReturn(
-                new ByteArrayInputStream(TEMPLATE.getBytes(
-                        StandardCharsets.UTF_8)));
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        when(mojo.getServiceTemplate(anyString())).thenReturn(ServiceTemplate.parse(TEMPLATE));
+        OutputStream outputStream = mock(OutputStream.class);
         when(mojo.createClassFileOutputStream(packageDir, "MyServiceClass.java")).thenReturn(outputStream);
-        when(mojo.readTemplateFile(any(Reader.class))).thenCallRealMethod();
-        PrintWriter printWriter = mock(PrintWriter.class);
-        when(mojo.createPrintWriter(any(OutputStream.class))).thenReturn(printWriter);
         Map<String, String> templateValues = getSimpleTemplateValues();
-        doThrow(IOException.class).when(printWriter).close();
+        doThrow(IOException.class).when(outputStream).close();
         // when
         assertThrows(MojoFailureException.class, () -> mojo.writeClassFile("file", templateValues, "MyServiceClass"));
         // then
@@ -294,14 +529,14 @@ class GenerateServiceMojoTest {
         // given
         File packageDir = new File("de/westemeyer");
         GenerateServiceMojo mojo = getServiceMojoMock();
-        doCallRealMethod().when(mojo).writeClassFile("file", null, "MyServiceClass");
+        doCallRealMethod().when(mojo).writeClassFile(anyString(), anyMap(), anyString());
+        doCallRealMethod().when(mojo).writeSourceFile(any(File.class), anyString(), anyString(), anyMap());
         mojo.packageName = "de.westemeyer";
-        when(mojo.createServiceTemplateResourceStream(anyString())).thenReturn(
-                new ByteArrayInputStream(TEMPLATE.getBytes(
-                        StandardCharsets.UTF_8)));
+        when(mojo.getServiceTemplate(anyString())).thenReturn(ServiceTemplate.parse(TEMPLATE));
         when(mojo.createClassFileOutputStream(packageDir, "MyServiceClass.java")).thenThrow(IOException.class);
+        Map<String, String> templateValues = getSimpleTemplateValues();
         // when
-        assertThrows(MojoFailureException.class, () -> mojo.writeClassFile("file", null, "MyServiceClass"));
+        assertThrows(MojoFailureException.class, () -> mojo.writeClassFile("file", templateValues, "MyServiceClass"));
         // then
         verify(mojo).makeDirectories(packageDir, "service class package");
     }
@@ -338,15 +573,20 @@ class GenerateServiceMojoTest {
     }
 
     @ParameterizedTest(name = "{0}")
-    @CsvSource({"service-template.txt,NATIVE,false",
-            "service-template-spring-boot.txt,SPRING_BOOT,false",
-            "service-template-spring-boot-with-parent.txt,SPRING_BOOT,true",
-            "service-template-with-parent.txt,NATIVE,true"})
-    void getTemplateResourceFileName(String expected, ServiceType serviceType, boolean hasParent) {
+    @CsvSource({"service-template.txt,NATIVE,false,COMPONENT_SCAN",
+            "service-template-spring-boot.txt,SPRING_BOOT,false,COMPONENT_SCAN",
+            "service-template-spring-boot-with-parent.txt,SPRING_BOOT,true,COMPONENT_SCAN",
+            "service-template-with-parent.txt,NATIVE,true,COMPONENT_SCAN",
+            "service-template.txt,SPRING_BOOT,false,BEAN_METHOD",
+            "service-template-with-parent.txt,SPRING_BOOT,true,BEAN_METHOD"})
+    void getTemplateResourceFileName(String expected, ServiceType serviceType, boolean hasParent,
+                                     SpringRegistration springRegistration) {
         // given
         GenerateServiceMojo mojo = getServiceMojoMock();
         when(mojo.getTemplateResourceFileName()).thenCallRealMethod();
+        when(mojo.isBeanMethodRegistration()).thenCallRealMethod();
         mojo.serviceType = serviceType;
+        mojo.springRegistration = springRegistration;
         if (hasParent) {
             MavenProject project = mojo.project;
             when(project.getParent()).thenReturn(project);
@@ -392,6 +632,135 @@ class GenerateServiceMojoTest {
         verify(mojo, times(times)).generateFiles();
     }
 
+    @Test
+    void executeKeepsConfiguredParameters(@TempDir File tempDir) throws MojoFailureException {
+        // given
+        GenerateServiceMojo mojo = getFileSystemMojo(tempDir, new File(tempDir, "target/generated-sources"));
+        mojo.serviceClass = "MyService";
+        // when
+        mojo.execute();
+        // then
+        assertTrue(new File(tempDir, "target/generated-sources/de/westemeyer/versions/MyService.java").isFile());
+        assertNull(mojo.packageName);
+        assertEquals("MyService", mojo.serviceClass);
+        assertNull(mojo.autoConfigurationClass);
+    }
+
+    @Test
+    void executeWritesReport(@TempDir File tempDir) throws MojoFailureException, IOException {
+        // given: a single module build with reports enabled
+        File targetFolder = new File(tempDir, "target/generated-sources");
+        GenerateServiceMojo mojo = getFileSystemMojo(tempDir, targetFolder);
+        when(mojo.project.getPackaging()).thenReturn("jar");
+        mojo.session = mock(MavenSession.class);
+        when(mojo.session.getRepositorySession()).thenReturn(new DefaultRepositorySystemSession());
+        when(mojo.session.getProjects()).thenReturn(Collections.singletonList(mojo.project));
+        when(mojo.session.getTopLevelProject()).thenReturn(mojo.project);
+        mojo.report = true;
+
+        // when
+        mojo.execute();
+
+        // then
+        String report = new String(Files.readAllBytes(new File(tempDir,
+                "target/maven-status/artifact-version-maven-plugin/GenerateServiceMojo/default/report.json").toPath()),
+                StandardCharsets.UTF_8);
+        assertTrue(report.startsWith("{\"module\": \"de.westemeyer:module:1.0.0\", "
+                + "\"execution\": \"GenerateServiceMojo/default\", \"totalNanos\": "));
+        assertTrue(report.contains("\"filesWritten\": 2, \"filesSkipped\": 0, \"bytesWritten\": "));
+        assertTrue(report.contains("\"stageNanos\": {\"parameters\": "));
+        assertTrue(report.contains("\"written\": true"));
+        String reactorReport = new String(Files.readAllBytes(new File(tempDir, "target/" + ReactorReport.FILE_NAME)
+                .toPath()), StandardCharsets.UTF_8);
+        assertTrue(reactorReport.startsWith("{\"executionCount\": 1, \"totalNanos\": "));
+        assertTrue(reactorReport.contains("{\"module\": \"de.westemeyer:module:1.0.0\""));
+        verify(mojo.getLog()).info("Reactor report written: " + new File(tempDir, "target/" + ReactorReport.FILE_NAME)
+                .getAbsoluteFile().toPath());
+    }
+
+    @Test
+    void writeExecutionReport(@TempDir File tempDir) throws MojoFailureException {
+        // given
+        GenerateServiceMojo mojo = getFileSystemMojo(tempDir, new File(tempDir, "target/generated-sources"));
+        // when/then: reports are disabled by default
+        assertFalse(mojo.writeExecutionReport(System.nanoTime()));
+        assertFalse(new File(tempDir, "target").exists());
+        // no build directory to write the report to
+        mojo.report = true;
+        mojo.project.getBuild().setDirectory(null);
+        assertTrue(mojo.writeExecutionReport(System.nanoTime()));
+        assertFalse(new File(tempDir, "target").exists());
+    }
+
+    @Test
+    void executeIncrementally(@TempDir File tempDir) throws MojoFailureException, IOException {
+        // given: a first (full) build
+        File targetFolder = new File(tempDir, "target/generated-sources");
+        BuildContext buildContext = mock(BuildContext.class);
+        GenerateServiceMojo mojo = getIncrementalMojo(tempDir, targetFolder, buildContext);
+        mojo.execute();
+        ArgumentCaptor<Object> configuration = ArgumentCaptor.forClass(Object.class);
+        verify(buildContext).setValue(eq("GenerateServiceMojo/default"), configuration.capture());
+        File serviceFile = new File(targetFolder, "de/westemeyer/versions/ModuleVersionService.java");
+        verify(buildContext).refresh(serviceFile);
+
+        // when: an incremental build without changes
+        when(buildContext.isIncremental()).thenReturn(true);
+        when(buildContext.getValue("GenerateServiceMojo/default")).thenReturn(configuration.getValue());
+        GenerateServiceMojo incrementalMojo = getIncrementalMojo(tempDir, targetFolder, buildContext);
+        long lastModified = serviceFile.lastModified();
+        incrementalMojo.execute();
+
+        // then: nothing has been generated (the timestamp would have changed), but the source root is still known
+        assertEquals(0, incrementalMojo.filesWritten + incrementalMojo.filesSkipped);
+        assertEquals(lastModified, serviceFile.lastModified());
+        verify(incrementalMojo.project).addCompileSourceRoot(targetFolder.getPath());
+        verify(incrementalMojo.getLog()).info("Generated files are up to date.");
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @CsvSource({"Full build,false,false,true,false,false",
+            "Pom changed,true,true,true,false,false",
+            "Configuration changed,true,false,false,false,false",
+            "Generated file deleted,true,false,true,true,false",
+            "Unchanged,true,false,true,false,true"})
+    void isIncrementalBuildUpToDate(String name, boolean incremental, boolean pomDelta, boolean sameConfiguration,
+                                    boolean deleteFile, boolean expected, @TempDir File tempDir)
+            throws MojoFailureException {
+        // given
+        File targetFolder = new File(tempDir, "target/generated-sources");
+        BuildContext buildContext = mock(BuildContext.class);
+        GenerateServiceMojo mojo = getIncrementalMojo(tempDir, targetFolder, buildContext);
+        mojo.execute();
+        String configuration = mojo.describeConfiguration();
+        when(buildContext.isIncremental()).thenReturn(incremental);
+        when(buildContext.hasDelta(mojo.project.getFile())).thenReturn(pomDelta);
+        when(buildContext.getValue("GenerateServiceMojo/default")).thenReturn(sameConfiguration ? configuration : "other");
+        if (deleteFile) {
+            assertTrue(new File(targetFolder, "de/westemeyer/versions/ModuleVersionService.java").delete());
+        }
+        // when/then
+        assertEquals(expected, mojo.isIncrementalBuildUpToDate(configuration));
+    }
+
+    @Test
+    void isIncrementalBuildUpToDateWithoutState(@TempDir File tempDir) {
+        // given
+        BuildContext buildContext = mock(BuildContext.class);
+        GenerateServiceMojo mojo = getIncrementalMojo(tempDir, new File(tempDir, "target/generated-sources"), buildContext);
+        String configuration = mojo.describeConfiguration();
+        when(buildContext.isIncremental()).thenReturn(true);
+        when(buildContext.getValue("GenerateServiceMojo/default")).thenReturn(configuration);
+        // when/then: there is no state file
+        assertFalse(mojo.isIncrementalBuildUpToDate(configuration));
+        // or no build directory
+        mojo.project.getBuild().setDirectory(null);
+        assertFalse(mojo.isIncrementalBuildUpToDate(configuration));
+        // or no pom file
+        when(mojo.project.getFile()).thenReturn(null);
+        assertFalse(mojo.isIncrementalBuildUpToDate(configuration));
+    }
+
     @ParameterizedTest(name = "{0}")
     @CsvSource({"Native Java service,NATIVE,services,de.westemeyer.version.core.api.ArtifactVersionService,de.westemeyer.versions.ArtifactVersionsVersionService,true",
             "Spring Boot service w/ AutoConfiguration,SPRING_BOOT,spring,org.springframework.boot.autoconfigure.AutoConfiguration.imports,de.westemeyer.versions.ArtifactVersionsAutoConfiguration,false",
@@ -426,6 +795,314 @@ class GenerateServiceMojoTest {
         }
     }
 
+    @Test
+    void generateFilesIndex() throws MojoFailureException {
+        // given
+        GenerateServiceMojo mojo = getServiceMojoMock();
+        mojo.serviceType = ServiceType.INDEX;
+        doCallRealMethod().when(mojo).generateFiles();
+        // when
+        mojo.generateFiles();
+        // then
+        verify(mojo).generateIndex();
+        verify(mojo, never()).writeClassFile(anyString(), anyMap(), anyString());
+        verify(mojo.project, never()).addCompileSourceRoot(anyString());
+    }
+
+    @Test
+    void generateIndex(@TempDir File tempDir) throws MojoFailureException, IOException {
+        // given
+        GenerateServiceMojo mojo = new GenerateServiceMojo();
+        Log log = mock(Log.class);
+        mojo.setLog(log);
+        mojo.timestampSource = TimestampSource.FIXED;
+        mojo.fixedTimestamp = "1672531200";
+        MavenProject project = getMavenProject("de.westemeyer", "artifact-versions", "1.0.0");
+        MavenProject parentProject = getMavenProject("de.westemeyer", "parent", "2.0.0");
+        MavenProject rootProject = getMavenProject("de.westemeyer", "root", "3.0.0");
+        when(project.getParent()).thenReturn(parentProject);
+        when(parentProject.getParent()).thenReturn(rootProject);
+        when(project.getName()).thenReturn("Name");
+        Build build = mock(Build.class);
+        when(build.getOutputDirectory()).thenReturn(tempDir.getPath());
+        when(project.getBuild()).thenReturn(build);
+        mojo.project = project;
+
+        // when
+        mojo.generateIndex();
+        mojo.generateIndex();
+
+        // then
+        ArtifactDescriptor root = new ArtifactDescriptor("de.westemeyer", "root", "3.0.0", null);
+        ArtifactDescriptor parent = new ArtifactDescriptor("de.westemeyer", "parent", "2.0.0", root);
+        try (InputStream stream = Files.newInputStream(new File(tempDir, ArtifactIndex.RESOURCE_NAME).toPath())) {
+            assertEquals(Collections.singletonList(
+                    new ArtifactDescriptor("de.westemeyer", "artifact-versions", "1.0.0", 1672531200000L, "Name",
+                            null, null, parent)), ArtifactIndex.read(stream));
+        }
+        assertEquals(1, mojo.filesWritten);
+        assertEquals(1, mojo.filesSkipped);
+        verify(log, times(2)).warn("The artifact version index is not found by an ArtifactVersionCollector, include "
+                + "this module in a registry generated by the generate-registry goal of the application module.");
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @CsvSource({"Native Java service,NATIVE,false,META-INF/services/de.westemeyer.version.core.api.ArtifactVersionService",
+            "Spring Boot service w/ AutoConfiguration,SPRING_BOOT,false,META-INF/spring/org.springframework.boot.autoconfigure.AutoConfiguration.imports",
+            "Spring Boot service w/o AutoConfiguration,SPRING_BOOT,true,"})
+    void generateFilesBytecode(String name, ServiceType type, boolean skipAutoConfiguration, String manifest,
+                               @TempDir File tempDir) throws MojoFailureException {
+        // given
+        GenerateServiceMojo mojo = getBytecodeMojo(tempDir);
+        mojo.serviceType = type;
+        mojo.skipSpringBootAutoConfiguration = skipAutoConfiguration;
+
+        // when
+        mojo.generateFiles();
+
+        // then
+        assertTrue(new File(tempDir, "classes/de/westemeyer/versions/ArtifactVersionsVersionService.class").isFile());
+        assertEquals(type == ServiceType.SPRING_BOOT && !skipAutoConfiguration,
+                new File(tempDir, "classes/de/westemeyer/versions/ArtifactVersionsAutoConfiguration.class").isFile());
+        assertEquals(manifest != null, manifest != null && new File(tempDir, "classes/" + manifest).isFile());
+        assertFalse(new File(tempDir, "generated").exists());
+        verify(mojo.project, never()).addCompileSourceRoot(anyString());
+    }
+
+    @Test
+    void generateFilesBeanMethod(@TempDir File tempDir) throws MojoFailureException, IOException {
+        // given
+        GenerateServiceMojo mojo = getBytecodeMojo(tempDir);
+        mojo.generateBytecode = false;
+        mojo.springRegistration = SpringRegistration.BEAN_METHOD;
+
+        // when
+        mojo.generateFiles();
+
+        // then: the service is not annotated for scanning, but registered by the configuration class
+        String packageDir = "generated/de/westemeyer/versions/";
+        String service = new String(Files.readAllBytes(new File(tempDir, packageDir
+                + "ArtifactVersionsVersionService.java").toPath()), StandardCharsets.UTF_8);
+        String configuration = new String(Files.readAllBytes(new File(tempDir, packageDir
+                + "ArtifactVersionsAutoConfiguration.java").toPath()), StandardCharsets.UTF_8);
+        assertFalse(service.contains("@Service"));
+        assertTrue(configuration.contains("@Configuration(proxyBeanMethods = false)"));
+        assertTrue(configuration.contains(
+                "public ArtifactVersionsVersionService artifactVersionsVersionService() {"));
+        assertFalse(configuration.contains("@ComponentScan"));
+        assertTrue(new File(tempDir, "classes/META-INF/spring/"
+                + "org.springframework.boot.autoconfigure.AutoConfiguration.imports").isFile());
+    }
+
+    @Test
+    void generateFilesBytecodeBeanMethod(@TempDir File tempDir) throws MojoFailureException {
+        // given
+        GenerateServiceMojo mojo = getBytecodeMojo(tempDir);
+        mojo.springRegistration = SpringRegistration.BEAN_METHOD;
+
+        // when
+        mojo.generateFiles();
+
+        // then
+        assertTrue(new File(tempDir, "classes/de/westemeyer/versions/ArtifactVersionsVersionService.class").isFile());
+        assertTrue(new File(tempDir, "classes/de/westemeyer/versions/ArtifactVersionsAutoConfiguration.class")
+                .isFile());
+        verify(mojo.project, never()).addCompileSourceRoot(anyString());
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @CsvSource({"Spring Boot service,SPRING_BOOT,COMPONENT_SCAN,true,true",
+            "Spring Boot service w/o index,SPRING_BOOT,COMPONENT_SCAN,false,false",
+            "Spring Boot service registered by bean method,SPRING_BOOT,BEAN_METHOD,true,false",
+            "Native Java service,NATIVE,COMPONENT_SCAN,true,false"})
+    void generateFilesComponentIndex(String name, ServiceType type, SpringRegistration springRegistration,
+                                     boolean generateComponentIndex, boolean expected, @TempDir File tempDir)
+            throws MojoFailureException, IOException {
+        // given
+        GenerateServiceMojo mojo = getBytecodeMojo(tempDir);
+        mojo.serviceType = type;
+        mojo.springRegistration = springRegistration;
+        mojo.generateComponentIndex = generateComponentIndex;
+
+        // when
+        mojo.generateFiles();
+
+        // then
+        File index = new File(tempDir, "classes/META-INF/spring.components");
+        assertEquals(expected, index.isFile());
+        if (expected) {
+            assertEquals(Collections.singletonList("de.westemeyer.versions.ArtifactVersionsVersionService="
+                    + "org.springframework.stereotype.Component"), Files.readAllLines(index.toPath()));
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @CsvSource({"Native Java service,NATIVE,true,META-INF/services/de.westemeyer.version.core.api.ArtifactVersionService",
+            "Spring Boot service,SPRING_BOOT,true,META-INF/spring/org.springframework.boot.autoconfigure.AutoConfiguration.imports",
+            "Binary index,INDEX,false,META-INF/artifact-versions.idx"})
+    void generateFilesNativeImageMetadata(String name, ServiceType type, boolean reflection, String resource,
+                                          @TempDir File tempDir) throws MojoFailureException, IOException {
+        // given
+        GenerateServiceMojo mojo = getBytecodeMojo(tempDir);
+        mojo.serviceType = type;
+        mojo.generateNativeImageMetadata = true;
+
+        // when
+        mojo.generateFiles();
+
+        // then
+        File directory = new File(tempDir, "classes/META-INF/native-image/de.westemeyer/artifact-versions");
+        File reflectConfig = new File(directory, NativeImageMetadata.REFLECT_CONFIG);
+        assertEquals(reflection, reflectConfig.isFile());
+        if (reflection) {
+            assertTrue(new String(Files.readAllBytes(reflectConfig.toPath()), StandardCharsets.UTF_8)
+                    .contains("\"de.westemeyer.versions.ArtifactVersionsVersionService\""));
+        }
+        String resourceConfig = new String(Files.readAllBytes(new File(directory,
+                NativeImageMetadata.RESOURCE_CONFIG).toPath()), StandardCharsets.UTF_8);
+        assertTrue(resourceConfig.contains("\\\\Q" + resource + "\\\\E"));
+        assertTrue(new File(tempDir, "classes/" + resource).isFile());
+    }
+
+    @ParameterizedTest(name = "bytecode: {0}")
+    @CsvSource({"false,generated/module-info.java", "true,classes/module-info.class"})
+    void generateFilesModuleInfo(boolean bytecode, String descriptor, @TempDir File tempDir)
+            throws MojoFailureException, IOException {
+        // given
+        GenerateServiceMojo mojo = getBytecodeMojo(tempDir);
+        mojo.generateBytecode = bytecode;
+        mojo.serviceType = ServiceType.NATIVE;
+        mojo.moduleInfo = ModuleInfoMode.GENERATE;
+        when(mojo.project.getCompileSourceRoots()).thenReturn(Collections.singletonList(mojo.targetFolder.getPath()));
+
+        // when
+        mojo.generateFiles();
+
+        // then
+        File file = new File(tempDir, descriptor);
+        assertTrue(file.isFile());
+        if (!bytecode) {
+            String source = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+            assertTrue(source.contains("module de.westemeyer.artifact.versions {"));
+            assertTrue(source.contains("requires artifact.version.core;"));
+            assertTrue(ModuleDescriptor.provides(source, GenerateServiceMojo.ARTIFACT_VERSION_SERVICE,
+                    "de.westemeyer.versions.ArtifactVersionsVersionService"));
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @CsvSource({"VERIFY,true", "GENERATE,true", "NONE,false"})
+    void generateFilesVerifiesModuleInfo(ModuleInfoMode moduleInfo, boolean fails, @TempDir File tempDir)
+            throws IOException {
+        // given: a module descriptor without provides clause
+        GenerateServiceMojo mojo = getBytecodeMojo(tempDir);
+        mojo.serviceType = ServiceType.NATIVE;
+        mojo.moduleInfo = moduleInfo;
+        File sources = new File(tempDir, "src");
+        assertTrue(sources.mkdirs());
+        Files.write(new File(sources, ModuleDescriptor.FILE_NAME).toPath(),
+                "module my.app {\n}\n".getBytes(StandardCharsets.UTF_8));
+        when(mojo.project.getCompileSourceRoots()).thenReturn(Collections.singletonList(sources.getPath()));
+
+        // when/then
+        if (fails) {
+            MojoFailureException exception = assertThrows(MojoFailureException.class, mojo::generateFiles);
+            assertTrue(exception.getMessage().endsWith("please add: provides "
+                    + "de.westemeyer.version.core.api.ArtifactVersionService with "
+                    + "de.westemeyer.versions.ArtifactVersionsVersionService;"));
+        } else {
+            assertDoesNotThrow(mojo::generateFiles);
+        }
+        assertFalse(new File(tempDir, "classes/module-info.class").exists());
+    }
+
+    @Test
+    void generateFilesModuleInfoInvalidName(@TempDir File tempDir) {
+        GenerateServiceMojo mojo = getBytecodeMojo(tempDir);
+        mojo.serviceType = ServiceType.NATIVE;
+        mojo.moduleInfo = ModuleInfoMode.GENERATE;
+        mojo.moduleName = "1invalid";
+        assertThrows(MojoFailureException.class, mojo::generateFiles);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"ArtifactVersionsVersionService,artifactVersionsVersionService", "URLVersionService,URLVersionService",
+            "A,a", "a,a"})
+    void getBeanName(String className, String expected) {
+        assertEquals(expected, GenerateServiceMojo.getBeanName(className));
+    }
+
+    @Test
+    void isBeanMethodRegistration() {
+        GenerateServiceMojo mojo = new GenerateServiceMojo();
+        assertFalse(mojo.isBeanMethodRegistration());
+        mojo.springRegistration = SpringRegistration.BEAN_METHOD;
+        assertTrue(mojo.isBeanMethodRegistration());
+        mojo.skipSpringBootAutoConfiguration = true;
+        assertFalse(mojo.isBeanMethodRegistration());
+        mojo.skipSpringBootAutoConfiguration = false;
+        mojo.serviceType = ServiceType.NATIVE;
+        assertFalse(mojo.isBeanMethodRegistration());
+    }
+
+    @Test
+    void generateFilesBytecodeInvalidClassName(@TempDir File tempDir) throws MojoFailureException {
+        // given
+        GenerateServiceMojo mojo = getBytecodeMojo(tempDir);
+        mojo.serviceType = ServiceType.NATIVE;
+        mojo.serviceClass = "Invalid-Name";
+
+        // when
+        mojo.generateFiles();
+
+        // then: fall back to source generation
+        assertFalse(new File(tempDir, "classes/de/westemeyer/versions/Invalid-Name.class").exists());
+        assertTrue(new File(tempDir, "generated/de/westemeyer/versions/Invalid-Name.java").isFile());
+        verify(mojo.project).addCompileSourceRoot(mojo.targetFolder.getPath());
+    }
+
+    @Test
+    void writeBytecodeFilesFails() throws MojoFailureException {
+        // given
+        GenerateServiceMojo mojo = getServiceMojoMock();
+        when(mojo.getLog()).thenReturn(mock(Log.class));
+        mojo.packageName = "my.pkg";
+        mojo.serviceClass = "Service";
+        mojo.serviceType = ServiceType.NATIVE;
+        char[] description = new char[70000];
+        Arrays.fill(description, 'x');
+        when(mojo.createArtifactDescriptor()).thenReturn(
+                new ArtifactDescriptor("g", "a", "v", 0L, null, new String(description), null, null));
+        when(mojo.writeBytecodeFiles(false)).thenCallRealMethod();
+
+        // when/then: string constant too large for a class file
+        assertFalse(mojo.writeBytecodeFiles(false));
+        verify(mojo, never()).writeResourceFile(anyString(), any(byte[].class));
+    }
+
+    private static GenerateServiceMojo getBytecodeMojo(File tempDir) {
+        GenerateServiceMojo mojo = new GenerateServiceMojo();
+        mojo.setLog(mock(Log.class));
+        mojo.generateBytecode = true;
+        mojo.targetFolder = new File(tempDir, "generated");
+        MavenProject project = getMavenProject("de.westemeyer", "artifact-versions", "1.0.0");
+        Build build = mock(Build.class);
+        when(build.getOutputDirectory()).thenReturn(new File(tempDir, "classes").getPath());
+        when(project.getBuild()).thenReturn(build);
+        mojo.project = project;
+        return mojo;
+    }
+
+    @Test
+    void writeResourceFileFails() throws IOException, MojoFailureException {
+        // given
+        GenerateServiceMojo mojo = getServiceMojoMock();
+        doCallRealMethod().when(mojo).writeResourceFile(anyString(), any(byte[].class));
+        when(mojo.createServiceFileOutputStream(any(File.class))).thenThrow(IOException.class);
+        // when/then
+        assertThrows(MojoFailureException.class, () -> mojo.writeResourceFile("file.idx", new byte[0]));
+    }
+
     @ParameterizedTest
     @CsvSource({"abc,def,SPRING_BOOT,abc,def",
             "abc,abc,SPRING_BOOT,abc,abcAutoConfiguration",
@@ -463,31 +1140,173 @@ class GenerateServiceMojoTest {
     }
 
     @Test
-    void checkFileExistsCaseSensitive() throws IOException {
+    void checkFileExistsCaseSensitive(@TempDir File tempDir) throws IOException {
         // given
-        File file = mock(File.class);
-        GenerateServiceMojo mojo = getServiceMojoMock();
-        when(mojo.checkFileExistsCaseSensitive(any(File.class), anyString())).thenCallRealMethod();
-        when(file.getCanonicalFile()).thenReturn(file);
-        when(file.getName()).thenReturn("MyCamelCaseName");
+        File file = new File(tempDir, "MyCamelCaseName.java");
+        assertTrue(file.createNewFile());
+        GenerateServiceMojo mojo = spy(new GenerateServiceMojo());
         // when/then
         assertTrue(mojo.checkFileExistsCaseSensitive(file, file.getName()));
-        assertFalse(mojo.checkFileExistsCaseSensitive(file, "otherFileName.java"));
+        assertFalse(mojo.checkFileExistsCaseSensitive(file, "mycamelcasename.java"));
+        assertFalse(mojo.checkFileExistsCaseSensitive(new File(tempDir, "Other.java"), "Other.java"));
+        // the directory has been listed only once
+        verify(mojo).listDirectory(tempDir);
     }
 
     @Test
-    void checkFileExistsCaseSensitiveFails() throws IOException {
+    void checkFileExistsCaseSensitiveFails(@TempDir File tempDir) {
         // given
-        File file = mock(File.class);
-        GenerateServiceMojo mojo = getServiceMojoMock();
-        when(mojo.checkFileExistsCaseSensitive(any(File.class), anyString())).thenCallRealMethod();
-        when(file.getCanonicalFile()).thenThrow(IOException.class);
+        GenerateServiceMojo mojo = new GenerateServiceMojo();
+        File file = new File(new File(tempDir, "missing"), "otherFileName.java");
         // when
         boolean checkFileExistsCaseSensitive = mojo.checkFileExistsCaseSensitive(file, "otherFileName.java");
         // then
         assertFalse(checkFileExistsCaseSensitive);
     }
 
+    @Test
+    void removeStaleFiles(@TempDir File tempDir) throws MojoFailureException, IOException {
+        // given: a previous execution generated a class that has been renamed since
+        File targetFolder = new File(tempDir, "target/generated-sources/artifact-versions");
+        GenerateServiceMojo mojo = getFileSystemMojo(tempDir, targetFolder);
+        mojo.serviceClass = "OldVersionService";
+        mojo.generateFiles();
+        File oldClass = new File(targetFolder, "de/westemeyer/versions/OldVersionService.java");
+        assertTrue(oldClass.isFile());
+
+        // when
+        GenerateServiceMojo nextMojo = getFileSystemMojo(tempDir, targetFolder);
+        nextMojo.serviceClass = "NewVersionService";
+        nextMojo.generateFiles();
+
+        // then
+        assertFalse(oldClass.exists());
+        assertTrue(new File(targetFolder, "de/westemeyer/versions/NewVersionService.java").isFile());
+        File stateFile = new File(tempDir, "target/maven-status/artifact-version-maven-plugin/GenerateServiceMojo/default/"
+                + AbstractArtifactVersionMojo.STATE_FILE_NAME);
+        assertEquals(Arrays.asList(
+                        new File("generated-sources/artifact-versions/de/westemeyer/versions/NewVersionService.java").getPath(),
+                        new File("classes/META-INF/services/" + AbstractArtifactVersionMojo.ARTIFACT_VERSION_SERVICE).getPath()),
+                Files.readAllLines(stateFile.toPath(), StandardCharsets.UTF_8));
+        verify(nextMojo.getLog()).info("Removed stale generated file: " + oldClass.toPath());
+    }
+
+    @Test
+    void generateFilesConcurrently(@TempDir File tempDir) throws InterruptedException, ExecutionException, IOException {
+        // given: many executions writing different content to the same files
+        File targetFolder = new File(tempDir, "target/generated-sources/artifact-versions");
+        File serviceFile = new File(targetFolder, "de/westemeyer/versions/ModuleVersionService.java");
+        File manifest = new File(tempDir, "target/classes/META-INF/services/" + AbstractArtifactVersionMojo.ARTIFACT_VERSION_SERVICE);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        AtomicBoolean running = new AtomicBoolean(true);
+        try {
+            // readers must never see partially written files
+            Future<Integer> reader = executor.submit(() -> {
+                int reads = 0;
+                while (running.get()) {
+                    if (serviceFile.isFile()) {
+                        String content = new String(Files.readAllBytes(serviceFile.toPath()), StandardCharsets.UTF_8);
+                        assertTrue(content.startsWith("package de.westemeyer.versions;"));
+                        assertTrue(content.endsWith("    }\n}\n"));
+                        reads++;
+                    }
+                }
+                return reads;
+            });
+
+            // when
+            List<Future<?>> writers = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                GenerateServiceMojo mojo = getFileSystemMojo(tempDir, targetFolder);
+                mojo.timestampSource = TimestampSource.FIXED;
+                mojo.fixedTimestamp = String.valueOf(i);
+                writers.add(executor.submit(() -> {
+                    mojo.generateFiles();
+                    return null;
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+            running.set(false);
+
+            // then
+            assertTrue(reader.get() > 0);
+            assertEquals("de.westemeyer.versions.ModuleVersionService\n",
+                    new String(Files.readAllBytes(manifest.toPath()), StandardCharsets.UTF_8));
+            String[] files = serviceFile.getParentFile().list();
+            assertNotNull(files);
+            assertEquals(Collections.singletonList("ModuleVersionService.java"), Arrays.asList(files));
+        } finally {
+            running.set(false);
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void removeStaleFilesWithoutBuildDirectory() throws MojoFailureException {
+        // given
+        GenerateServiceMojo mojo = getServiceMojoMock();
+        doCallRealMethod().when(mojo).removeStaleFiles();
+        // when
+        mojo.removeStaleFiles();
+        // then
+        verify(mojo, never()).getStateFile(any(File.class));
+    }
+
+    @Test
+    void removeStaleFilesKeepsUnreadableState(@TempDir File tempDir) throws MojoFailureException {
+        // given: the state file path is a directory
+        File targetFolder = new File(tempDir, "target/generated-sources/artifact-versions");
+        GenerateServiceMojo mojo = getFileSystemMojo(tempDir, targetFolder);
+        File stateFile = mojo.getStateFile(new File(tempDir, "target"));
+        assertTrue(new File(stateFile, "content").mkdirs());
+        // when
+        assertThrows(MojoFailureException.class, mojo::generateFiles);
+        // then
+        assertTrue(new File(stateFile, "content").isDirectory());
+    }
+
+    @Test
+    void readStateFileFails(@TempDir File tempDir) throws IOException {
+        // given
+        GenerateServiceMojo mojo = new GenerateServiceMojo();
+        Log log = mock(Log.class);
+        mojo.setLog(log);
+        File stateFile = new File(tempDir, "state.lst");
+        Files.write(stateFile.toPath(), new byte[]{(byte) 0xff, (byte) 0xfe});
+        // when
+        List<Path> files = mojo.readStateFile(stateFile, tempDir.toPath());
+        // then
+        assertTrue(files.isEmpty());
+        verify(log).warn("Unable to read state file, stale generated files are not removed: " + stateFile);
+    }
+
+    @Test
+    void getStateFile() {
+        // given
+        GenerateServiceMojo mojo = new GenerateServiceMojo();
+        MojoExecution execution = mock(MojoExecution.class);
+        when(execution.getGoal()).thenReturn("generate-service");
+        when(execution.getExecutionId()).thenReturn("my-execution");
+        mojo.mojoExecution = execution;
+        // when
+        File stateFile = mojo.getStateFile(new File("target"));
+        // then
+        assertEquals(new File("target/maven-status/artifact-version-maven-plugin/generate-service/my-execution/"
+                + AbstractArtifactVersionMojo.STATE_FILE_NAME), stateFile);
+    }
+
+    @Test
+    void relativize() {
+        Path buildDirectory = new File("project/target").getAbsoluteFile().toPath();
+        assertEquals(new File("classes/a.txt").getPath(),
+                AbstractArtifactVersionMojo.relativize(buildDirectory, buildDirectory.resolve("classes/a.txt")));
+        assertEquals(new File("../src/a.txt").getPath(),
+                AbstractArtifactVersionMojo.relativize(buildDirectory, buildDirectory.resolve("../src/a.txt").normalize()));
+        assertEquals("a.txt", AbstractArtifactVersionMojo.relativize(buildDirectory, new File("a.txt").toPath()));
+    }
+
     public static Stream<Arguments> lineFeedInput() {
         return Stream.of(Arguments.of("Only line feed", "my\nline", "my\\nline"),
                 Arguments.of("Carriage return and line feed", "my\r\nline", "my\\nline"),
@@ -575,12 +1394,160 @@ class GenerateServiceMojoTest {
         });
     }
 
+    private static MavenSession getSession(File rootDirectory) {
+        MavenExecutionRequest request = mock(MavenExecutionRequest.class);
+        when(request.getMultiModuleProjectDirectory()).thenReturn(rootDirectory);
+        MavenSession session = mock(MavenSession.class);
+        when(session.getRequest()).thenReturn(request);
+        when(session.getUserProperties()).thenReturn(new Properties());
+        return session;
+    }
+
+    private static GenerateServiceMojo getIncrementalMojo(File tempDir, File targetFolder, BuildContext buildContext) {
+        GenerateServiceMojo mojo = getFileSystemMojo(tempDir, targetFolder);
+        mojo.buildContext = buildContext;
+        mojo.timestampSource = TimestampSource.FIXED;
+        mojo.fixedTimestamp = "1672531200";
+        when(mojo.project.getFile()).thenReturn(new File(tempDir, "pom.xml"));
+        when(mojo.project.getPackaging()).thenReturn("jar");
+        return mojo;
+    }
+
+    private static GenerateServiceMojo getFileSystemMojo(File tempDir, File targetFolder) {
+        Build build = new Build();
+        build.setDirectory(new File(tempDir, "target").getPath());
+        build.setOutputDirectory(new File(tempDir, "target/classes").getPath());
+        MavenProject project = mock(MavenProject.class);
+        when(project.getGroupId()).thenReturn("de.westemeyer");
+        when(project.getArtifactId()).thenReturn("module");
+        when(project.getVersion()).thenReturn("1.0.0");
+        when(project.getBuild()).thenReturn(build);
+        GenerateServiceMojo mojo = new GenerateServiceMojo();
+        mojo.setLog(mock(Log.class));
+        mojo.project = project;
+        mojo.targetFolder = targetFolder;
+        mojo.serviceType = ServiceType.NATIVE;
+        return mojo;
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_17)
+    void generatedServiceProvidesExtendedMetadata(@TempDir File tempDir) throws Exception {
+        // given
+        GenerateServiceMojo mojo = new GenerateServiceMojo();
+        mojo.setLog(mock(Log.class));
+        mojo.project = mock(MavenProject.class);
+        License license = new License();
+        license.setName("Apache License, Version 2.0");
+        license.setUrl("https://www.apache.org/licenses/LICENSE-2.0.txt");
+        Developer developer = new Developer();
+        developer.setId("swesteme");
+        developer.setName("Sebastian \"Westemeyer\"");
+        Scm scm = new Scm();
+        scm.setUrl("https://github.com/swesteme/artifact-version-maven-plugin");
+        when(mojo.project.getLicenses()).thenReturn(Collections.singletonList(license));
+        when(mojo.project.getDevelopers()).thenReturn(Arrays.asList(developer, new Developer()));
+        when(mojo.project.getScm()).thenReturn(scm);
+        Map<String, String> values = new HashMap<>();
+        values.put("groupId", "de.westemeyer");
+        values.put("artifactId", "app");
+        values.put("package", "generated");
+        values.put("serviceClass", "MetadataVersionService");
+        values.put("version", "1.0");
+        values.put("timestamp", "0");
+        values.put("name", null);
+        values.put("description", null);
+        values.put("url", null);
+        values.put("dependencyTree", "");
+        values.put("gitMetadata", "");
+
+        // when
+        values.put("extendedMetadata", mojo.renderExtendedMetadata(values));
+        Class<?> serviceClass = GeneratedSourceCompiler.compileAndLoad(tempDir, "generated.MetadataVersionService",
+                mojo.getServiceTemplate("service-template.txt").render(values));
+
+        // then
+        Object metadata = serviceClass.getMethod("getMetadata").invoke(null);
+        assertNull(metadata.getClass().getMethod("getOrganization").invoke(metadata));
+        assertEquals(scm.getUrl(), metadata.getClass().getMethod("getScmUrl").invoke(metadata));
+        List<?> licenses = (List<?>) metadata.getClass().getMethod("getLicenses").invoke(metadata);
+        assertEquals(1, licenses.size());
+        assertEquals(license.getName(), licenses.get(0).toString());
+        List<?> developers = (List<?>) metadata.getClass().getMethod("getDevelopers").invoke(metadata);
+        assertEquals(2, developers.size());
+        assertEquals(developer.getName(), developers.get(0).toString());
+        assertNull(developers.get(1).toString());
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_17)
+    void generatedServiceProvidesGitMetadata(@TempDir File tempDir) throws Exception {
+        // given: a module in a subdirectory of the repository
+        File gitDirectory = GitFixture.init(tempDir, "ref: refs/heads/main");
+        String commit = GitFixture.writeLooseObject(gitDirectory, "commit", GitFixture.commit(1672531200L, "Initial"));
+        GitFixture.write(new File(gitDirectory, "refs/heads/main"), commit + "\n");
+        GenerateServiceMojo mojo = new GenerateServiceMojo();
+        mojo.setLog(mock(Log.class));
+        mojo.project = getMavenProject("de.westemeyer", "app", "1.0");
+        when(mojo.project.getBasedir()).thenReturn(new File(tempDir, "app"));
+        mojo.packageName = "generated";
+        mojo.serviceClass = "GitVersionService";
+        mojo.embedGitMetadata = true;
+
+        // when
+        Map<String, String> values = mojo.getTemplateValues("GitAutoConfiguration");
+        values.put("gitMetadata", mojo.renderGitMetadata(values));
+        Class<?> serviceClass = GeneratedSourceCompiler.compileAndLoad(new File(tempDir, "classes"),
+                "generated.GitVersionService", mojo.getServiceTemplate("service-template.txt").render(values));
+
+        // then
+        assertEquals(commit, values.get("gitCommit"));
+        assertEquals("main", values.get("gitBranch"));
+        assertEquals("1672531200000", values.get("gitCommitTime"));
+        assertEquals(commit, serviceClass.getMethod("getGitCommit").invoke(null));
+        assertEquals("main", serviceClass.getMethod("getGitBranch").invoke(null));
+        assertEquals(1672531200000L, serviceClass.getMethod("getGitCommitTime").invoke(null));
+    }
+
+    @Test
+    void renderGitMetadataOutsideRepository() throws MojoFailureException {
+        // given
+        GenerateServiceMojo mojo = new GenerateServiceMojo();
+        Map<String, String> values = new HashMap<>();
+        values.put("gitCommit", null);
+        values.put("gitBranch", null);
+        values.put("gitCommitTime", null);
+
+        // when
+        String definition = mojo.renderGitMetadata(values);
+
+        // then
+        assertTrue(definition.contains("public static String getGitCommit() {\n        return null;\n"));
+        assertTrue(definition.contains("public static Long getGitCommitTime() {\n        return null;\n"));
+    }
+
+    @Test
+    void readGitCommitTime(@TempDir File tempDir) throws IOException {
+        // given
+        File gitDirectory = GitFixture.init(tempDir, "ref: refs/heads/main");
+        String commit = GitFixture.writeLooseObject(gitDirectory, "commit", GitFixture.commit(1672531200L, "Initial"));
+        GitFixture.write(new File(gitDirectory, "HEAD"), commit + "\n");
+        GenerateServiceMojo mojo = new GenerateServiceMojo();
+        mojo.setLog(mock(Log.class));
+        mojo.project = mock(MavenProject.class);
+        when(mojo.project.getBasedir()).thenReturn(tempDir);
+
+        // when/then
+        assertEquals("1672531200", mojo.readGitCommitTime());
+    }
+
     private static GenerateServiceMojo getServiceMojoMock() {
         Build build = mock(Build.class);
         MavenProject project = mock(MavenProject.class);
         when(project.getBuild()).thenReturn(build);
         GenerateServiceMojo mojo = mock(GenerateServiceMojo.class);
         mojo.project = project;
+        mojo.buildContext = mock(BuildContext.class);
         return mojo;
     }
 }
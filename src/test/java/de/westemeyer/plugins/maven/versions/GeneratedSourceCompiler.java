@@ -0,0 +1,47 @@
+package de.westemeyer.plugins.maven.versions;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compiles generated source files against artifact-version-core and loads the resulting classes. The core library
+ * requires Java 17 and is only on the test class path there, so it is referenced by name and all tests using this
+ * class have to be restricted to Java 17.
+ */
+final class GeneratedSourceCompiler {
+    /**
+     * Artifact class of artifact-version-core.
+     */
+    private static final String ARTIFACT_CLASS = "de.westemeyer.version.core.model.Artifact";
+
+    private GeneratedSourceCompiler() {
+    }
+
+    /**
+     * Compile a generated class (skips the test without a java compiler) and load it in a new class loader.
+     */
+    static Class<?> compileAndLoad(File directory, String className, String source) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assumeTrue(compiler != null);
+        File sourceFile = new File(directory, className.replace('.', '/') + ".java");
+        assertTrue(sourceFile.getParentFile().isDirectory() || sourceFile.getParentFile().mkdirs());
+        Files.write(sourceFile.toPath(), source.getBytes(StandardCharsets.UTF_8));
+        Class<?> artifactClass = Class.forName(ARTIFACT_CLASS);
+        String classPath = new File(artifactClass.getProtectionDomain().getCodeSource().getLocation().toURI())
+                .getPath();
+        assertEquals(0, compiler.run(null, null, null, "-cp", classPath, "-d", directory.getPath(),
+                sourceFile.getPath()));
+        URLClassLoader classLoader = new URLClassLoader(new URL[]{directory.toURI().toURL()},
+                artifactClass.getClassLoader());
+        return classLoader.loadClass(className);
+    }
+}
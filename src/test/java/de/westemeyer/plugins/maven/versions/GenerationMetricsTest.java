@@ -0,0 +1,56 @@
+package de.westemeyer.plugins.maven.versions;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GenerationMetricsTest {
+
+    @Test
+    void toJson() {
+        // given
+        Path buildDirectory = Paths.get("/project/target").toAbsolutePath();
+        GenerationMetrics metrics = new GenerationMetrics();
+        metrics.addStage(GenerationMetrics.PARAMETERS, 10);
+        metrics.addFile(GenerationMetrics.FILES, buildDirectory.resolve("generated-sources/A.java"), 100, true, 20);
+        metrics.addFile(GenerationMetrics.FILES, buildDirectory.resolve("generated-sources/B.java"), 50, false, 5);
+        metrics.addFile(GenerationMetrics.MANIFESTS, buildDirectory.resolve("classes/META-INF/services/S"), 12, true, 3);
+        metrics.addStage(GenerationMetrics.PARAMETERS, 1);
+        // when
+        metrics.finish("g:a:1.0", "generate-service/default", 100);
+        // then
+        assertEquals(2, metrics.getFilesWritten());
+        assertEquals(1, metrics.getFilesSkipped());
+        assertEquals(112, metrics.getBytesWritten());
+        assertEquals("{\"module\": \"g:a:1.0\", \"execution\": \"generate-service/default\", \"totalNanos\": 100, "
+                + "\"filesWritten\": 2, \"filesSkipped\": 1, \"bytesWritten\": 112, "
+                + "\"stageNanos\": {\"parameters\": 11, \"files\": 25, \"manifests\": 3}}", metrics.toJson(null));
+        String separator = buildDirectory.getFileSystem().getSeparator().replace("\\", "\\\\");
+        assertEquals("{\"module\": \"g:a:1.0\", \"execution\": \"generate-service/default\", \"totalNanos\": 100, "
+                + "\"filesWritten\": 2, \"filesSkipped\": 1, \"bytesWritten\": 112, "
+                + "\"stageNanos\": {\"parameters\": 11, \"files\": 25, \"manifests\": 3}, \"files\": ["
+                + "{\"path\": \"generated-sources" + separator + "A.java\", \"bytes\": 100, \"written\": true, \"nanos\": 20}, "
+                + "{\"path\": \"generated-sources" + separator + "B.java\", \"bytes\": 50, \"written\": false, \"nanos\": 5}, "
+                + "{\"path\": \"classes" + separator + "META-INF" + separator + "services" + separator
+                + "S\", \"bytes\": 12, \"written\": true, \"nanos\": 3}]}", metrics.toJson(buildDirectory));
+    }
+
+    @Test
+    void toJsonWithoutFiles() {
+        assertEquals("{\"module\": null, \"execution\": null, \"totalNanos\": 0, \"filesWritten\": 0, "
+                + "\"filesSkipped\": 0, \"bytesWritten\": 0, \"stageNanos\": {}, \"files\": []}",
+                new GenerationMetrics().toJson(Paths.get("target")));
+    }
+
+    @ParameterizedTest
+    @CsvSource(value = {"plain|\"plain\"", "a\"b|\"a\\\"b\"", "C:\\dir|\"C:\\\\dir\"", "a\tb|\"a\\u0009b\""},
+            delimiter = '|')
+    void quote(String value, String expected) {
+        assertEquals(expected, GenerationMetrics.quote(value));
+    }
+}
@@ -0,0 +1,222 @@
+package de.westemeyer.plugins.maven.versions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes local git repository fixtures (refs, loose objects and pack files) the way git lays them out on disk.
+ */
+final class GitFixture {
+
+    private GitFixture() {
+    }
+
+    /**
+     * Create an empty git directory in a work tree.
+     */
+    static File init(File workTree, String head) throws IOException {
+        File gitDirectory = new File(workTree, ".git");
+        write(new File(gitDirectory, "HEAD"), head + "\n");
+        assertDirectory(new File(gitDirectory, "objects/pack"));
+        assertDirectory(new File(gitDirectory, "refs/heads"));
+        return gitDirectory;
+    }
+
+    /**
+     * Content of a commit object committed at the given time (seconds since epoch).
+     */
+    static byte[] commit(long time, String message) {
+        return ("tree 4b825dc642cb6eb9a060e54bf8d69288fbee4904\n"
+                + "author Sebastian Westemeyer <sebastian@westemeyer.de> " + (time - 60) + " +0100\n"
+                + "committer Sebastian Westemeyer <sebastian@westemeyer.de> " + time + " +0100\n"
+                + "\n" + message + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write a file, creating parent directories.
+     */
+    static void write(File file, String content) throws IOException {
+        assertDirectory(file.getParentFile());
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Write a loose object and return its ID.
+     */
+    static String writeLooseObject(File gitDirectory, String type, byte[] content) throws IOException {
+        byte[] object = concat((type + " " + content.length + "\0").getBytes(StandardCharsets.UTF_8), content);
+        String id = GitMetadata.toHex(sha1(object));
+        File file = new File(gitDirectory, "objects/" + id.substring(0, 2) + "/" + id.substring(2));
+        assertDirectory(file.getParentFile());
+        Files.write(file.toPath(), deflate(object));
+        return id;
+    }
+
+    /**
+     * Write a pack containing a base commit and a second commit stored as delta of the base (either as offset delta
+     * or as reference delta), together with its version 2 index. Returns the IDs of both commits.
+     */
+    static String[] writePack(File gitDirectory, byte[] base, byte[] target, boolean offsetDelta) throws IOException {
+        String baseId = GitMetadata.toHex(sha1(concat(("commit " + base.length + "\0").getBytes(
+                StandardCharsets.UTF_8), base)));
+        String targetId = GitMetadata.toHex(sha1(concat(("commit " + target.length + "\0").getBytes(
+                StandardCharsets.UTF_8), target)));
+
+        ByteArrayOutputStream pack = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(pack);
+        out.writeBytes("PACK");
+        out.writeInt(2);
+        out.writeInt(2);
+        long baseOffset = pack.size();
+        writeObjectHeader(out, 1, base.length);
+        out.write(deflate(base));
+        long targetOffset = pack.size();
+        byte[] delta = delta(base, target);
+        if (offsetDelta) {
+            writeObjectHeader(out, 6, delta.length);
+            out.write(encodeOffset(targetOffset - baseOffset));
+        } else {
+            writeObjectHeader(out, 7, delta.length);
+            out.write(GitMetadata.toBytes(baseId));
+        }
+        out.write(deflate(delta));
+        long end = pack.size();
+        byte[] packChecksum = sha1(pack.toByteArray());
+        out.write(packChecksum);
+        Files.write(new File(gitDirectory, "objects/pack/pack-test.pack").toPath(), pack.toByteArray());
+
+        // index: fan-out table, sorted IDs, checksums, offsets
+        String[] ids = {baseId, targetId};
+        long[] offsets = {baseOffset, targetOffset};
+        long[] checksums = {crc(pack.toByteArray(), baseOffset, targetOffset), crc(pack.toByteArray(), targetOffset,
+                end)};
+        if (baseId.compareTo(targetId) > 0) {
+            ids = new String[]{targetId, baseId};
+            offsets = new long[]{targetOffset, baseOffset};
+            checksums = new long[]{checksums[1], checksums[0]};
+        }
+        ByteArrayOutputStream index = new ByteArrayOutputStream();
+        DataOutputStream indexOut = new DataOutputStream(index);
+        indexOut.write(new byte[]{(byte) 0xff, 't', 'O', 'c'});
+        indexOut.writeInt(2);
+        for (int i = 0; i < 256; i++) {
+            int count = 0;
+            for (String id : ids) {
+                count += Integer.parseInt(id.substring(0, 2), 16) <= i ? 1 : 0;
+            }
+            indexOut.writeInt(count);
+        }
+        for (String id : ids) {
+            indexOut.write(GitMetadata.toBytes(id));
+        }
+        for (long checksum : checksums) {
+            indexOut.writeInt((int) checksum);
+        }
+        for (long offset : offsets) {
+            indexOut.writeInt((int) offset);
+        }
+        indexOut.write(packChecksum);
+        indexOut.write(sha1(index.toByteArray()));
+        Files.write(new File(gitDirectory, "objects/pack/pack-test.idx").toPath(), index.toByteArray());
+        return new String[]{baseId, targetId};
+    }
+
+    /**
+     * Delta copying the common prefix of base and target and inserting the rest of the target.
+     */
+    static byte[] delta(byte[] base, byte[] target) {
+        int prefix = 0;
+        while (prefix < Math.min(base.length, target.length) && base[prefix] == target[prefix]) {
+            prefix++;
+        }
+        ByteArrayOutputStream delta = new ByteArrayOutputStream();
+        writeSize(delta, base.length);
+        writeSize(delta, target.length);
+        if (prefix > 0) {
+            // copy from offset 0 (no offset bytes), two size bytes
+            delta.write(0x80 | 0x10 | 0x20);
+            delta.write(prefix & 0xff);
+            delta.write(prefix >> 8);
+        }
+        for (int start = prefix; start < target.length; start += 127) {
+            int length = Math.min(127, target.length - start);
+            delta.write(length);
+            delta.write(target, start, length);
+        }
+        return delta.toByteArray();
+    }
+
+    private static void writeObjectHeader(DataOutputStream out, int type, int size) throws IOException {
+        int c = (type << 4) | (size & 0x0f);
+        size >>>= 4;
+        while (size != 0) {
+            out.write(c | 0x80);
+            c = size & 0x7f;
+            size >>>= 7;
+        }
+        out.write(c);
+    }
+
+    private static byte[] encodeOffset(long distance) {
+        byte[] buffer = new byte[10];
+        int position = buffer.length - 1;
+        buffer[position] = (byte) (distance & 0x7f);
+        for (long value = distance >>> 7; value != 0; value >>>= 7) {
+            value--;
+            buffer[--position] = (byte) (0x80 | (value & 0x7f));
+        }
+        return Arrays.copyOfRange(buffer, position, buffer.length);
+    }
+
+    private static void writeSize(ByteArrayOutputStream out, int size) {
+        int value = size;
+        while (value >= 0x80) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static byte[] deflate(byte[] data) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (DeflaterOutputStream out = new DeflaterOutputStream(compressed)) {
+            out.write(data);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static long crc(byte[] data, long start, long end) {
+        CRC32 crc = new CRC32();
+        crc.update(data, (int) start, (int) (end - start));
+        return crc.getValue();
+    }
+
+    private static byte[] sha1(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-1").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    private static void assertDirectory(File directory) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalStateException("Unable to create " + directory);
+        }
+    }
+}
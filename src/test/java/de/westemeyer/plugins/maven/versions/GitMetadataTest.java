@@ -0,0 +1,215 @@
+package de.westemeyer.plugins.maven.versions;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GitMetadataTest {
+
+    @Test
+    void readLooseRefAndObject(@TempDir File tempDir) throws IOException {
+        // given
+        File gitDirectory = GitFixture.init(tempDir, "ref: refs/heads/main");
+        String commit = GitFixture.writeLooseObject(gitDirectory, "commit", GitFixture.commit(1672531200L, "Initial"));
+        GitFixture.write(new File(gitDirectory, "refs/heads/main"), commit + "\n");
+
+        // when
+        GitMetadata metadata = GitMetadata.read(tempDir);
+
+        // then
+        assertEquals(commit, metadata.getCommit());
+        assertEquals("main", metadata.getBranch());
+        assertEquals(1672531200L, metadata.getCommitTime());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void readPackedRefAndDeltifiedObject(boolean offsetDelta, @TempDir File tempDir) throws IOException {
+        // given: a fresh clone, refs and objects are packed
+        File gitDirectory = GitFixture.init(tempDir, "ref: refs/heads/feature/git");
+        String[] commits = GitFixture.writePack(gitDirectory, GitFixture.commit(1672531200L, "Base"),
+                GitFixture.commit(1672534800L, "Base and more"), offsetDelta);
+        GitFixture.write(new File(gitDirectory, "packed-refs"), "# pack-refs with: peeled fully-peeled sorted \n"
+                + commits[0] + " refs/heads/main\n"
+                + commits[1] + " refs/heads/feature/git\n"
+                + commits[0] + " refs/tags/v1\n"
+                + "^" + commits[1] + "\n");
+
+        // when
+        GitMetadata metadata = GitMetadata.read(tempDir);
+
+        // then
+        assertEquals(commits[1], metadata.getCommit());
+        assertEquals("feature/git", metadata.getBranch());
+        assertEquals(1672534800L, metadata.getCommitTime());
+    }
+
+    @Test
+    void readDetachedHead(@TempDir File tempDir) throws IOException {
+        // given
+        File gitDirectory = GitFixture.init(tempDir, "ref: refs/heads/main");
+        String commit = GitFixture.writeLooseObject(gitDirectory, "commit", GitFixture.commit(1672531200L, "Initial"));
+        GitFixture.write(new File(gitDirectory, "HEAD"), commit + "\n");
+
+        // when
+        GitMetadata metadata = GitMetadata.read(tempDir);
+
+        // then
+        assertEquals(commit, metadata.getCommit());
+        assertNull(metadata.getBranch());
+        assertEquals(1672531200L, metadata.getCommitTime());
+    }
+
+    @Test
+    void readBranchWithoutCommits(@TempDir File tempDir) throws IOException {
+        // given
+        GitFixture.init(tempDir, "ref: refs/heads/main");
+
+        // when
+        GitMetadata metadata = GitMetadata.read(tempDir);
+
+        // then
+        assertNull(metadata.getCommit());
+        assertEquals("main", metadata.getBranch());
+        assertNull(metadata.getCommitTime());
+    }
+
+    @Test
+    void readLinkedWorkTree(@TempDir File tempDir) throws IOException {
+        // given: the linked work tree has its own HEAD, refs and objects live in the main repository
+        File gitDirectory = GitFixture.init(new File(tempDir, "main"), "ref: refs/heads/main");
+        String commit = GitFixture.writeLooseObject(gitDirectory, "commit", GitFixture.commit(1672531200L, "Initial"));
+        GitFixture.write(new File(gitDirectory, "refs/heads/bugfix"), commit + "\n");
+        File workTreeDirectory = new File(gitDirectory, "worktrees/bugfix");
+        GitFixture.write(new File(workTreeDirectory, "HEAD"), "ref: refs/heads/bugfix\n");
+        GitFixture.write(new File(workTreeDirectory, "commondir"), "../..\n");
+        File workTree = new File(tempDir, "bugfix");
+        GitFixture.write(new File(workTree, ".git"), "gitdir: " + workTreeDirectory.getAbsolutePath() + "\n");
+
+        // when
+        GitMetadata metadata = GitMetadata.read(workTree);
+
+        // then
+        assertEquals(commit, metadata.getCommit());
+        assertEquals("bugfix", metadata.getBranch());
+    }
+
+    @Test
+    void readSubmodule(@TempDir File tempDir) throws IOException {
+        // given: the submodule's git directory lives elsewhere, referenced by a relative path
+        File gitDirectory = GitFixture.init(new File(tempDir, "modules/submodule"), "ref: refs/heads/main");
+        String commit = GitFixture.writeLooseObject(gitDirectory, "commit", GitFixture.commit(1672531200L, "Initial"));
+        GitFixture.write(new File(gitDirectory, "HEAD"), commit + "\n");
+        File submodule = new File(tempDir, "submodule");
+        GitFixture.write(new File(submodule, ".git"), "gitdir: ../modules/submodule/.git\n");
+
+        // when/then
+        assertEquals(commit, GitMetadata.read(submodule).getCommit());
+    }
+
+    @Test
+    void readInvalidRepository(@TempDir File tempDir) throws IOException {
+        // given
+        File gitDirectory = GitFixture.init(tempDir, "ref: refs/heads/main");
+        String tree = GitFixture.writeLooseObject(gitDirectory, "tree", new byte[0]);
+        GitFixture.write(new File(gitDirectory, "refs/heads/main"), tree + "\n");
+        GitFixture.write(new File(gitDirectory, "refs/heads/missing"), "0123456789012345678901234567890123456789\n");
+        GitFixture.write(new File(gitDirectory, "refs/heads/invalid"), "invalid\n");
+
+        // when/then
+        assertThrows(IOException.class, () -> GitMetadata.read(tempDir));
+        GitFixture.write(new File(gitDirectory, "HEAD"), "ref: refs/heads/missing\n");
+        assertThrows(IOException.class, () -> GitMetadata.read(tempDir));
+        GitFixture.write(new File(gitDirectory, "HEAD"), "ref: refs/heads/invalid\n");
+        assertThrows(IOException.class, () -> GitMetadata.read(tempDir));
+        GitFixture.write(new File(gitDirectory, "HEAD"), "ref: refs/heads/loop\n");
+        GitFixture.write(new File(gitDirectory, "refs/heads/loop"), "ref: refs/heads/loop\n");
+        assertThrows(IOException.class, () -> GitMetadata.read(tempDir));
+    }
+
+    @Test
+    void findWorkTree(@TempDir File tempDir) throws IOException {
+        // given
+        File repository = new File(tempDir, "repository");
+        GitFixture.init(repository, "ref: refs/heads/main");
+        File module = new File(repository, "parent/module");
+        assertTrue(module.mkdirs());
+
+        // when/then
+        assertEquals(repository.getAbsoluteFile(), GitMetadata.findWorkTree(module));
+        assertEquals(repository.getAbsoluteFile(), GitMetadata.findWorkTree(repository));
+    }
+
+    @Test
+    void cacheReadsRepositoryOnce(@TempDir File tempDir) throws IOException {
+        // given
+        File gitDirectory = GitFixture.init(tempDir, "ref: refs/heads/main");
+        String commit = GitFixture.writeLooseObject(gitDirectory, "commit", GitFixture.commit(1672531200L, "Initial"));
+        GitFixture.write(new File(gitDirectory, "refs/heads/main"), commit + "\n");
+        File module1 = new File(tempDir, "module1");
+        File module2 = new File(tempDir, "module2");
+        assertTrue(module1.mkdirs() && module2.mkdirs());
+        GitMetadataCache cache = GitMetadataCache.forSession(null);
+
+        // when
+        GitMetadata metadata = cache.get(module1);
+
+        // then
+        assertEquals(commit, metadata.getCommit());
+        assertSame(metadata, cache.get(module2));
+        assertSame(GitMetadata.NONE, cache.get(null));
+    }
+
+    @Test
+    void cacheIgnoresUnreadableRepository(@TempDir File tempDir) throws IOException {
+        // given
+        GitFixture.write(new File(tempDir, ".git"), "invalid\n");
+
+        // when/then
+        assertSame(GitMetadata.NONE, GitMetadataCache.forSession(null).get(tempDir));
+    }
+
+    @Test
+    void parseCommitTime() {
+        assertEquals(1672531200L, GitMetadata.parseCommitTime(
+                new String(GitFixture.commit(1672531200L, "committer in message"), StandardCharsets.UTF_8)));
+        assertNull(GitMetadata.parseCommitTime("tree 4b825dc642cb6eb9a060e54bf8d69288fbee4904\n\ncommitter x"));
+        assertNull(GitMetadata.parseCommitTime("committer Name <name@example.com> invalid +0100\n"));
+    }
+
+    @Test
+    void applyDelta() throws IOException {
+        // given
+        byte[] base = "tree 1\nparent 2\n".getBytes(StandardCharsets.UTF_8);
+        byte[] target = "tree 1\nparent 3\n".getBytes(StandardCharsets.UTF_8);
+
+        // when/then
+        assertArrayEquals(target, GitMetadata.applyDelta(base, GitFixture.delta(base, target)));
+        assertThrows(IOException.class, () -> GitMetadata.applyDelta(new byte[3], GitFixture.delta(base, target)));
+        assertThrows(IOException.class, () -> GitMetadata.applyDelta(base, new byte[]{16, 1, (byte) 0x91, 0, 2}));
+        assertThrows(IOException.class, () -> GitMetadata.applyDelta(base, new byte[]{16, 1, 0}));
+        assertThrows(IOException.class, () -> GitMetadata.applyDelta(base, new byte[]{16}));
+    }
+
+    @Test
+    void objectIds() {
+        String id = "4b825dc642cb6eb9a060e54bf8d69288fbee4904";
+        assertEquals(id, GitMetadata.toHex(GitMetadata.toBytes(id)));
+        assertTrue(GitMetadata.isObjectId(id));
+        assertFalse(GitMetadata.isObjectId(id.toUpperCase()));
+        assertFalse(GitMetadata.isObjectId(id.substring(1)));
+    }
+}
@@ -0,0 +1,66 @@
+package de.westemeyer.plugins.maven.versions;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ModuleDescriptorTest {
+
+    private static final String SERVICE = AbstractArtifactVersionMojo.ARTIFACT_VERSION_SERVICE;
+
+    @Test
+    void find(@TempDir File tempDir) throws IOException {
+        // given
+        File sources = new File(tempDir, "src/main/java");
+        File generated = new File(tempDir, "target/generated-sources");
+        assertTrue(sources.mkdirs());
+        assertTrue(generated.mkdirs());
+        Files.write(new File(generated, ModuleDescriptor.FILE_NAME).toPath(), new byte[0]);
+
+        // when/then: generated descriptors are ignored
+        assertNull(ModuleDescriptor.find(Arrays.asList(generated.getPath(), sources.getPath()), generated));
+
+        // when/then
+        File descriptor = new File(sources, ModuleDescriptor.FILE_NAME);
+        Files.write(descriptor.toPath(), new byte[0]);
+        assertEquals(descriptor, ModuleDescriptor.find(Arrays.asList(generated.getPath(), sources.getPath()),
+                generated));
+        assertNull(ModuleDescriptor.find(Collections.emptyList(), generated));
+    }
+
+    @Test
+    void provides() {
+        assertTrue(ModuleDescriptor.provides("module my.app {\n    provides " + SERVICE
+                + "\n        with my.app.OtherService, my.app.AppVersionService;\n}", SERVICE, "my.app.AppVersionService"));
+        assertTrue(ModuleDescriptor.provides("import " + SERVICE + ";\nmodule my.app {\n"
+                + "    provides ArtifactVersionService with my.app.AppVersionService;\n}", SERVICE,
+                "my.app.AppVersionService"));
+        assertFalse(ModuleDescriptor.provides("module my.app {\n    // provides " + SERVICE
+                + " with my.app.AppVersionService;\n}", SERVICE, "my.app.AppVersionService"));
+        assertFalse(ModuleDescriptor.provides("module my.app {\n    /* provides " + SERVICE
+                + " with my.app.AppVersionService; */\n}", SERVICE, "my.app.AppVersionService"));
+        assertFalse(ModuleDescriptor.provides("module my.app {\n    provides my.app.Other with my.app.AppVersionService;"
+                + "\n}", SERVICE, "my.app.AppVersionService"));
+        assertFalse(ModuleDescriptor.provides("module my.app {\n    provides " + SERVICE
+                + " with my.app.AppVersionServiceImpl;\n}", SERVICE, "my.app.AppVersionService"));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"de.westemeyer,artifact-version-test,de.westemeyer.artifact.version.test",
+            "org.my_group,app,org.my.group.app", "-org,app-,org.app"})
+    void deriveModuleName(String groupId, String artifactId, String expected) {
+        assertEquals(expected, ModuleDescriptor.deriveModuleName(groupId, artifactId));
+    }
+}
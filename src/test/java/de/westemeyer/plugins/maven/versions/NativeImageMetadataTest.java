@@ -0,0 +1,32 @@
+package de.westemeyer.plugins.maven.versions;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NativeImageMetadataTest {
+
+    @Test
+    void getDirectory() {
+        assertEquals("META-INF/native-image/de.westemeyer/app/", NativeImageMetadata.getDirectory("de.westemeyer", "app"));
+    }
+
+    @Test
+    void toReflectConfig() {
+        assertEquals("[\n"
+                + "  {\"name\": \"a.BVersionService\", \"allDeclaredConstructors\": true, \"allPublicMethods\": true},\n"
+                + "  {\"name\": \"a.BAutoConfiguration\", \"allDeclaredConstructors\": true, \"allPublicMethods\": true}\n"
+                + "]\n", NativeImageMetadata.toReflectConfig(Arrays.asList("a.BVersionService", "a.BAutoConfiguration")));
+    }
+
+    @Test
+    void toResourceConfig() {
+        assertEquals("{\n  \"resources\": {\n    \"includes\": [\n"
+                + "      {\"pattern\": \"\\\\QMETA-INF/artifact-versions.idx\\\\E\"}\n"
+                + "    ]\n  }\n}\n", NativeImageMetadata.toResourceConfig(
+                Collections.singletonList(ArtifactIndex.RESOURCE_NAME)));
+    }
+}
@@ -0,0 +1,134 @@
+package de.westemeyer.plugins.maven.versions;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ParentChainCacheTest {
+
+    @Test
+    void renderDefinition() {
+        // given
+        MavenProject root = getMavenProject("root", null);
+        MavenProject parent = getMavenProject("parent", getMavenProject("grandParent", root));
+        // when
+        String definition = ParentChainCache.renderDefinition(parent);
+        // then
+        assertEquals("        BasicArtifact parentArtifact2 = new BasicArtifact(\"group\", \"root\", \"1.0\", null);\n"
+                + "        BasicArtifact parentArtifact1 = new BasicArtifact(\"group\", \"grandParent\", \"1.0\", parentArtifact2);\n"
+                + "        BasicArtifact parentArtifact = new BasicArtifact(\"group\", \"parent\", \"1.0\", parentArtifact1);\n",
+                definition);
+    }
+
+    @Test
+    void renderDeepDefinition() {
+        // given
+        MavenProject parent = null;
+        for (int i = 0; i < 5000; i++) {
+            parent = getMavenProject("level" + i, parent);
+        }
+        // when
+        String definition = ParentChainCache.renderDefinition(parent);
+        // then
+        assertEquals(5000, definition.split("\n").length);
+        assertEquals("        BasicArtifact parentArtifact = new BasicArtifact(\"group\", \"level4999\", \"1.0\", parentArtifact1);\n",
+                definition.substring(definition.lastIndexOf("        BasicArtifact")));
+    }
+
+    @Test
+    void getDefinitionIsSharedBySiblings() {
+        // given: siblings may see different project instances of the same parent
+        ParentChainCache cache = new ParentChainCache();
+        MavenProject parent = getMavenProject("parent", null);
+        MavenProject sameParent = getMavenProject("parent", null);
+        // when
+        String definition = cache.getDefinition(parent);
+        // then
+        assertSame(definition, cache.getDefinition(sameParent));
+        verify(sameParent, times(0)).getParent();
+    }
+
+    @Test
+    void getDescriptor() {
+        // given
+        ParentChainCache cache = new ParentChainCache();
+        MavenProject root = getMavenProject("root", null);
+        MavenProject firstParent = getMavenProject("first", root);
+        MavenProject secondParent = getMavenProject("second", getMavenProject("root", null));
+
+        // when
+        ArtifactDescriptor first = cache.getDescriptor(firstParent);
+        ArtifactDescriptor second = cache.getDescriptor(secondParent);
+
+        // then
+        assertEquals(new ArtifactDescriptor("group", "first", "1.0", new ArtifactDescriptor("group", "root", "1.0",
+                null)), first);
+        assertSame(first.parent, second.parent);
+        assertSame(first, cache.getDescriptor(firstParent));
+        assertNull(cache.getDescriptor(null));
+    }
+
+    @Test
+    void getDescriptorConcurrently() throws InterruptedException, ExecutionException {
+        // given
+        ParentChainCache cache = new ParentChainCache();
+        MavenProject parent = getMavenProject("parent", getMavenProject("root", null));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            // when
+            List<Future<ArtifactDescriptor>> futures = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                futures.add(executor.submit(() -> cache.getDescriptor(parent)));
+            }
+            // then
+            ArtifactDescriptor expected = futures.get(0).get();
+            for (Future<ArtifactDescriptor> future : futures) {
+                assertSame(expected, future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void forSession() {
+        // given
+        MavenSession session = mock(MavenSession.class);
+        when(session.getRepositorySession()).thenReturn(new DefaultRepositorySystemSession());
+        MavenSession otherSession = mock(MavenSession.class);
+        when(otherSession.getRepositorySession()).thenReturn(new DefaultRepositorySystemSession());
+        // when
+        ParentChainCache cache = ParentChainCache.forSession(session);
+        // then
+        assertSame(cache, ParentChainCache.forSession(session));
+        assertNotSame(cache, ParentChainCache.forSession(otherSession));
+        assertNotSame(ParentChainCache.forSession(null), ParentChainCache.forSession(null));
+        assertNotSame(ParentChainCache.forSession(mock(MavenSession.class)), ParentChainCache.forSession(null));
+    }
+
+    private static MavenProject getMavenProject(String artifactId, MavenProject parent) {
+        MavenProject project = mock(MavenProject.class);
+        when(project.getGroupId()).thenReturn("group");
+        when(project.getArtifactId()).thenReturn(artifactId);
+        when(project.getVersion()).thenReturn("1.0");
+        when(project.getParent()).thenReturn(parent);
+        return project;
+    }
+}
@@ -0,0 +1,140 @@
+package de.westemeyer.plugins.maven.versions;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReactorReportTest {
+
+    @Test
+    void add(@TempDir File tempDir) throws IOException {
+        // given
+        Path reportFile = tempDir.toPath().resolve("target/" + ReactorReport.FILE_NAME);
+        ReactorReport report = new ReactorReport(2, null, reportFile);
+        // when/then: the report is written once all executions have been added
+        assertNull(report.add(getMetrics("first", 10), mock(MavenProject.class)));
+        assertFalse(Files.exists(reportFile));
+        assertSame(reportFile, report.add(getMetrics("second", 20), mock(MavenProject.class)));
+        assertEquals("{\"executionCount\": 2, \"totalNanos\": 30, \"filesWritten\": 2, \"filesSkipped\": 0, "
+                + "\"bytesWritten\": 30, \"stageNanos\": {\"parameters\": 2, \"files\": 4}, \"executions\": [\n"
+                + "  " + getMetrics("first", 10).toJson(null) + ",\n"
+                + "  " + getMetrics("second", 20).toJson(null) + "\n]}\n", read(reportFile));
+        // and rewritten with every execution added afterwards
+        assertSame(reportFile, report.add(getMetrics("third", 30), mock(MavenProject.class)));
+        assertTrue(read(reportFile).startsWith("{\"executionCount\": 3, \"totalNanos\": 60,"));
+    }
+
+    @Test
+    void addLastProject(@TempDir File tempDir) throws IOException {
+        // given: fewer executions than expected (e.g. a failed module)
+        MavenProject lastProject = mock(MavenProject.class);
+        Path reportFile = tempDir.toPath().resolve(ReactorReport.FILE_NAME);
+        ReactorReport report = new ReactorReport(3, lastProject, reportFile);
+        // when/then
+        assertNull(report.add(getMetrics("first", 10), mock(MavenProject.class)));
+        assertSame(reportFile, report.add(getMetrics("last", 10), lastProject));
+        assertTrue(read(reportFile).startsWith("{\"executionCount\": 2,"));
+    }
+
+    @Test
+    void addWithoutReportFile() throws IOException {
+        assertNull(new ReactorReport(1, null, null).add(getMetrics("module", 1), mock(MavenProject.class)));
+    }
+
+    @Test
+    void countExecutions() {
+        // given
+        MavenProject withPlugin = getMavenProject(getPlugin(ReactorReport.PLUGIN_KEY, "generate-service",
+                "generate-registry"), getPlugin(ReactorReport.PLUGIN_KEY, "help"),
+                getPlugin("org.apache.maven.plugins:maven-compiler-plugin", "compile"));
+        MavenProject withoutPlugin = getMavenProject();
+        MavenProject withoutBuild = mock(MavenProject.class);
+        // when/then
+        assertEquals(2, ReactorReport.countExecutions(Arrays.asList(withPlugin, withoutPlugin, withoutBuild)));
+        // goals invoked from the command line run in every project
+        assertEquals(2, ReactorReport.countExecutions(Arrays.asList(withoutPlugin, withoutBuild)));
+    }
+
+    @Test
+    void forSession(@TempDir File tempDir) throws IOException {
+        // given
+        MavenProject root = getMavenProject();
+        root.getBuild().setDirectory(new File(tempDir, "target").getPath());
+        MavenProject module = getMavenProject();
+        MavenSession session = mock(MavenSession.class);
+        when(session.getRepositorySession()).thenReturn(new DefaultRepositorySystemSession());
+        when(session.getProjects()).thenReturn(Arrays.asList(root, module));
+        when(session.getTopLevelProject()).thenReturn(root);
+        // when
+        ReactorReport report = ReactorReport.forSession(session);
+        // then
+        assertSame(report, ReactorReport.forSession(session));
+        assertNotSame(ReactorReport.forSession(null), ReactorReport.forSession(null));
+        assertNull(report.add(getMetrics("root", 1), root));
+        assertEquals(tempDir.toPath().resolve("target/" + ReactorReport.FILE_NAME).toAbsolutePath(),
+                report.add(getMetrics("module", 1), module));
+    }
+
+    @Test
+    void forSessionWithoutProjects() throws IOException {
+        // given
+        MavenSession session = mock(MavenSession.class);
+        when(session.getRepositorySession()).thenReturn(new DefaultRepositorySystemSession());
+        // when/then
+        assertNull(ReactorReport.forSession(session).add(getMetrics("module", 1), mock(MavenProject.class)));
+        assertNull(ReactorReport.getReportFile(mock(MavenProject.class)));
+        assertNull(ReactorReport.getReportFile(getMavenProject()));
+    }
+
+    private static GenerationMetrics getMetrics(String artifactId, long totalNanos) {
+        GenerationMetrics metrics = new GenerationMetrics();
+        metrics.addStage(GenerationMetrics.PARAMETERS, 1);
+        metrics.addFile(GenerationMetrics.FILES, new File(artifactId).toPath(), totalNanos, true, 2);
+        metrics.finish("de.westemeyer:" + artifactId + ":1.0.0", "generate-service/default", totalNanos);
+        return metrics;
+    }
+
+    private static MavenProject getMavenProject(Plugin... plugins) {
+        Build build = new Build();
+        build.setPlugins(Arrays.asList(plugins));
+        MavenProject project = mock(MavenProject.class);
+        when(project.getBuild()).thenReturn(build);
+        return project;
+    }
+
+    private static Plugin getPlugin(String key, String... goals) {
+        Plugin plugin = new Plugin();
+        plugin.setGroupId(key.substring(0, key.indexOf(':')));
+        plugin.setArtifactId(key.substring(key.indexOf(':') + 1));
+        PluginExecution execution = new PluginExecution();
+        execution.setGoals(Arrays.asList(goals));
+        plugin.setExecutions(Collections.singletonList(execution));
+        return plugin;
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,224 @@
+package de.westemeyer.plugins.maven.versions;
+
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.ModuleVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ServiceClassWriterTest {
+
+    // artifact-version-core requires Java 17, so generated service classes are only loaded there
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_17)
+    void writeServiceClass() throws ReflectiveOperationException {
+        // given
+        ArtifactDescriptor root = new ArtifactDescriptor("de.westemeyer", "root", "3.0.0", null);
+        ArtifactDescriptor parent = new ArtifactDescriptor("de.westemeyer", "parent", "2.0.0", root);
+        ArtifactDescriptor artifact = new ArtifactDescriptor("de.westemeyer", "artifact", "1.0.0", 1672531200000L,
+                "Name", "Description", null, parent);
+
+        // when
+        byte[] content = ServiceClassWriter.writeServiceClass("my.generated.ArtifactVersionService", artifact, false);
+        Class<?> serviceClass = defineClass("my.generated.ArtifactVersionService", content);
+        Object service = serviceClass.getConstructor().newInstance();
+
+        // then
+        assertTrue(Class.forName(AbstractArtifactVersionMojo.ARTIFACT_VERSION_SERVICE).isAssignableFrom(serviceClass));
+        assertEquals("Artifact[groupId=de.westemeyer, artifactId=artifact, version=1.0.0, timestamp=1672531200000, "
+                        + "name=Name, description=Description, url=null, parentArtifact=BasicArtifact["
+                        + "groupId=de.westemeyer, artifactId=parent, version=2.0.0, parentArtifact=BasicArtifact["
+                        + "groupId=de.westemeyer, artifactId=root, version=3.0.0, parentArtifact=null]]]",
+                serviceClass.getMethod("getArtifact").invoke(service).toString());
+        assertSame(serviceClass.getMethod("getArtifact").invoke(service),
+                serviceClass.getMethod("getArtifact").invoke(serviceClass.getConstructor().newInstance()));
+        assertEquals(Collections.emptyList(), getAnnotations(content));
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_17)
+    void bytecodeAndSourceProvideSameValues(@TempDir File tempDir) throws Exception {
+        // given: a pom with windows line separators and tabs
+        GenerateServiceMojo mojo = new GenerateServiceMojo();
+        mojo.setLog(mock(Log.class));
+        mojo.project = mock(MavenProject.class);
+        when(mojo.project.getGroupId()).thenReturn("de.westemeyer");
+        when(mojo.project.getArtifactId()).thenReturn("app");
+        when(mojo.project.getVersion()).thenReturn("1.0.0");
+        when(mojo.project.getName()).thenReturn("Multi\r\nline\tname");
+        when(mojo.project.getDescription()).thenReturn("First line\r\n\tindented\nlast\tline");
+        mojo.packageName = "generated";
+        mojo.serviceClass = "AppVersionService";
+
+        // when
+        Class<?> bytecodeClass = defineClass("generated.AppVersionService",
+                ServiceClassWriter.writeServiceClass("generated.AppVersionService", mojo.createArtifactDescriptor(),
+                        false));
+        Class<?> sourceClass = GeneratedSourceCompiler.compileAndLoad(tempDir, "generated.AppVersionService",
+                mojo.getServiceTemplate("service-template.txt").render(mojo.getTemplateValues("AppAutoConfiguration")));
+
+        // then
+        Object bytecodeArtifact = getArtifact(bytecodeClass);
+        Object sourceArtifact = getArtifact(sourceClass);
+        for (String accessor : Arrays.asList("name", "description")) {
+            assertEquals(bytecodeArtifact.getClass().getMethod(accessor).invoke(bytecodeArtifact),
+                    sourceArtifact.getClass().getMethod(accessor).invoke(sourceArtifact));
+        }
+        assertEquals("First line\n indented\nlast line",
+                bytecodeArtifact.getClass().getMethod("description").invoke(bytecodeArtifact));
+    }
+
+    @Test
+    void writeSpringServiceClass() {
+        // given
+        ArtifactDescriptor artifact = new ArtifactDescriptor("g", "a", "v", 0L, null, null, null, null);
+
+        // when
+        byte[] content = ServiceClassWriter.writeServiceClass("SpringService", artifact, true);
+
+        // then
+        assertEquals(Collections.singletonList("Lorg/springframework/stereotype/Service;"), getAnnotations(content));
+    }
+
+    @Test
+    void writeConfigurationClass() throws ReflectiveOperationException {
+        // when
+        byte[] content = ServiceClassWriter.writeConfigurationClass("my.generated.AutoConfiguration");
+        Class<?> configurationClass = defineClass("my.generated.AutoConfiguration", content);
+
+        // then
+        assertEquals(0, configurationClass.getInterfaces().length);
+        configurationClass.getConstructor().newInstance();
+        assertEquals(Arrays.asList("Lorg/springframework/context/annotation/Configuration;",
+                "Lorg/springframework/context/annotation/ComponentScan;"), getAnnotations(content));
+    }
+
+    @Test
+    void writeBeanConfigurationClass() {
+        // when
+        byte[] content = ServiceClassWriter.writeBeanConfigurationClass("my.generated.AutoConfiguration",
+                "my.generated.MyVersionService", "myVersionService");
+
+        // then
+        assertEquals(Collections.singletonList("Lorg/springframework/context/annotation/Configuration;"),
+                getAnnotations(content));
+        List<String> members = new ArrayList<>();
+        new ClassReader(content).accept(new ClassVisitor(Opcodes.ASM9) {
+            @Override
+            public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+                return new AnnotationVisitor(Opcodes.ASM9) {
+                    @Override
+                    public void visit(String name, Object value) {
+                        members.add(name + "=" + value);
+                    }
+                };
+            }
+
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+                                             String[] exceptions) {
+                members.add(name + descriptor);
+                return new MethodVisitor(Opcodes.ASM9) {
+                    @Override
+                    public AnnotationVisitor visitAnnotation(String annotation, boolean visible) {
+                        members.add(annotation);
+                        return null;
+                    }
+                };
+            }
+        }, 0);
+        assertEquals(Arrays.asList("proxyBeanMethods=false", "<init>()V",
+                "myVersionService()Lmy/generated/MyVersionService;", "Lorg/springframework/context/annotation/Bean;"),
+                members);
+    }
+
+    @Test
+    void writeModuleInfo() {
+        // when
+        byte[] content = ServiceClassWriter.writeModuleInfo("my.generated", "artifact.version.core",
+                "my.generated.MyVersionService");
+
+        // then
+        List<String> declarations = new ArrayList<>();
+        new ClassReader(content).accept(new ClassVisitor(Opcodes.ASM9) {
+            @Override
+            public ModuleVisitor visitModule(String name, int access, String version) {
+                declarations.add("module " + name);
+                return new ModuleVisitor(Opcodes.ASM9) {
+                    @Override
+                    public void visitRequire(String module, int requireAccess, String requireVersion) {
+                        declarations.add("requires " + module);
+                    }
+
+                    @Override
+                    public void visitProvide(String service, String... providers) {
+                        declarations.add("provides " + service + " with " + String.join(",", providers));
+                    }
+                };
+            }
+        }, 0);
+        assertEquals(Arrays.asList("module my.generated", "requires java.base", "requires artifact.version.core",
+                "provides de/westemeyer/version/core/api/ArtifactVersionService with my/generated/MyVersionService"),
+                declarations);
+    }
+
+    @Test
+    void writeServiceClassIsDeterministic() {
+        ArtifactDescriptor artifact = new ArtifactDescriptor("g", "a", "v", 42L, "n", "d", "u", null);
+        assertArrayEquals(ServiceClassWriter.writeServiceClass("a.B", artifact, true),
+                ServiceClassWriter.writeServiceClass("a.B", artifact, true));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"a.b.C,true", "C,true", "a.b_c.$D1,true", "a.1b.C,false", "a..C,false", "a.b-c.D,false", "a.C.,false"})
+    void isValidClassName(String className, boolean expected) {
+        assertEquals(expected, ServiceClassWriter.isValidClassName(className));
+    }
+
+    private static Class<?> defineClass(String className, byte[] content) {
+        return new ClassLoader(ServiceClassWriterTest.class.getClassLoader()) {
+            Class<?> define() {
+                return defineClass(className, content, 0, content.length);
+            }
+        }.define();
+    }
+
+    private static Object getArtifact(Class<?> serviceClass) throws ReflectiveOperationException {
+        return serviceClass.getMethod("getArtifact").invoke(serviceClass.getConstructor().newInstance());
+    }
+
+    private static List<String> getAnnotations(byte[] content) {
+        List<String> annotations = new ArrayList<>();
+        new ClassReader(content).accept(new ClassVisitor(Opcodes.ASM9) {
+            @Override
+            public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+                assertTrue(visible);
+                annotations.add(descriptor);
+                return null;
+            }
+        }, 0);
+        return annotations;
+    }
+}
@@ -0,0 +1,133 @@
+package de.westemeyer.plugins.maven.versions;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServiceTemplateTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"service-template.txt", "service-template-with-parent.txt",
+            "service-template-spring-boot.txt", "service-template-spring-boot-with-parent.txt",
+            "service-template-spring-boot-configuration.txt"})
+    void renderEqualsReplaceLoop(String resourceName) throws IOException {
+        // given
+        String text = readResource(resourceName);
+        Map<String, String> values = getTemplateValues();
+        Map<String, String> nullValues = getTemplateValues();
+        nullValues.put("url", null);
+        nullValues.put("description", null);
+        // when
+        ServiceTemplate template = ServiceTemplate.parse(text);
+        // then
+        assertEquals(replaceLoop(text, values), template.render(values));
+        assertEquals(replaceLoop(text, nullValues), template.render(nullValues));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"service-template.txt", "service-template-with-parent.txt",
+            "service-template-spring-boot.txt", "service-template-spring-boot-with-parent.txt"})
+    void artifactIsCreatedOnce(String resourceName) throws IOException {
+        // when
+        String rendered = ServiceTemplate.parse(readResource(resourceName)).render(getTemplateValues());
+        // then
+        assertTrue(rendered.contains("    private static final Artifact ARTIFACT = createArtifact();\n"));
+        assertTrue(rendered.contains("    public Artifact getArtifact() {\n        return ARTIFACT;\n    }\n"));
+        assertEquals(1, rendered.split("new Artifact\\(", -1).length - 1);
+    }
+
+    @Test
+    void renderEdgeCases() {
+        // given
+        String text = "${a}|\"${b}\"|${b}|\"${c}\"|${unclosed";
+        Map<String, String> values = new HashMap<>();
+        values.put("a", "A");
+        values.put("b", null);
+        // when/then
+        assertEquals(replaceLoop(text, values), ServiceTemplate.parse(text).render(values));
+        assertEquals("A|null|${b}|\"${c}\"|${unclosed", ServiceTemplate.parse(text).render(values));
+    }
+
+    @Test
+    void renderWithoutPlaceholders() {
+        assertEquals("plain text", ServiceTemplate.parse("plain text").render(new HashMap<>()));
+        assertEquals("", ServiceTemplate.parse("").render(new HashMap<>()));
+    }
+
+    @Test
+    void toJavaLiteral() {
+        assertEquals("null", ServiceTemplate.toJavaLiteral(null));
+        assertEquals("\"\"", ServiceTemplate.toJavaLiteral(""));
+        assertEquals("\"Apache \\\"2\\\"\\n\\u00e4\"", ServiceTemplate.toJavaLiteral("Apache \"2\"\nä"));
+    }
+
+    @Test
+    void cache() {
+        // given
+        String name = "template-" + System.nanoTime();
+        ServiceTemplate template = ServiceTemplate.parse("${a}");
+        // when/then
+        assertNull(ServiceTemplate.getCached(name));
+        assertSame(template, ServiceTemplate.cache(name, template));
+        assertSame(template, ServiceTemplate.cache(name, ServiceTemplate.parse("${b}")));
+        assertSame(template, ServiceTemplate.getCached(name));
+    }
+
+    /**
+     * The replacement algorithm used before templates were precompiled.
+     */
+    private static String replaceLoop(String out, Map<String, String> templateValues) {
+        for (Map.Entry<String, String> entry : templateValues.entrySet()) {
+            String value = entry.getValue();
+            if (value == null) {
+                out = out.replace("\"${" + entry.getKey() + "}\"", "null");
+            } else {
+                out = out.replace("${" + entry.getKey() + "}", value);
+            }
+        }
+        return out;
+    }
+
+    private static Map<String, String> getTemplateValues() {
+        Map<String, String> valueMap = new HashMap<>();
+        valueMap.put("package", "de.westemeyer.versions");
+        valueMap.put("serviceClass", "ArtifactVersionsVersionService");
+        valueMap.put("configClass", "ArtifactVersionsAutoConfiguration");
+        valueMap.put("groupId", "de.westemeyer");
+        valueMap.put("artifactId", "artifact-versions");
+        valueMap.put("version", "1.0.0-SNAPSHOT");
+        valueMap.put("name", "My project\\nname");
+        valueMap.put("url", "https://www.westemeyer.de");
+        valueMap.put("description", "Description");
+        valueMap.put("timestamp", "1672531200000");
+        valueMap.put("parentArtifactDefinition",
+                "        BasicArtifact parentArtifact = new BasicArtifact(\"de.westemeyer\", \"parent\", \"1.0.0\", null);\n");
+        valueMap.put("dependencyTree", "");
+        valueMap.put("extendedMetadata", "");
+        valueMap.put("gitMetadata", "");
+        return valueMap;
+    }
+
+    private static String readResource(String resourceName) throws IOException {
+        try (InputStream stream = ServiceTemplate.class.getResourceAsStream(resourceName)) {
+            assertNotNull(stream);
+            try (Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+                return new GenerateServiceMojo().readTemplateFile(reader);
+            }
+        }
+    }
+}